@@ -0,0 +1,133 @@
+package nofy.p17.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nofy.p17.ConcurrencyLimit;
+import nofy.p17.Controller;
+import nofy.p17.GetMapping;
+import nofy.p17.ModelView;
+import nofy.p17.MyJson;
+import nofy.p17.PostMapping;
+import nofy.p17.RequestBody;
+
+/**
+ * Contrôleur des benchmarks : routes à 0, 1, 4 et 8 paramètres, réponse JSON
+ * de taille variable, binding de formulaire, rendu de vue et de gabarit,
+ * route limitée (@ConcurrencyLimit).
+ */
+@Controller("/bench")
+public class BenchController {
+
+    @GetMapping("/p0")
+    public String p0() {
+        return "ok";
+    }
+
+    @ConcurrencyLimit(value = 64, adaptive = true)
+    @GetMapping("/p0/limited")
+    public String p0Limited() {
+        return "ok";
+    }
+
+    @GetMapping("/p1/{id}")
+    public String p1(int id) {
+        return "ok";
+    }
+
+    @GetMapping("/p4/{id}")
+    public String p4(int id, String name, long size, boolean flag) {
+        return "ok";
+    }
+
+    @GetMapping("/p8/{id}")
+    public String p8(int id, String a, String b, String c, long d, double e, boolean f, String g) {
+        return "ok";
+    }
+
+    @MyJson
+    @GetMapping("/items")
+    public List<Item> items(int n) {
+        return Item.list(n);
+    }
+
+    @PostMapping("/order")
+    public String order(Order order) {
+        return "ok";
+    }
+
+    @PostMapping("/order.json")
+    public String orderJson(@RequestBody Order order) {
+        return "ok";
+    }
+
+    @GetMapping("/view")
+    public ModelView view() {
+        ModelView mv = new ModelView("page.jsp");
+        mv.addItem("title", "bench");
+        return mv;
+    }
+
+    @GetMapping("/template")
+    public ModelView template() {
+        ModelView mv = new ModelView("views/items.tpl");
+        mv.addItem("title", "Articles <bench>");
+        mv.addItem("items", Item.list(20));
+        return mv;
+    }
+
+    public static class Item {
+        private int id;
+        private String name;
+        private double price;
+        private boolean available;
+
+        public Item(int id) {
+            this.id = id;
+            this.name = "Article n°" + id;
+            this.price = id * 1.5;
+            this.available = (id % 2 == 0);
+        }
+
+        public int getId() { return id; }
+        public String getName() { return name; }
+        public double getPrice() { return price; }
+        public boolean isAvailable() { return available; }
+
+        public static List<Item> list(int n) {
+            List<Item> items = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) items.add(new Item(i));
+            return items;
+        }
+    }
+
+    public static class Address {
+        private String city;
+        private int zip;
+
+        public void setCity(String city) { this.city = city; }
+        public void setZip(int zip) { this.zip = zip; }
+    }
+
+    public static class Line {
+        private String sku;
+        private int qty;
+
+        public void setSku(String sku) { this.sku = sku; }
+        public void setQty(int qty) { this.qty = qty; }
+    }
+
+    public static class Order {
+        private String name;
+        private long amount;
+        private Address address;
+        private List<Line> lines;
+
+        public void setName(String name) { this.name = name; }
+        public void setAmount(long amount) { this.amount = amount; }
+        public Address getAddress() { return address; }
+        public void setAddress(Address address) { this.address = address; }
+        public List<Line> getLines() { return lines; }
+        public void setLines(List<Line> lines) { this.lines = lines; }
+    }
+}
@@ -0,0 +1,127 @@
+package nofy.p17.bench;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nofy.p17.FrontServlet;
+import nofy.p17.JsonBinders;
+import nofy.p17.JsonReader;
+import nofy.p17.PojoBinder;
+
+/**
+ * Binding d'un formulaire vers un POJO : champs simples, objet imbriqué
+ * (address.city) et liste indexée (lines[i].qty), directement par
+ * PojoBinder et à travers le FrontServlet. Le même contenu en corps JSON
+ * (@RequestBody) : bindJson et dispatchJson.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BindingBenchmark {
+
+    @Param({ "flat", "nested", "indexed" })
+    public String shape;
+
+    /** Nombre de lignes pour la forme "indexed". */
+    @Param({ "10" })
+    public int lines;
+
+    private Map<String, String[]> form;
+    private PojoBinder binder;
+    private FrontServlet servlet;
+    private MockHttp.Request request;
+    private MockHttp.Response response;
+    private byte[] json;
+    private JsonBinders.JsonBinder jsonBinder;
+    private MockHttp.Request jsonRequest;
+
+    @Setup
+    public void setup() throws Exception {
+        form = new HashMap<>();
+        form.put("name", new String[] { "commande" });
+        form.put("amount", new String[] { "1500" });
+        if (!shape.equals("flat")) {
+            form.put("address.city", new String[] { "Antananarivo" });
+            form.put("address.zip", new String[] { "101" });
+        }
+        if (shape.equals("indexed")) {
+            for (int i = 0; i < lines; i++) {
+                form.put("lines[" + i + "].sku", new String[] { "SKU-" + i });
+                form.put("lines[" + i + "].qty", new String[] { String.valueOf(i + 1) });
+            }
+        }
+        binder = PojoBinder.of(BenchController.Order.class);
+        servlet = Servlets.create();
+        request = new MockHttp.Request("POST", "/bench/order", form, new HashMap<>());
+        response = new MockHttp.Response();
+
+        StringBuilder body = new StringBuilder("{\"name\":\"commande\",\"amount\":1500");
+        if (!shape.equals("flat")) body.append(",\"address\":{\"city\":\"Antananarivo\",\"zip\":101}");
+        if (shape.equals("indexed")) {
+            body.append(",\"lines\":[");
+            for (int i = 0; i < lines; i++) {
+                if (i > 0) body.append(',');
+                body.append("{\"sku\":\"SKU-").append(i).append("\",\"qty\":").append(i + 1).append('}');
+            }
+            body.append(']');
+        }
+        json = body.append('}').toString().getBytes(StandardCharsets.UTF_8);
+        jsonBinder = JsonBinders.of(BenchController.Order.class);
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        jsonRequest = new MockHttp.Request("POST", "/bench/order.json", new HashMap<>(), headers);
+        jsonRequest.setBody(json);
+    }
+
+    @TearDown
+    public void tearDown() {
+        servlet.destroy();
+    }
+
+    @Benchmark
+    public Object bind() throws Exception {
+        Object order = binder.newInstance();
+        binder.bind(order, form);
+        return order;
+    }
+
+    @Benchmark
+    public long dispatch() throws Exception {
+        request.reset();
+        response.reset();
+        servlet.service(request, response);
+        return response.getBytesWritten();
+    }
+
+    @Benchmark
+    public Object bindJson() throws Exception {
+        return jsonBinder.read(new JsonReader(new ByteArrayInputStream(json), -1));
+    }
+
+    @Benchmark
+    public long dispatchJson() throws Exception {
+        jsonRequest.reset();
+        response.reset();
+        servlet.service(jsonRequest, response);
+        return response.getBytesWritten();
+    }
+}
@@ -0,0 +1,200 @@
+package nofy.p17.bench;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nofy.p17.FrontServlet;
+import nofy.p17.HandlerInvoker;
+import nofy.p17.RequestParam;
+import nofy.p17.Router;
+
+/**
+ * Requête complète dans le FrontServlet (recherche, résolution des
+ * arguments, appel, rendu) selon le nombre de paramètres de la méthode.
+ * invoke / invokeReflective isolent l'appel du contrôleur : invoker
+ * précompilé (sans mesure des phases, metricsPhases=false) contre
+ * Method.invoke avec résolution à chaque requête ; invokeWithPhases donne
+ * le coût des mesures de binding et d'invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    private static final int BATCH_CALLS = 10;
+
+    @Param({ "0", "1", "4", "8" })
+    public int params;
+
+    private FrontServlet servlet;
+    private FrontServlet untimedServlet;
+    private MockHttp.Request request;
+    private MockHttp.Response response;
+    private MockHttp.Request viewRequest;
+    private MockHttp.Request templateRequest;
+    private MockHttp.Request limitedRequest;
+    private MockHttp.Request batchRequest;
+    private HandlerInvoker invoker;
+    private HandlerInvoker timedInvoker;
+    private Router.RouteMatch<HandlerInvoker> match;
+    private Method method;
+    private final BenchController controller = new BenchController();
+    private final Map<String, String> pathParams = new HashMap<>();
+
+    @Setup
+    public void setup() throws Exception {
+        servlet = Servlets.create();
+
+        Map<String, String[]> query = new HashMap<>();
+        String uri;
+        switch (params) {
+            case 0:
+                uri = "/bench/p0";
+                break;
+            case 1:
+                uri = "/bench/p1/42";
+                break;
+            case 4:
+                uri = "/bench/p4/42";
+                query.put("name", new String[] { "nofy" });
+                query.put("size", new String[] { "1024" });
+                query.put("flag", new String[] { "true" });
+                break;
+            default:
+                uri = "/bench/p8/42";
+                for (String name : new String[] { "a", "b", "c", "g" }) query.put(name, new String[] { name + "-value" });
+                query.put("d", new String[] { "123456789" });
+                query.put("e", new String[] { "3.14" });
+                query.put("f", new String[] { "false" });
+        }
+        request = new MockHttp.Request("GET", uri, query, new HashMap<>());
+        match = servlet.reload().match(uri);
+        timedInvoker = match.getHandler("GET");
+        untimedServlet = Servlets.create(Map.of(FrontServlet.METRICS_PHASES_PARAM, "false"));
+        invoker = untimedServlet.reload().match(uri).getHandler("GET");
+        method = invoker.getMethod();
+        if (params > 0) pathParams.put("id", "42");
+        response = new MockHttp.Response();
+        viewRequest = new MockHttp.Request("GET", "/bench/view", new HashMap<>(), new HashMap<>());
+        templateRequest = new MockHttp.Request("GET", "/bench/template", new HashMap<>(), new HashMap<>());
+        limitedRequest = new MockHttp.Request("GET", "/bench/p0/limited", new HashMap<>(), new HashMap<>());
+        StringBuilder batch = new StringBuilder("[");
+        for (int i = 0; i < BATCH_CALLS; i++) {
+            if (i > 0) batch.append(',');
+            batch.append("{\"path\":\"/bench/p1/").append(i).append("\"}");
+        }
+        batchRequest = new MockHttp.Request("POST", FrontServlet.BATCH_PATH, new HashMap<>(), new HashMap<>());
+        batchRequest.setBody(batch.append(']').toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @TearDown
+    public void tearDown() {
+        servlet.destroy();
+        untimedServlet.destroy();
+    }
+
+    @Benchmark
+    public long dispatch() throws Exception {
+        request.reset();
+        response.reset();
+        servlet.service(request, response);
+        return response.getBytesWritten();
+    }
+
+    /** Appel seul par l'invoker précompilé : résolveurs par paramètre et MethodHandle. */
+    @Benchmark
+    public Object invoke() throws Exception {
+        request.reset();
+        return invoker.invoke(request, response, match);
+    }
+
+    /** Même appel, avec les mesures de phase (binding, invoke) de RouteMetrics. */
+    @Benchmark
+    public Object invokeWithPhases() throws Exception {
+        request.reset();
+        return timedInvoker.invoke(request, response, match);
+    }
+
+    /**
+     * Référence : l'appel tel qu'avant les invokers précompilés (paramètres
+     * relus, valeurs converties et Method.invoke à chaque requête).
+     */
+    @Benchmark
+    public Object invokeReflective() throws Exception {
+        request.reset();
+        Class<?>[] paramTypes = method.getParameterTypes();
+        Parameter[] parameters = method.getParameters();
+        Object[] args = new Object[paramTypes.length];
+        for (int i = 0; i < paramTypes.length; i++) {
+            RequestParam requestParam = parameters[i].getAnnotation(RequestParam.class);
+            String name = (requestParam != null) ? requestParam.value() : parameters[i].getName();
+            String value = pathParams.containsKey(name) ? pathParams.get(name) : request.getParameter(name);
+            args[i] = (value == null || value.trim().isEmpty()) ? null : convert(value, paramTypes[i]);
+        }
+        return method.invoke(controller, args);
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        if (type == String.class) return value;
+        if (type == int.class || type == Integer.class) return Integer.parseInt(value);
+        if (type == long.class || type == Long.class) return Long.parseLong(value);
+        if (type == double.class || type == Double.class) return Double.parseDouble(value);
+        if (type == boolean.class || type == Boolean.class) return Boolean.parseBoolean(value);
+        throw new IllegalArgumentException("Type non supporté: " + type.getName());
+    }
+
+    @Benchmark
+    public int dispatchView() throws Exception {
+        viewRequest.reset();
+        response.reset();
+        servlet.service(viewRequest, response);
+        return response.getStatus();
+    }
+
+    /** Gabarit de 20 lignes (each, if, échappement) rendu dans la réponse. */
+    @Benchmark
+    public long dispatchTemplate() throws Exception {
+        templateRequest.reset();
+        response.reset();
+        servlet.service(templateRequest, response);
+        return response.getBytesWritten();
+    }
+
+    /** Route p0 sous @ConcurrencyLimit adaptative : coût de l'admission (à comparer à dispatch, params=0). */
+    @Benchmark
+    public long dispatchLimited() throws Exception {
+        limitedRequest.reset();
+        response.reset();
+        servlet.service(limitedRequest, response);
+        return response.getBytesWritten();
+    }
+
+    /** Lot de 10 appels p1 en parallèle (à comparer à 10 × dispatch, params=1). */
+    @Benchmark
+    public long dispatchBatch() throws Exception {
+        batchRequest.reset();
+        response.reset();
+        servlet.service(batchRequest, response);
+        return response.getBytesWritten();
+    }
+}
@@ -0,0 +1,83 @@
+package nofy.p17.bench;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nofy.p17.FrontServlet;
+import nofy.p17.JsonResponse;
+
+/**
+ * Sérialisation JSON selon la taille de la réponse : écriture en flux
+ * (writeTo), chaîne complète (toJsonString) et route @MyJson de bout en bout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+    @Param({ "1", "100", "10000" })
+    public int items;
+
+    private JsonResponse payload;
+    private OutputStream sink;
+    private FrontServlet servlet;
+    private MockHttp.Request request;
+    private MockHttp.Response response;
+
+    @Setup
+    public void setup() throws Exception {
+        List<BenchController.Item> data = BenchController.Item.list(items);
+        payload = new JsonResponse(200, data, "", "success");
+        sink = OutputStream.nullOutputStream();
+
+        servlet = Servlets.create();
+        Map<String, String[]> query = new HashMap<>();
+        query.put("n", new String[] { String.valueOf(items) });
+        request = new MockHttp.Request("GET", "/bench/items", query, new HashMap<>());
+        response = new MockHttp.Response();
+    }
+
+    @TearDown
+    public void tearDown() {
+        servlet.destroy();
+    }
+
+    @Benchmark
+    public void writeTo() throws IOException {
+        payload.writeTo(sink);
+    }
+
+    @Benchmark
+    public String toJsonString() {
+        return payload.toJsonString();
+    }
+
+    /** Inclut la construction de la liste par le contrôleur. */
+    @Benchmark
+    public long dispatch() throws Exception {
+        request.reset();
+        response.reset();
+        servlet.service(request, response);
+        return response.getBytesWritten();
+    }
+}
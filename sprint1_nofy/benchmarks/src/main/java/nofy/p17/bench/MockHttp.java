@@ -0,0 +1,244 @@
+package nofy.p17.bench;
+
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Requête, réponse et configuration en mémoire pour piloter le FrontServlet
+ * sans conteneur. Les méthodes utilisées par le framework sont de vrais
+ * appels (pas de Proxy sur le chemin mesuré) ; les autres lèvent
+ * UnsupportedOperationException pour signaler un benchmark qui sort du cadre.
+ */
+public final class MockHttp {
+
+    private MockHttp() {
+    }
+
+    /** Configuration du servlet : init-params donnés, contexte minimal. */
+    public static ServletConfig config(Map<String, String> initParams) {
+        Map<String, Object> attributes = new HashMap<>();
+        ServletContext context = (ServletContext) Proxy.newProxyInstance(MockHttp.class.getClassLoader(),
+            new Class<?>[] { ServletContext.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getInitParameter": return null;
+                    case "getInitParameterNames": return Collections.emptyEnumeration();
+                    case "getAttribute": return attributes.get(args[0]);
+                    case "setAttribute": attributes.put((String) args[0], args[1]); return null;
+                    case "getContextPath": return "";
+                    case "getNamedDispatcher": return null;
+                    case "getRequestDispatcher": return NO_OP_DISPATCHER;
+                    case "getRealPath": return null;
+                    case "getMimeType": return null;
+                    // Vues et gabarits des benchmarks : ressources du classpath sous /webapp
+                    case "getResourceAsStream": return MockHttp.class.getResourceAsStream("/webapp" + args[0]);
+                    case "log": return null;
+                    default: throw new UnsupportedOperationException("ServletContext." + method.getName());
+                }
+            });
+        return (ServletConfig) Proxy.newProxyInstance(MockHttp.class.getClassLoader(),
+            new Class<?>[] { ServletConfig.class }, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "getServletContext": return context;
+                    case "getServletName": return "bench";
+                    case "getInitParameter": return initParams.get(args[0]);
+                    case "getInitParameterNames": return Collections.enumeration(initParams.keySet());
+                    default: throw new UnsupportedOperationException("ServletConfig." + method.getName());
+                }
+            });
+    }
+
+    // Vue : le forward ne fait rien, seul le coût du framework est mesuré
+    private static final RequestDispatcher NO_OP_DISPATCHER = new RequestDispatcher() {
+        @Override public void forward(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) { }
+        @Override public void include(jakarta.servlet.ServletRequest request, jakarta.servlet.ServletResponse response) { }
+    };
+
+    private static <T> T unsupported(Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(MockHttp.class.getClassLoader(), new Class<?>[] { type },
+            (proxy, method, args) -> {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }));
+    }
+
+    /** Requête réutilisable : {@link #reset()} vide les attributs entre deux appels. */
+    public static final class Request extends HttpServletRequestWrapper {
+        private final String method;
+        private final String uri;
+        private final Map<String, String[]> parameters;
+        private final Map<String, String> headers;
+        private final Map<String, Object> attributes = new HashMap<>();
+        private byte[] body = new byte[0];
+        private int bodyPos;
+
+        public Request(String method, String uri, Map<String, String[]> parameters, Map<String, String> headers) {
+            super(unsupported(HttpServletRequest.class));
+            this.method = method;
+            this.uri = uri;
+            this.parameters = parameters;
+            this.headers = headers;
+        }
+
+        public void reset() {
+            attributes.clear();
+            bodyPos = 0;
+        }
+
+        /** Corps de la requête, relu depuis le début après chaque {@link #reset()}. */
+        public void setBody(byte[] body) {
+            this.body = body;
+        }
+
+        @Override public long getContentLengthLong() { return body.length; }
+        @Override public int getContentLength() { return body.length; }
+
+        @Override
+        public jakarta.servlet.ServletInputStream getInputStream() {
+            return input;
+        }
+
+        private final jakarta.servlet.ServletInputStream input = new jakarta.servlet.ServletInputStream() {
+            @Override
+            public int read() {
+                return (bodyPos < body.length) ? body[bodyPos++] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (bodyPos >= body.length) return -1;
+                int n = Math.min(len, body.length - bodyPos);
+                System.arraycopy(body, bodyPos, b, off, n);
+                bodyPos += n;
+                return n;
+            }
+
+            @Override public boolean isFinished() { return bodyPos >= body.length; }
+            @Override public boolean isReady() { return true; }
+            @Override public void setReadListener(jakarta.servlet.ReadListener listener) { }
+        };
+
+        @Override public String getMethod() { return method; }
+        @Override public String getRequestURI() { return uri; }
+        @Override public String getContextPath() { return ""; }
+        @Override public String getServletPath() { return uri; }
+        @Override public String getPathInfo() { return null; }
+        @Override public String getQueryString() { return null; }
+        @Override public String getCharacterEncoding() { return "UTF-8"; }
+        @Override public String getContentType() { return headers.get("Content-Type"); }
+
+        @Override
+        public String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return (values == null || values.length == 0) ? null : values[0];
+        }
+
+        @Override public String[] getParameterValues(String name) { return parameters.get(name); }
+        @Override public Map<String, String[]> getParameterMap() { return parameters; }
+        @Override public Enumeration<String> getParameterNames() { return Collections.enumeration(parameters.keySet()); }
+
+        @Override public String getHeader(String name) { return headers.get(name); }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            String value = headers.get(name);
+            return (value == null) ? Collections.emptyEnumeration() : Collections.enumeration(Collections.singletonList(value));
+        }
+
+        @Override public Object getAttribute(String name) { return attributes.get(name); }
+        @Override public void setAttribute(String name, Object value) { attributes.put(name, value); }
+        @Override public void removeAttribute(String name) { attributes.remove(name); }
+        @Override public Enumeration<String> getAttributeNames() { return Collections.enumeration(attributes.keySet()); }
+
+        @Override public boolean isAsyncSupported() { return false; }
+        @Override public boolean isAsyncStarted() { return false; }
+
+        @Override
+        public RequestDispatcher getRequestDispatcher(String path) {
+            return NO_OP_DISPATCHER;
+        }
+    }
+
+    /**
+     * Réponse dont le corps est compté puis jeté ; {@link #reset()} avant chaque
+     * appel. Le writer est créé une fois, comme dans un conteneur qui recycle
+     * ses réponses : son tampon d'encodage ne compte pas dans -prof gc.
+     */
+    public static final class Response extends HttpServletResponseWrapper {
+        private final Map<String, String> headers = new HashMap<>();
+        private final CountingStream stream = new CountingStream();
+        private final PrintWriter writer = new PrintWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8)) {
+            @Override public void close() { flush(); } // fermé par le framework, réutilisé ensuite
+        };
+        private int status;
+        private String contentType;
+
+        public Response() {
+            super(unsupported(HttpServletResponse.class));
+            reset();
+        }
+
+        @Override
+        public void reset() {
+            headers.clear();
+            stream.count = 0;
+            status = SC_OK;
+            contentType = null;
+        }
+
+        /** Octets écrits depuis le dernier reset (le JIT ne peut pas éliminer l'écriture). */
+        public long getBytesWritten() {
+            writer.flush();
+            return stream.count;
+        }
+
+        @Override public int getStatus() { return status; }
+        @Override public void setStatus(int sc) { status = sc; }
+        @Override public void sendError(int sc) { status = sc; }
+        @Override public void sendError(int sc, String msg) { status = sc; }
+        @Override public void setContentType(String type) { contentType = type; }
+        @Override public String getContentType() { return contentType; }
+        @Override public String getCharacterEncoding() { return "UTF-8"; }
+        @Override public void setCharacterEncoding(String charset) { }
+        @Override public void setContentLength(int len) { }
+        @Override public void setContentLengthLong(long len) { }
+        @Override public void setHeader(String name, String value) { headers.put(name, value); }
+        @Override public void addHeader(String name, String value) { headers.put(name, value); }
+        @Override public void setIntHeader(String name, int value) { headers.put(name, String.valueOf(value)); }
+        @Override public void setDateHeader(String name, long date) { headers.put(name, String.valueOf(date)); }
+        @Override public String getHeader(String name) { return headers.get(name); }
+        @Override public boolean containsHeader(String name) { return headers.containsKey(name); }
+        @Override public boolean isCommitted() { return false; }
+        @Override public void flushBuffer() { }
+        @Override public void resetBuffer() { }
+        @Override public int getBufferSize() { return 8192; }
+
+        @Override public ServletOutputStream getOutputStream() { return stream; }
+
+        @Override public PrintWriter getWriter() { return writer; }
+    }
+
+    private static final class CountingStream extends ServletOutputStream {
+        long count;
+
+        @Override public void write(int b) { count++; }
+        @Override public void write(byte[] b, int off, int len) { count += len; }
+        @Override public boolean isReady() { return true; }
+        @Override public void setWriteListener(WriteListener listener) { }
+        @Override public void close() { }
+    }
+}
@@ -0,0 +1,78 @@
+package nofy.p17.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import nofy.p17.Router;
+import nofy.p17.UrlMatcher;
+
+/**
+ * Recherche de route selon la taille de la table : arbre de segments
+ * (Router) contre l'ancien parcours linéaire (UrlMatcher), conservé comme
+ * point de comparaison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int routes;
+
+    private Router<Object> router;
+    private UrlMatcher legacy;
+    private String staticPath;
+    private String paramPath;
+    private String missPath;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        router = new Router<>();
+        legacy = new UrlMatcher();
+        java.lang.reflect.Method handler = Object.class.getMethod("toString");
+        for (int i = 0; i < routes; i++) {
+            router.register("/static/r" + i, "GET", handler);
+            router.register("/api/r" + i + "/items/{id}", "GET", handler);
+            legacy.register("GET", "/static/r" + i, handler);
+            legacy.register("GET", "/api/r" + i + "/items/{id}", handler);
+        }
+        staticPath = "/static/r" + (routes - 1);
+        paramPath = "/api/r" + (routes / 2) + "/items/42";
+        missPath = "/nope/r0";
+    }
+
+    @Benchmark
+    public Object matchStatic() {
+        return router.match(staticPath).getHandler("GET");
+    }
+
+    @Benchmark
+    public Object matchParam() {
+        Router.RouteMatch<Object> match = router.match(paramPath);
+        return match.getParamValue(0);
+    }
+
+    @Benchmark
+    public Object matchMiss() {
+        return router.match(missPath);
+    }
+
+    @Benchmark
+    public Object legacyMatchParam() {
+        return legacy.getMatchingMethod(paramPath, "GET");
+    }
+}
@@ -0,0 +1,33 @@
+package nofy.p17.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import nofy.p17.FrontServlet;
+
+/**
+ * FrontServlet initialisé sur le seul BenchController, sans JMX ni
+ * compression : on mesure le framework, pas le zlib du JDK.
+ */
+final class Servlets {
+
+    private Servlets() {
+    }
+
+    static FrontServlet create() throws Exception {
+        return create(new HashMap<>());
+    }
+
+    /** Init-params du banc, complétés ou remplacés par extra. */
+    static FrontServlet create(Map<String, String> extra) throws Exception {
+        Map<String, String> initParams = new HashMap<>();
+        initParams.put(FrontServlet.BASE_PACKAGES_PARAM, "nofy.p17.bench");
+        initParams.put(FrontServlet.METRICS_JMX_PARAM, "false");
+        initParams.put(FrontServlet.COMPRESSION_PARAM, "false");
+        initParams.put(FrontServlet.BATCH_ENDPOINT_PARAM, "true");
+        initParams.putAll(extra);
+        FrontServlet servlet = new FrontServlet();
+        servlet.init(MockHttp.config(initParams));
+        return servlet;
+    }
+}
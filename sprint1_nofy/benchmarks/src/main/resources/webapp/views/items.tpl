@@ -0,0 +1,10 @@
+<!DOCTYPE html>
+<html>
+<head><title>{{title}}</title></head>
+<body>
+<h1>{{title}}</h1>
+<table>
+{{#each items}}  <tr><td>{{id}}</td><td>{{name}}</td><td>{{price}}</td><td>{{#if available}}en stock{{else}}épuisé{{/if}}</td></tr>
+{{/each}}</table>
+</body>
+</html>
@@ -0,0 +1,146 @@
+package nofy.p17;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Binding JSON vers POJO, record, tableaux, List, Set et Map, et refus des
+ * nombres hors grammaire JSON avant toute conversion.
+ */
+class JsonBindersTest {
+
+    public enum Kind { BOOK, PEN }
+
+    public static class Item {
+        public String name;
+        public int quantity = 7;
+        public Kind kind;
+        public List<String> tags;
+        private BigDecimal price;
+
+        public void setPrice(BigDecimal price) {
+            this.price = price.setScale(2);
+        }
+    }
+
+    public record Point(int x, int y, String label) {
+    }
+
+    public static class Order {
+        public long id;
+        public LocalDate date;
+        public List<Item> items;
+        public Map<String, Point> points;
+        public Order parent;
+    }
+
+    // Types génériques lus sur des champs plutôt que construits à la main
+    static class Types {
+        List<Point> points;
+        Map<String, List<Integer>> groups;
+        Set<Kind> kinds;
+        TreeMap<Integer, String> sorted;
+    }
+
+    private static Type type(String field) throws Exception {
+        return Types.class.getDeclaredField(field).getGenericType();
+    }
+
+    private static Object bind(Type type, String json) throws IOException {
+        JsonReader in = new JsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), -1);
+        Object value = JsonBinders.of(type).read(in);
+        in.endDocument();
+        return value;
+    }
+
+    @Test
+    void bindsPojo() throws Exception {
+        Item item = (Item) bind(Item.class,
+            "{\"name\":\"stylo\",\"kind\":\"PEN\",\"tags\":[\"a\",\"b\"],\"price\":1.5,\"unknown\":{\"x\":[1]}}");
+        assertEquals("stylo", item.name);
+        assertEquals(7, item.quantity); // absent : valeur par défaut gardée
+        assertEquals(Kind.PEN, item.kind);
+        assertEquals(List.of("a", "b"), item.tags);
+        assertEquals(new BigDecimal("1.50"), item.price); // setter préféré au champ
+
+        Item nulls = (Item) bind(Item.class, "{\"quantity\":null,\"name\":null}");
+        assertEquals(7, nulls.quantity);
+        assertNull(nulls.name);
+        assertNull(bind(Item.class, "null"));
+    }
+
+    @Test
+    void bindsRecord() throws Exception {
+        assertEquals(new Point(1, -2, "été"), bind(Point.class, "{\"label\":\"été\",\"y\":-2,\"x\":1}"));
+        assertEquals(new Point(0, 3, null), bind(Point.class, "{\"y\":3}"));
+    }
+
+    @Test
+    void bindsNestedGraph() throws Exception {
+        Order order = (Order) bind(Order.class,
+            "{\"id\":42,\"date\":\"2024-02-29\",\"items\":[{\"name\":\"a\"},{\"name\":\"b\",\"quantity\":2}],"
+            + "\"points\":{\"o\":{\"x\":0,\"y\":0}},\"parent\":{\"id\":1}}");
+        assertEquals(42L, order.id);
+        assertEquals(LocalDate.of(2024, 2, 29), order.date);
+        assertEquals(2, order.items.size());
+        assertEquals(2, order.items.get(1).quantity);
+        assertEquals(Map.of("o", new Point(0, 0, null)), order.points);
+        assertEquals(1L, order.parent.id);
+    }
+
+    @Test
+    void bindsCollectionsAndMaps() throws Exception {
+        assertEquals(List.of(new Point(1, 2, "a")), bind(type("points"), "[{\"x\":1,\"y\":2,\"label\":\"a\"}]"));
+        assertEquals(Map.of("odd", List.of(1, 3), "even", List.of()),
+                     bind(type("groups"), "{\"odd\":[1,3],\"even\":[]}"));
+        assertEquals(Set.of(Kind.BOOK, Kind.PEN), bind(type("kinds"), "[\"PEN\",\"BOOK\",\"PEN\"]"));
+        Object sorted = bind(type("sorted"), "{\"2\":\"b\",\"1\":\"a\"}");
+        assertEquals(TreeMap.class, sorted.getClass());
+        assertEquals(Map.of(1, "a", 2, "b"), sorted);
+        assertArrayEquals(new int[] { 1, 0, 3 }, (int[]) bind(int[].class, "[1,null,3]"));
+        assertArrayEquals(new String[] { "x", "1" }, (String[]) bind(String[].class, "[\"x\",1]"));
+        assertEquals(Map.of("a", List.of(1L, "b")), bind(Object.class, "{\"a\":[1,\"b\"]}"));
+    }
+
+    @Test
+    void rejectsNumbersOutsideJsonGrammar() {
+        assertThrows(JsonReader.MalformedJsonException.class, () -> bind(double.class, "-Infinity"));
+        assertThrows(JsonReader.MalformedJsonException.class, () -> bind(Double.class, "1.5f"));
+        assertThrows(JsonReader.MalformedJsonException.class, () -> bind(Item.class, "{\"quantity\":01}"));
+        // Écrits entre guillemets, ils restent refusés pour un type numérique
+        assertThrows(IllegalArgumentException.class, () -> bind(double.class, "\"NaN\""));
+        assertThrows(IllegalArgumentException.class, () -> bind(Point.class, "{\"x\":\"1.5f\"}"));
+        assertThrows(IllegalArgumentException.class, () -> bind(int.class, "\" 1\""));
+    }
+
+    @Test
+    void convertsQuotedAndRangedNumbers() throws Exception {
+        assertEquals(12, bind(int.class, "\"12\""));
+        assertEquals(1.5e-3, bind(double.class, "1.5e-3"));
+        assertEquals(new BigDecimal("12345678901234567890.5"), bind(BigDecimal.class, "12345678901234567890.5"));
+        assertThrows(IllegalArgumentException.class, () -> bind(int.class, "3000000000"));
+        assertThrows(IllegalArgumentException.class, () -> bind(int.class, "1.5"));
+    }
+
+    @Test
+    void rejectsWrongShapes() {
+        assertThrows(JsonReader.MalformedJsonException.class, () -> bind(Item.class, "[1]"));
+        assertThrows(JsonReader.MalformedJsonException.class, () -> bind(int[].class, "{\"a\":1}"));
+        assertThrows(IllegalArgumentException.class, () -> bind(Kind.class, "\"PENCIL\""));
+    }
+}
@@ -0,0 +1,110 @@
+package nofy.p17;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Lecture en flux : grammaire JSON (nombres compris), échappements et UTF-8,
+ * bornes de taille et de profondeur.
+ */
+class JsonReaderTest {
+
+    private static JsonReader reader(String json, long maxBytes) {
+        return new JsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), maxBytes);
+    }
+
+    private static Object read(String json) throws IOException {
+        JsonReader in = reader(json, -1);
+        Object value = in.readValue();
+        in.endDocument();
+        return value;
+    }
+
+    @Test
+    void readsDocument() throws Exception {
+        Object value = read("{\"a\":[1,-2.5,1e3,true,null],\"b\":{\"c\":\"d\"},\"e\":[]}");
+        assertEquals(Map.of("a", java.util.Arrays.asList(1L, -2.5, 1000.0, true, null),
+                            "b", Map.of("c", "d"), "e", List.of()), value);
+    }
+
+    @Test
+    void numberGrammar() {
+        for (String valid : new String[] { "0", "-0", "7", "-12", "0.5", "1.25e10", "1E+2", "-3e-4" }) {
+            assertTrue(JsonReader.isNumber(valid), valid);
+        }
+        for (String invalid : new String[] { "", "-", "01", "-01", "1.", ".5", "+1", "1e", "1e+", "1.5f", "0x10",
+                                             "Infinity", "-Infinity", "NaN", "1_000", "1.2.3" }) {
+            assertFalse(JsonReader.isNumber(invalid), invalid);
+        }
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        for (String json : new String[] { "-Infinity", "[1.5f]", "[01]", "{\"a\":1.}", "[-]", "{\"a\" 1}",
+                                          "{\"a\":1,}", "[1 2]", "[1,]", "[", "{\"a\"", "\"abc", "tru", "nul",
+                                          "[\"a\u0001\"]", "[\"\\x\"]", "[1]]", "{a:1}", "" }) {
+            assertThrows(JsonReader.MalformedJsonException.class, () -> read(json), json);
+        }
+    }
+
+    @Test
+    void decodesEscapesAndSurrogates() throws Exception {
+        assertEquals("a\"b\\c/d\b\f\n\r\t", read("\"a\\\"b\\\\c\\/d\\b\\f\\n\\r\\t\""));
+        assertEquals("é€", read("\"\\u00e9\\u20AC\""));
+        assertEquals("\uD83D\uDE00", read("\"\\uD83D\\uDE00\""));   // paire échappée
+        assertEquals("été \uD83D\uDE00", read("\"été \uD83D\uDE00\"")); // UTF-8 sur 2 et 4 octets
+        assertThrows(JsonReader.MalformedJsonException.class, () -> read("\"\\u12\""));
+        assertThrows(JsonReader.MalformedJsonException.class,
+                     () -> reader("", -1).readValue()); // document vide
+    }
+
+    @Test
+    void rejectsInvalidUtf8() {
+        byte[] json = { '"', (byte) 0xC3, '(', '"' };
+        assertThrows(JsonReader.MalformedJsonException.class,
+                     () -> new JsonReader(new ByteArrayInputStream(json), -1).readValue());
+    }
+
+    @Test
+    void limitsSize() throws Exception {
+        String json = "[\"" + "x".repeat(100) + "\"]";
+        assertThrows(JsonReader.TooLargeException.class, () -> reader(json, 50).readValue());
+        assertEquals(List.of("x".repeat(100)), reader(json, json.length()).readValue());
+    }
+
+    @Test
+    void limitsDepth() throws Exception {
+        assertThrows(JsonReader.MalformedJsonException.class,
+                     () -> read("[".repeat(257) + "]".repeat(257)));
+        Object nested = read("[".repeat(256) + "]".repeat(256));
+        for (int i = 0; i < 255; i++) nested = ((List<?>) nested).get(0);
+        assertEquals(List.of(), nested);
+    }
+
+    @Test
+    void skipsAndRejectsTrailingContent() throws Exception {
+        JsonReader in = reader("{\"skip\":{\"x\":[1,{\"y\":\"z\"}]},\"keep\":null} ", -1);
+        assertTrue(in.beginObject());
+        in.readName();
+        in.skipValue();
+        assertTrue(in.nextMember());
+        in.readName();
+        assertEquals("keep", in.name());
+        assertNull(in.readValue());
+        assertFalse(in.nextMember());
+        in.endDocument();
+
+        assertThrows(JsonReader.MalformedJsonException.class, () -> read("{} {}"));
+    }
+}
@@ -0,0 +1,74 @@
+package nofy.p17;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import nofy.p17.dispatch.DispatchController;
+
+/**
+ * Index des contrôleurs : filtré par packages de base, et seuls les packages
+ * qu'il déclare échappent au scan.
+ */
+class MyScannerTest {
+
+    @TempDir
+    Path classpath;
+
+    private MyScanner scannerWithIndex(String... lines) throws Exception {
+        Path index = classpath.resolve(MyScanner.INDEX_RESOURCE);
+        Files.createDirectories(index.getParent());
+        Files.write(index, Arrays.asList(lines));
+        ClassLoader loader = new URLClassLoader(new URL[] { classpath.toUri().toURL() }, getClass().getClassLoader());
+        return new MyScanner(loader);
+    }
+
+    @Test
+    void indexCoversDeclaredPackages() throws Exception {
+        MyScanner scanner = scannerWithIndex("#package nofy.p17.dispatch", DispatchController.class.getName());
+        Set<String> covered = scanner.scanControllersFromIndex(List.of("nofy.p17.dispatch"));
+
+        assertEquals(Set.of("nofy.p17.dispatch"), covered);
+        assertEquals(List.of(DispatchController.class), scanner.getControllers());
+    }
+
+    @Test
+    void entriesOutsideBasePackagesAreIgnored() throws Exception {
+        MyScanner scanner = scannerWithIndex("#package nofy.p17.dispatch", DispatchController.class.getName());
+        Set<String> covered = scanner.scanControllersFromIndex(List.of("com.example"));
+
+        assertTrue(covered.isEmpty());
+        assertTrue(scanner.getControllers().isEmpty());
+    }
+
+    @Test
+    void indexWithoutPackageHeaderCoversNothing() throws Exception {
+        MyScanner scanner = scannerWithIndex(DispatchController.class.getName());
+        Set<String> covered = scanner.scanControllersFromIndex(List.of("nofy.p17.dispatch"));
+
+        assertTrue(covered.isEmpty()); // le package sera scanné
+        assertEquals(List.of(DispatchController.class), scanner.getControllers());
+
+        scanner.scanControllersFromPackages(Collections.singletonList("nofy.p17.dispatch"));
+        assertEquals(List.of(DispatchController.class), scanner.getControllers()); // pas de doublon
+    }
+
+    @Test
+    void subPackageIsCoveredByParentDeclaration() throws Exception {
+        MyScanner scanner = scannerWithIndex("#package nofy.p17");
+        Set<String> covered = scanner.scanControllersFromIndex(List.of("nofy.p17.dispatch", "nofy.other"));
+
+        assertEquals(Set.of("nofy.p17.dispatch"), covered);
+    }
+}
@@ -0,0 +1,105 @@
+package nofy.p17;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Recherche dans l'arbre des routes : segments statiques, {param}, priorité
+ * du statique avec retour arrière, barres obliques répétées et échecs.
+ */
+class RouterTest {
+
+    private Router<String> router;
+
+    @BeforeEach
+    void init() {
+        router = new Router<>();
+        router.register("/", "GET", "root");
+        router.register("/users", "GET", "list");
+        router.register("/users", "POST", "create");
+        router.register("/users/me", "GET", "me");
+        router.register("/users/{id}", "GET", "user");
+        router.register("/users/{id}/posts/{post}", "GET", "post");
+        router.register("/files/static/readme", "GET", "readme");
+        router.register("/files/{dir}/{name}", "GET", "file");
+    }
+
+    private String handler(String path, String httpMethod) {
+        Router.RouteMatch<String> match = router.match(path);
+        return (match != null) ? match.getHandler(httpMethod) : null;
+    }
+
+    @Test
+    void matchesStaticPaths() {
+        assertEquals("root", handler("/", "GET"));
+        assertEquals("list", handler("/users", "GET"));
+        assertEquals("create", handler("/users", "POST"));
+        assertEquals("readme", handler("/files/static/readme", "GET"));
+        assertNull(handler("/users", "DELETE")); // chemin connu, verbe absent
+    }
+
+    @Test
+    void extractsParameters() {
+        Router.RouteMatch<String> match = router.match("/users/42/posts/hello-world");
+        assertEquals("post", match.getHandler("GET"));
+        assertEquals(Map.of("id", "42", "post", "hello-world"), match.getParams("GET"));
+        assertEquals("42", match.getParamValue(0));
+        assertEquals("/users/42/posts/hello-world".indexOf("hello"), match.getParamStart(1));
+        assertEquals(List.of("id", "post"), Router.parameterNames("/users/{id}/posts/{post}"));
+    }
+
+    @Test
+    void prefersStaticSegments() {
+        assertEquals("me", handler("/users/me", "GET"));
+        assertEquals("user", handler("/users/mee", "GET"));
+        assertEquals(Map.of("id", "m"), router.match("/users/m").getParams("GET"));
+    }
+
+    @Test
+    void backtracksToParameterWhenStaticBranchFails() {
+        // "static" existe comme segment statique, mais /files/static/other n'y aboutit pas
+        Router.RouteMatch<String> match = router.match("/files/static/other");
+        assertEquals("file", match.getHandler("GET"));
+        assertEquals(Map.of("dir", "static", "name", "other"), match.getParams("GET"));
+        // Branche statique trop courte : même retour au {param}
+        assertEquals(Map.of("id", "me", "post", "1"), router.match("/users/me/posts/1").getParams("GET"));
+    }
+
+    @Test
+    void ignoresRepeatedSlashes() {
+        assertEquals("list", handler("//users", "GET"));
+        assertEquals("list", handler("/users/", "GET"));
+        assertEquals("me", handler("/users//me", "GET"));
+        Router.RouteMatch<String> match = router.match("/users///7//posts/x/");
+        assertEquals(Map.of("id", "7", "post", "x"), match.getParams("GET"));
+    }
+
+    @Test
+    void missesUnknownPaths() {
+        assertNull(router.match("/nope"));
+        assertNull(router.match("/users/1/posts"));            // route intermédiaire sans handler
+        assertNull(router.match("/users/1/posts/2/extra"));
+        assertNull(router.match("/files/only"));
+        assertNull(new Router<String>().match("/"));
+    }
+
+    @Test
+    void reusesMatchResult() {
+        Router.RouteMatch<String> match = new Router.RouteMatch<>();
+        assertTrue(router.match("/users/1/posts/2", match));
+        Router.RouteMatch<String> copy = match.copy();
+        assertTrue(router.match("/users/9", match));
+        assertEquals(Map.of("id", "9"), match.getParams("GET"));
+        assertEquals(Map.of("id", "1", "post", "2"), copy.getParams("GET")); // copie indépendante
+        assertFalse(router.match("/nope", match));
+        assertNull(match.getPath());
+    }
+}
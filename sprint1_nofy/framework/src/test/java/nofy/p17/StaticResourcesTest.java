@@ -0,0 +1,86 @@
+package nofy.p17;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import jakarta.servlet.ServletContext;
+
+/**
+ * Fichiers de la webapp : WEB-INF, META-INF, JSP et gabarits ne sont jamais
+ * servis, quelle que soit l'écriture du chemin.
+ */
+class StaticResourcesTest {
+
+    @TempDir
+    Path webapp;
+
+    private StaticResources resources;
+
+    @BeforeEach
+    void init() throws Exception {
+        Files.createDirectories(webapp.resolve("WEB-INF/classes"));
+        Files.createDirectories(webapp.resolve("META-INF"));
+        Files.createDirectories(webapp.resolve("css"));
+        Files.writeString(webapp.resolve("WEB-INF/web.xml"), "<web-app/>");
+        Files.writeString(webapp.resolve("WEB-INF/classes/App.class"), "secret");
+        Files.writeString(webapp.resolve("META-INF/context.xml"), "<Context/>");
+        Files.writeString(webapp.resolve("css/app.css"), "body{}");
+        Files.writeString(webapp.resolve("page.tpl"), "{{x}}");
+
+        // Comme Tomcat : getRealPath ramène les "//" à "/"
+        ServletContext context = TestHttp.proxy(ServletContext.class, (method, args) -> {
+            if (method.equals("getRealPath")) {
+                String path = ((String) args[0]).replaceAll("/+", "/");
+                return webapp.resolve(path.substring(1)).toString();
+            }
+            return null;
+        });
+        resources = new StaticResources(context, "/", 64 * 1024, 1024 * 1024, 0, -1, ".tpl");
+    }
+
+    private StaticResources.Result get(String path) throws Exception {
+        TestHttp.Response response = new TestHttp.Response();
+        return resources.serve(TestHttp.request("GET", path, Collections.emptyMap()), response.response, path);
+    }
+
+    @Test
+    void servesOrdinaryFile() throws Exception {
+        TestHttp.Response response = new TestHttp.Response();
+        StaticResources.Result result = resources.serve(TestHttp.request("GET", "/css/app.css", Collections.emptyMap()),
+                                                        response.response, "/css/app.css");
+        assertEquals(StaticResources.Result.SERVED, result);
+        assertEquals("body{}", response.text());
+    }
+
+    @Test
+    void refusesProtectedPaths() throws Exception {
+        String[] paths = {
+            "/WEB-INF/web.xml", "/web-inf/web.xml", "/META-INF/context.xml",
+            "//WEB-INF/web.xml", "///WEB-INF/web.xml", "//WEB-INF/classes/App.class",
+            "/%2FWEB-INF/web.xml", "/%2fWEB-INF/web.xml", "/css//../WEB-INF/web.xml",
+            "/css/%2e%2e/WEB-INF/web.xml", "/WEB-INF%2Fweb.xml", "//META-INF/context.xml",
+            "/page.tpl", "/PAGE.TPL"
+        };
+        for (String path : paths) {
+            assertEquals(StaticResources.Result.NOT_FOUND, get(path), path);
+        }
+    }
+
+    @Test
+    void decodeRejectsEmptySegments() {
+        assertEquals("/css/app.css", StaticResources.decode("/css/app.css"));
+        assertEquals("/css/", StaticResources.decode("/css/"));
+        assertNull(StaticResources.decode("//WEB-INF/web.xml"));
+        assertNull(StaticResources.decode("/css//app.css"));
+        assertNull(StaticResources.decode("/%2F%2Fx"));
+        assertNull(StaticResources.decode("/a/%2e%2e/b"));
+    }
+}
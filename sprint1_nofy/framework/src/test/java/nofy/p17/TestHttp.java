@@ -0,0 +1,98 @@
+package nofy.p17;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Requêtes et réponses en mémoire pour les tests : proxys dont les méthodes
+ * non prévues rendent la valeur par défaut du type (false, 0, null).
+ */
+final class TestHttp {
+
+    private TestHttp() {
+    }
+
+    interface Handler {
+        Object call(String method, Object[] args);
+    }
+
+    static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Object value = handler.call(method.getName(), args);
+            if (value != null || !method.getReturnType().isPrimitive()) return value;
+            Class<?> returned = method.getReturnType();
+            if (returned == boolean.class) return false;
+            if (returned == void.class) return null;
+            if (returned == long.class) return method.getName().equals("getDateHeader") ? -1L : 0L;
+            return method.getName().equals("getIntHeader") ? -1 : 0;
+        }));
+    }
+
+    static HttpServletRequest request(String httpMethod, String uri, Map<String, String> headers) {
+        Map<String, Object> attributes = new HashMap<>();
+        return proxy(HttpServletRequest.class, (method, args) -> {
+            switch (method) {
+                case "getMethod": return httpMethod;
+                case "getRequestURI": case "getServletPath": return uri;
+                case "getContextPath": return "";
+                case "getHeader": return headers.get(args[0]);
+                case "getContentType": return headers.get("Content-Type");
+                case "getHeaderNames": return Collections.enumeration(headers.keySet());
+                case "getAttribute": return attributes.get(args[0]);
+                case "setAttribute": attributes.put((String) args[0], args[1]); return null;
+                case "removeAttribute": attributes.remove(args[0]); return null;
+                case "getParameterMap": return Collections.emptyMap();
+                case "getParameterNames": case "getHeaders": case "getAttributeNames": return Collections.emptyEnumeration();
+                default: return null;
+            }
+        });
+    }
+
+    /** Réponse capturée : statut, en-têtes et corps. */
+    static final class Response {
+        int status = HttpServletResponse.SC_OK;
+        final Map<String, String> headers = new HashMap<>();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final HttpServletResponse response;
+
+        Response() {
+            ServletOutputStream stream = new ServletOutputStream() {
+                @Override public void write(int b) { body.write(b); }
+                @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); }
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener listener) { }
+            };
+            PrintWriter writer = new PrintWriter(stream, true, StandardCharsets.UTF_8);
+            response = proxy(HttpServletResponse.class, (method, args) -> {
+                switch (method) {
+                    case "getOutputStream": return stream;
+                    case "getWriter": return writer;
+                    case "getStatus": return status;
+                    case "setStatus": case "sendError": status = (Integer) args[0]; return null;
+                    case "setHeader": case "addHeader": headers.put((String) args[0], String.valueOf(args[1])); return null;
+                    case "setDateHeader": case "setIntHeader": headers.put((String) args[0], String.valueOf(args[1])); return null;
+                    case "getHeader": return headers.get(args[0]);
+                    case "containsHeader": return headers.containsKey(args[0]);
+                    case "setContentType": headers.put("Content-Type", (String) args[0]); return null;
+                    case "getContentType": return headers.get("Content-Type");
+                    case "getCharacterEncoding": return "UTF-8";
+                    default: return null;
+                }
+            });
+        }
+
+        String text() {
+            return body.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package nofy.p17.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import nofy.p17.Controller;
+import nofy.p17.GetMapping;
+
+/** Contrôleur du test de dispatch : compte ses appels. */
+@Controller("/dispatch")
+public class DispatchController {
+
+    static final AtomicLong CALLS = new AtomicLong();
+
+    @GetMapping("/{id}")
+    public String get(int id) {
+        CALLS.incrementAndGet();
+        return "ok";
+    }
+}
@@ -0,0 +1,168 @@
+package nofy.p17.dispatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import jakarta.servlet.ServletConfig;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import nofy.p17.FrontServlet;
+import nofy.p17.HandlerInvoker;
+import nofy.p17.RouteTable;
+
+/**
+ * Requêtes concurrentes sur le FrontServlet : chaque requête appelle son
+ * contrôleur une seule fois, quel que soit le nombre de threads.
+ */
+class FrontServletDispatchTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS = 2000;
+
+    private FrontServlet servlet;
+
+    @BeforeEach
+    void init() throws Exception {
+        Map<String, String> initParams = new HashMap<>();
+        initParams.put(FrontServlet.BASE_PACKAGES_PARAM, "nofy.p17.dispatch");
+        initParams.put(FrontServlet.METRICS_JMX_PARAM, "false");
+        initParams.put(FrontServlet.COMPRESSION_PARAM, "false");
+        servlet = new FrontServlet();
+        servlet.init(config(initParams));
+        DispatchController.CALLS.set(0);
+    }
+
+    @AfterEach
+    void destroy() {
+        servlet.destroy();
+    }
+
+    @Test
+    void eachRequestIsDispatchedOnce() throws Exception {
+        RouteTable table = servlet.reload();
+        HandlerInvoker invoker = table.match("/dispatch/1").getHandler("GET");
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object[]>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                String uri = "/dispatch/" + i;
+                results.add(pool.submit(() -> {
+                    start.await();
+                    Map<String, Object> attributes = new ConcurrentHashMap<>();
+                    int[] status = { HttpServletResponse.SC_OK };
+                    StringWriter body = new StringWriter();
+                    servlet.service(request(uri, attributes), response(status, body));
+                    return new Object[] { status[0], attributes.get(FrontServlet.DISPATCH_COUNT_ATTRIBUTE), body.toString() };
+                }));
+            }
+            start.countDown();
+            for (Future<Object[]> result : results) {
+                Object[] r = result.get(30, TimeUnit.SECONDS);
+                assertEquals(HttpServletResponse.SC_OK, r[0]);
+                assertEquals(1, r[1]);
+                assertEquals("ok", ((String) r[2]).trim());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(REQUESTS, invoker.getDispatchCount());
+        assertEquals(REQUESTS, DispatchController.CALLS.get());
+    }
+
+    // Requête GET minimale : attributs réels, valeurs neutres pour le reste
+    private static HttpServletRequest request(String uri, Map<String, Object> attributes) {
+        return proxy(HttpServletRequest.class, (method, args) -> {
+            switch (method) {
+                case "getMethod": return "GET";
+                case "getRequestURI": case "getServletPath": return uri;
+                case "getContextPath": return "";
+                case "getCharacterEncoding": return "UTF-8";
+                case "getContentLengthLong": return -1L;
+                case "getContentLength": return -1;
+                case "getAttribute": return attributes.get(args[0]);
+                case "setAttribute":
+                    if (args[1] == null) attributes.remove(args[0]); else attributes.put((String) args[0], args[1]);
+                    return null;
+                case "removeAttribute": attributes.remove(args[0]); return null;
+                case "getAttributeNames": return Collections.enumeration(attributes.keySet());
+                case "getParameterMap": return Collections.emptyMap();
+                case "getParameterNames": case "getHeaders": case "getHeaderNames": return Collections.emptyEnumeration();
+                default: return null;
+            }
+        });
+    }
+
+    private static HttpServletResponse response(int[] status, StringWriter body) {
+        PrintWriter writer = new PrintWriter(body);
+        return proxy(HttpServletResponse.class, (method, args) -> {
+            switch (method) {
+                case "getWriter": return writer;
+                case "getStatus": return status[0];
+                case "setStatus": case "sendError": status[0] = (Integer) args[0]; return null;
+                case "getCharacterEncoding": return "UTF-8";
+                default: return null;
+            }
+        });
+    }
+
+    private static ServletConfig config(Map<String, String> initParams) {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        ServletContext context = proxy(ServletContext.class, (method, args) -> {
+            switch (method) {
+                case "getAttribute": return attributes.get(args[0]);
+                case "setAttribute": attributes.put((String) args[0], args[1]); return null;
+                case "getContextPath": return "";
+                case "getInitParameterNames": return Collections.emptyEnumeration();
+                default: return null;
+            }
+        });
+        return proxy(ServletConfig.class, (method, args) -> {
+            switch (method) {
+                case "getServletContext": return context;
+                case "getServletName": return "dispatch";
+                case "getInitParameter": return initParams.get(args[0]);
+                case "getInitParameterNames": return Collections.enumeration(initParams.keySet());
+                default: return null;
+            }
+        });
+    }
+
+    private interface Handler {
+        Object call(String method, Object[] args);
+    }
+
+    // Proxy dont les méthodes non prévues rendent la valeur par défaut du type (false, 0, null)
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            Object value = handler.call(method.getName(), args);
+            if (value != null || !method.getReturnType().isPrimitive()) return value;
+            Class<?> returned = method.getReturnType();
+            if (returned == boolean.class) return false;
+            if (returned == void.class) return null;
+            if (returned == long.class) return 0L;
+            return 0;
+        }));
+    }
+}
@@ -0,0 +1,140 @@
+package nofy.p17;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Requête dont la réponse est produite hors du thread qui l'a reçue (servlet
+ * asynchrone, CompletionStage, Flow.Publisher). Garantit un seul rendu
+ * (contrôleur ou délai dépassé, le premier gagne) et une seule terminaison.
+ * Sans AsyncContext (conteneur non asynchrone), l'appelant attend la fin via
+ * {@link #await(long)}.
+ */
+public class AsyncExchange {
+
+    private static final String ATTRIBUTE = "nofy.p17.asyncExchange";
+
+    private static final int RUNNING = 0;
+    private static final int RENDERING = 1;
+    private static final int TIMED_OUT = 2;
+    private static final int STREAMING = 3;
+
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final AsyncContext context; // null : mode bloquant
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private final List<Runnable> completionCallbacks = new ArrayList<>();
+    private volatile boolean dispatched;
+
+    private AsyncExchange(HttpServletRequest request, HttpServletResponse response, AsyncContext context) {
+        this.request = request;
+        this.response = response;
+        this.context = context;
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    /**
+     * Démarre le mode asynchrone si le conteneur le permet (délai en ms, 0 : aucun),
+     * sinon retourne un échange bloquant.
+     */
+    public static AsyncExchange start(HttpServletRequest req, HttpServletResponse res, long timeoutMillis) {
+        AsyncExchange existing = of(req);
+        if (existing != null) return existing;
+        if (!req.isAsyncSupported()) return new AsyncExchange(req, res, null);
+        AsyncContext context = req.startAsync(req, res);
+        context.setTimeout(timeoutMillis);
+        return new AsyncExchange(req, res, context);
+    }
+
+    /** Échange en cours pour cette requête, ou null. */
+    public static AsyncExchange of(HttpServletRequest req) {
+        return (AsyncExchange) req.getAttribute(ATTRIBUTE);
+    }
+
+    public HttpServletRequest getRequest() {
+        return request;
+    }
+
+    public HttpServletResponse getResponse() {
+        return response;
+    }
+
+    /** AsyncContext du conteneur, ou null en mode bloquant. */
+    public AsyncContext getContext() {
+        return context;
+    }
+
+    /** Réserve le droit d'écrire la réponse ; false si le délai a déjà été traité. */
+    public boolean beginRendering() {
+        return state.compareAndSet(RUNNING, RENDERING);
+    }
+
+    /**
+     * Comme beginRendering, pour un flux (SSE, Publisher) : au délai dépassé,
+     * l'échange est terminé et le flux s'arrête au prochain élément.
+     */
+    public boolean beginStreaming() {
+        return state.compareAndSet(RUNNING, STREAMING);
+    }
+
+    public boolean isStreaming() {
+        return state.get() == STREAMING;
+    }
+
+    /** Réserve la réponse pour le message de délai dépassé ; false si le rendu a commencé. */
+    public boolean beginTimeout() {
+        return state.compareAndSet(RUNNING, TIMED_OUT);
+    }
+
+    /** Rendu d'une vue via AsyncContext.dispatch : le conteneur terminera la requête. */
+    public void dispatch(String path) {
+        dispatched = true;
+        context.dispatch(path);
+    }
+
+    /** Action à exécuter une fois l'échange terminé (libération de permis...). */
+    public synchronized void onComplete(Runnable callback) {
+        if (completed.get()) callback.run();
+        else completionCallbacks.add(callback);
+    }
+
+    /** Termine l'échange (une seule fois) ; les actions de fin passent avant la libération de la réponse. */
+    public void complete() {
+        if (!completed.compareAndSet(false, true)) return;
+        try {
+            List<Runnable> callbacks;
+            synchronized (this) {
+                callbacks = new ArrayList<>(completionCallbacks);
+            }
+            for (Runnable callback : callbacks) callback.run();
+        } finally {
+            try {
+                if (context != null && !dispatched) context.complete();
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    public boolean isCompleted() {
+        return completed.get();
+    }
+
+    /** Mode bloquant : attend la fin du rendu (0 : sans limite) ; false si le délai est dépassé. */
+    public boolean await(long timeoutMillis) throws InterruptedException {
+        if (timeoutMillis <= 0) {
+            done.await();
+            return true;
+        }
+        return done.await(timeoutMillis, java.util.concurrent.TimeUnit.MILLISECONDS);
+    }
+}
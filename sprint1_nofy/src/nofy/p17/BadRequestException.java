@@ -0,0 +1,19 @@
+package nofy.p17;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Requête mal formée (corps JSON invalide, absent...) : répondu en 400.
+ */
+public class BadRequestException extends ServletException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+
+    public BadRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,598 @@
+package nofy.p17;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URLDecoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiPredicate;
+import java.util.function.Supplier;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Lot d'appels de routes en un seul aller-retour : le corps est un tableau
+ * JSON de {"method", "path", "params", "body", "timeout"}, chaque appel passe
+ * par la table des routes (admission, métriques, cache compris) sur
+ * l'exécuteur asynchrone, en parallèle. La réponse est un tableau, dans
+ * l'ordre de la requête, de {"status", "headers", "body"} ; un corps JSON
+ * (@MyJson...) est recopié tel quel. Un appel qui dépasse son délai donne
+ * un 504 sans retenir les autres.
+ *
+ * Les appels voient la session (créée avant leur départ, seulement si une
+ * route appelée a un paramètre @Session), une copie des en-têtes, cookies et langues de la requête du lot, mais ni ses
+ * attributs ni ses en-têtes conditionnels ou de compression ; les cookies
+ * qu'ils posent sont ignorés. Les objets du conteneur, recyclés pour le
+ * client suivant, leur sont refusés une fois le lot terminé (appel en
+ * retard après son délai).
+ */
+final class BatchHandler {
+
+    /** Appel d'une route pour un sous-appel (chemin relatif au contexte). */
+    interface Dispatcher {
+        void serve(HttpServletRequest req, HttpServletResponse res, String path) throws Exception;
+    }
+
+    /** Sous-appel tel que décrit dans le corps du lot. */
+    record Call(String method, String path, Map<String, Object> params, Object body, Long timeout) {
+    }
+
+    private static final JsonBinders.JsonBinder CALL_BINDER = JsonBinders.of(Call.class);
+
+    private final Dispatcher dispatcher;
+    private final BiPredicate<String, String> usesSession; // (verbe, chemin) : la route reçoit la session
+    private final Supplier<ExecutorService> executor;
+    private final String batchPath;
+    private final int maxCalls;
+    private final long timeoutMillis;
+    private final long maxBodySize; // -1 : illimitée
+
+    BatchHandler(Dispatcher dispatcher, BiPredicate<String, String> usesSession, Supplier<ExecutorService> executor,
+                 String batchPath, int maxCalls, long timeoutMillis, long maxBodySize) {
+        this.dispatcher = dispatcher;
+        this.usesSession = usesSession;
+        this.executor = executor;
+        this.batchPath = batchPath;
+        this.maxCalls = maxCalls;
+        this.timeoutMillis = timeoutMillis;
+        this.maxBodySize = maxBodySize;
+    }
+
+    void handle(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        if (!"POST".equalsIgnoreCase(req.getMethod())) {
+            res.setHeader("Allow", "POST");
+            res.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        List<Call> calls;
+        try {
+            calls = readCalls(req);
+        } catch (JsonReader.TooLargeException e) {
+            res.sendError(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, e.getMessage());
+            return;
+        } catch (JsonReader.MalformedJsonException | IllegalArgumentException e) {
+            res.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        // Session et en-têtes figés sur le thread du conteneur, avant le départ des appels
+        Origin origin = new Origin(req, res, needsSession(calls));
+        byte[] buffer = RequestContext.borrowBuffer();
+        try {
+            // Tous les appels partent avant la première attente
+            long start = System.nanoTime();
+            List<Future<CallResponse>> futures = new ArrayList<>(calls.size());
+            long[] deadlines = new long[calls.size()];
+            for (int i = 0; i < calls.size(); i++) {
+                Call call = calls.get(i);
+                long timeout = (call.timeout() != null && call.timeout() > 0) ? Math.min(call.timeout(), timeoutMillis) : timeoutMillis;
+                deadlines[i] = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+                futures.add(submit(origin, call));
+            }
+
+            res.setStatus(HttpServletResponse.SC_OK);
+            res.setContentType("application/json;charset=UTF-8");
+            JsonWriter out = new JsonWriter(res.getOutputStream(), buffer);
+            out.writeByte('[');
+            for (int i = 0; i < futures.size(); i++) {
+                if (i > 0) out.writeByte(',');
+                writeResult(out, await(futures.get(i), deadlines[i], origin.response));
+                out.flush(); // chaque enveloppe part dès qu'elle est prête
+            }
+            out.writeByte(']');
+            out.flush();
+        } finally {
+            origin.finished.set(true);
+            RequestContext.release(buffer);
+        }
+    }
+
+    private List<Call> readCalls(HttpServletRequest req) throws IOException {
+        long declared = req.getContentLengthLong();
+        if (maxBodySize >= 0 && declared > maxBodySize) {
+            throw new JsonReader.TooLargeException("Corps de requête trop volumineux (" + declared + " > " + maxBodySize + " octets)");
+        }
+        List<Call> calls = new ArrayList<>();
+        byte[] buffer = RequestContext.borrowBuffer();
+        try {
+            JsonReader in = new JsonReader(req.getInputStream(), buffer, maxBodySize);
+            if (in.peek() != JsonReader.Token.ARRAY) throw new IllegalArgumentException("Tableau d'appels attendu");
+            if (in.beginArray()) {
+                do {
+                    if (calls.size() == maxCalls) throw new IllegalArgumentException("Plus de " + maxCalls + " appels dans le lot");
+                    Call call = (Call) CALL_BINDER.read(in);
+                    if (call == null) throw new IllegalArgumentException("Appel " + calls.size() + " : objet attendu");
+                    calls.add(call);
+                } while (in.nextElement());
+            }
+            in.endDocument();
+        } finally {
+            RequestContext.release(buffer);
+        }
+        return calls;
+    }
+
+    // Session à créer seulement si une route appelée la reçoit (@Session)
+    private boolean needsSession(List<Call> calls) {
+        for (Call call : calls) {
+            String path = call.path();
+            if (path == null || !path.startsWith("/")) continue;
+            int query = path.indexOf('?');
+            if (usesSession.test(httpMethod(call), (query >= 0) ? path.substring(0, query) : path)) return true;
+        }
+        return false;
+    }
+
+    private static String httpMethod(Call call) {
+        return (call.method() != null) ? call.method().toUpperCase(Locale.ROOT) : "GET";
+    }
+
+    private Future<CallResponse> submit(Origin origin, Call call) {
+        CallResponse response = new CallResponse(origin.response);
+        String path = call.path();
+        if (path == null || !path.startsWith("/")) return response.fail(HttpServletResponse.SC_BAD_REQUEST, "Chemin absolu requis");
+        int query = path.indexOf('?');
+        String routePath = (query >= 0) ? path.substring(0, query) : path;
+        if (routePath.equals(batchPath)) return response.fail(HttpServletResponse.SC_BAD_REQUEST, "Lot imbriqué refusé");
+
+        CallRequest request;
+        try {
+            request = new CallRequest(origin, call, routePath, (query >= 0) ? path.substring(query + 1) : null);
+        } catch (IOException e) {
+            return response.fail(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        }
+        try {
+            return executor.get().submit(() -> {
+                dispatcher.serve(request, response, routePath);
+                return response;
+            });
+        } catch (RejectedExecutionException e) {
+            return response.fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Exécuteur asynchrone indisponible");
+        }
+    }
+
+    // Résultat de l'appel, ou enveloppe d'erreur à son échéance
+    private static CallResponse await(Future<CallResponse> future, long deadline, HttpServletResponse res) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true); // sa réponse capturée est abandonnée
+            return CallResponse.error(res, HttpServletResponse.SC_GATEWAY_TIMEOUT, "Délai dépassé");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return CallResponse.error(res, HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Lot interrompu");
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = (e.getCause() != null) ? e.getCause() : e;
+            return CallResponse.error(res, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, String.valueOf(cause.getMessage()));
+        }
+    }
+
+    private static void writeResult(JsonWriter out, CallResponse response) throws IOException {
+        out.writeAscii("{\"status\":");
+        out.writeAscii(Integer.toString(response.status));
+        if (!response.headers.isEmpty()) {
+            out.writeAscii(",\"headers\":");
+            out.writeValue(response.headers);
+        }
+        if (response.error != null) {
+            out.writeAscii(",\"error\":");
+            out.writeString(response.error);
+        }
+        byte[] body = response.body();
+        if (body.length > 0) {
+            out.writeAscii(",\"body\":");
+            if (response.isJson()) {
+                // Déjà du JSON : recopié sans relecture, sans le saut de ligne final
+                int end = body.length;
+                while (end > 0 && body[end - 1] <= ' ') end--;
+                out.writeBytes(body, 0, end);
+            } else {
+                out.writeString(new String(body, response.charset()));
+            }
+        }
+        out.writeByte('}');
+    }
+
+    /**
+     * Ce que les sous-appels voient de la requête du lot, relevé sur le thread
+     * du conteneur : session, en-têtes, cookies, langues. La requête et la
+     * réponse du conteneur ne leur parviennent qu'à travers un garde qui
+     * refuse tout appel une fois le lot terminé.
+     */
+    static final class Origin {
+        final AtomicBoolean finished = new AtomicBoolean();
+        final HttpServletRequest request;
+        final HttpServletResponse response;
+        final HttpSession session;
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        final Cookie[] cookies;
+        final List<Locale> locales;
+
+        Origin(HttpServletRequest req, HttpServletResponse res, boolean createSession) {
+            this.request = guard(HttpServletRequest.class, req, finished);
+            this.response = guard(HttpServletResponse.class, res, finished);
+            // Créée ici au besoin : son cookie part avec la réponse du lot, avant la première enveloppe
+            this.session = req.getSession(createSession);
+            Enumeration<String> names = req.getHeaderNames();
+            while (names != null && names.hasMoreElements()) {
+                String name = names.nextElement();
+                if (!HIDDEN_HEADERS.contains(name.toLowerCase(Locale.ROOT))) headers.put(name, Collections.list(req.getHeaders(name)));
+            }
+            Cookie[] cookies = req.getCookies();
+            this.cookies = (cookies != null) ? cookies.clone() : null;
+            Enumeration<Locale> locales = req.getLocales();
+            this.locales = (locales != null) ? Collections.list(locales) : List.of();
+        }
+
+        HttpSession session(boolean create) {
+            if (finished.get()) throw new IllegalStateException(FINISHED);
+            if (session == null && create) {
+                throw new IllegalStateException("Session absente : seules les routes à paramètre @Session la font créer par le lot");
+            }
+            return session;
+        }
+    }
+
+    private static final String FINISHED = "Lot terminé : requête et réponse du conteneur inaccessibles";
+
+    // En-têtes de la requête du lot sans objet pour un sous-appel
+    private static final Set<String> HIDDEN_HEADERS = Set.of("accept-encoding", "content-length", "content-type",
+        "if-none-match", "if-modified-since", "if-match", "if-unmodified-since", "if-range", "range");
+
+    // Objet du conteneur vu par les sous-appels : délégation refusée une fois le lot terminé
+    private static <T> T guard(Class<T> type, T target, AtomicBoolean finished) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals": return proxy == args[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    default: return "Lot(" + type.getSimpleName() + ")";
+                }
+            }
+            if (finished.get()) throw new IllegalStateException(FINISHED);
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }));
+    }
+
+    /**
+     * Requête d'un sous-appel : verbe, chemin, paramètres et corps propres,
+     * attributs séparés (compteurs, métriques, échange asynchrone de la route
+     * appelée), jamais asynchrone (un résultat différé est attendu sur place).
+     */
+    static final class CallRequest extends HttpServletRequestWrapper {
+        private final Origin origin;
+        private final String method;
+        private final String requestUri;
+        private final String queryString;
+        private final Map<String, String[]> parameters;
+        private final byte[] body;
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        CallRequest(Origin origin, Call call, String path, String queryString) throws IOException {
+            super(origin.request);
+            this.origin = origin;
+            this.method = httpMethod(call);
+            this.requestUri = origin.request.getContextPath() + path;
+            this.queryString = queryString;
+            this.parameters = parameters(queryString, call.params());
+            if (call.body() != null) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                JsonWriter writer = new JsonWriter(bytes);
+                writer.writeValue(call.body());
+                writer.flush();
+                this.body = bytes.toByteArray();
+            } else {
+                this.body = new byte[0];
+            }
+        }
+
+        private static Map<String, String[]> parameters(String queryString, Map<String, Object> params) {
+            Map<String, String[]> parameters = new LinkedHashMap<>();
+            if (queryString != null) {
+                for (String pair : queryString.split("&")) {
+                    if (pair.isEmpty()) continue;
+                    int eq = pair.indexOf('=');
+                    String name = URLDecoder.decode((eq >= 0) ? pair.substring(0, eq) : pair, StandardCharsets.UTF_8);
+                    String value = (eq >= 0) ? URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8) : "";
+                    add(parameters, name, value);
+                }
+            }
+            if (params != null) {
+                for (Map.Entry<String, Object> entry : params.entrySet()) {
+                    if (entry.getValue() instanceof Collection) {
+                        for (Object value : (Collection<?>) entry.getValue()) add(parameters, entry.getKey(), String.valueOf(value));
+                    } else if (entry.getValue() != null) {
+                        add(parameters, entry.getKey(), String.valueOf(entry.getValue()));
+                    }
+                }
+            }
+            return parameters;
+        }
+
+        private static void add(Map<String, String[]> parameters, String name, String value) {
+            String[] values = parameters.get(name);
+            if (values == null) {
+                parameters.put(name, new String[] { value });
+            } else {
+                String[] grown = Arrays.copyOf(values, values.length + 1);
+                grown[values.length] = value;
+                parameters.put(name, grown);
+            }
+        }
+
+        @Override public String getMethod() { return method; }
+        @Override public String getRequestURI() { return requestUri; }
+        @Override public StringBuffer getRequestURL() { return new StringBuffer(requestUri); }
+        @Override public String getQueryString() { return queryString; }
+        @Override public String getPathInfo() { return null; }
+
+        @Override public String getParameter(String name) {
+            String[] values = parameters.get(name);
+            return (values != null) ? values[0] : null;
+        }
+        @Override public String[] getParameterValues(String name) { return parameters.get(name); }
+        @Override public Map<String, String[]> getParameterMap() { return Collections.unmodifiableMap(parameters); }
+        @Override public Enumeration<String> getParameterNames() { return Collections.enumeration(parameters.keySet()); }
+
+        @Override public Object getAttribute(String name) { return attributes.get(name); }
+        @Override public Enumeration<String> getAttributeNames() { return Collections.enumeration(new ArrayList<>(attributes.keySet())); }
+        @Override public void setAttribute(String name, Object value) {
+            if (value == null) attributes.remove(name);
+            else attributes.put(name, value);
+        }
+        @Override public void removeAttribute(String name) { attributes.remove(name); }
+
+        // En-têtes, cookies, langues et session : copies faites avant le départ des appels
+        @Override public String getHeader(String name) {
+            if (name.equalsIgnoreCase("Content-Type")) return getContentType();
+            if (name.equalsIgnoreCase("Content-Length")) return (body.length > 0) ? Integer.toString(body.length) : null;
+            List<String> values = origin.headers.get(name);
+            return (values != null && !values.isEmpty()) ? values.get(0) : null;
+        }
+        @Override public Enumeration<String> getHeaders(String name) {
+            if (name.equalsIgnoreCase("Content-Type") || name.equalsIgnoreCase("Content-Length")) {
+                String value = getHeader(name);
+                return Collections.enumeration((value != null) ? List.of(value) : List.of());
+            }
+            return Collections.enumeration(origin.headers.getOrDefault(name, List.of()));
+        }
+        @Override public Enumeration<String> getHeaderNames() {
+            List<String> names = new ArrayList<>(origin.headers.keySet());
+            if (body.length > 0) names.addAll(List.of("Content-Type", "Content-Length"));
+            return Collections.enumeration(names);
+        }
+        @Override public int getIntHeader(String name) {
+            String value = getHeader(name);
+            return (value != null) ? Integer.parseInt(value) : -1;
+        }
+        @Override public long getDateHeader(String name) {
+            String value = getHeader(name);
+            if (value == null) return -1;
+            try {
+                return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("En-tête " + name + " : date invalide", e);
+            }
+        }
+        @Override public Cookie[] getCookies() { return (origin.cookies != null) ? origin.cookies.clone() : null; }
+        @Override public Locale getLocale() { return origin.locales.isEmpty() ? Locale.getDefault() : origin.locales.get(0); }
+        @Override public Enumeration<Locale> getLocales() { return Collections.enumeration(origin.locales); }
+        @Override public HttpSession getSession() { return origin.session(true); }
+        @Override public HttpSession getSession(boolean create) { return origin.session(create); }
+
+        @Override public String getContentType() { return (body.length > 0) ? "application/json;charset=UTF-8" : null; }
+        @Override public int getContentLength() { return body.length; }
+        @Override public long getContentLengthLong() { return body.length; }
+        @Override public String getCharacterEncoding() { return "UTF-8"; }
+        @Override public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override public int read() { return in.read(); }
+                @Override public int read(byte[] b, int off, int len) { return in.read(b, off, len); }
+                @Override public boolean isFinished() { return in.available() == 0; }
+                @Override public boolean isReady() { return true; }
+                @Override public void setReadListener(ReadListener listener) { throw new IllegalStateException("Sous-appel synchrone"); }
+            };
+        }
+        @Override public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+        }
+
+        @Override public boolean isAsyncSupported() { return false; }
+        @Override public boolean isAsyncStarted() { return false; }
+        @Override public AsyncContext startAsync() { throw new IllegalStateException("Sous-appel synchrone"); }
+        @Override public AsyncContext startAsync(ServletRequest request, ServletResponse response) {
+            throw new IllegalStateException("Sous-appel synchrone");
+        }
+    }
+
+    /**
+     * Réponse d'un sous-appel, entièrement en mémoire : rien ne remonte à la
+     * réponse du lot, partagée entre les appels en parallèle.
+     */
+    static final class CallResponse extends HttpServletResponseWrapper {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final Map<String, String> headers = new LinkedHashMap<>();
+        private ServletOutputStream stream;
+        private PrintWriter writer;
+        private StringWriter chars; // corps écrit par getWriter()
+        private int status = SC_OK;
+        private String contentType;
+        private String characterEncoding;
+        private String error;
+
+        CallResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        static CallResponse error(HttpServletResponse res, int status, String message) {
+            CallResponse response = new CallResponse(res);
+            response.status = status;
+            response.error = message;
+            return response;
+        }
+
+        // Appel refusé avant exécution
+        Future<CallResponse> fail(int status, String message) {
+            this.status = status;
+            this.error = message;
+            return CompletableFuture.completedFuture(this);
+        }
+
+        // Corps écrit, par le flux ou par le writer (l'un ou l'autre, comme l'exige l'API servlet)
+        byte[] body() {
+            return (chars != null) ? chars.toString().getBytes(charset()) : body.toByteArray();
+        }
+
+        boolean isJson() {
+            return contentType != null && contentType.toLowerCase(Locale.ROOT).contains("json");
+        }
+
+        Charset charset() {
+            String encoding = getCharacterEncoding();
+            return (encoding != null) ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            if (stream == null) {
+                stream = new ServletOutputStream() {
+                    @Override public void write(int b) { body.write(b); }
+                    @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); }
+                    @Override public boolean isReady() { return true; }
+                    @Override public void setWriteListener(WriteListener listener) { throw new IllegalStateException("Sous-appel synchrone"); }
+                    @Override public void close() { }
+                };
+            }
+            return stream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            if (writer == null) {
+                // Caractères gardés tels quels, encodés une fois à la fin (pas de tampon d'encodeur par appel)
+                chars = new StringWriter();
+                writer = new PrintWriter(chars);
+            }
+            return writer;
+        }
+
+        @Override public int getStatus() { return status; }
+        @Override public void setStatus(int sc) { status = sc; }
+        @Override public void sendError(int sc, String msg) { status = sc; error = msg; }
+        @Override public void sendError(int sc) { status = sc; }
+        @Override public void sendRedirect(String location) { status = SC_FOUND; headers.put("Location", location); }
+
+        @Override public void setContentType(String type) {
+            contentType = type;
+            int charset = (type != null) ? type.toLowerCase(Locale.ROOT).indexOf("charset=") : -1;
+            if (charset >= 0) characterEncoding = type.substring(charset + 8).trim();
+        }
+        @Override public String getContentType() { return contentType; }
+        @Override public void setCharacterEncoding(String charset) { characterEncoding = charset; }
+        @Override public String getCharacterEncoding() { return characterEncoding; }
+        @Override public void setLocale(Locale locale) { }
+        @Override public void setContentLength(int len) { }
+        @Override public void setContentLengthLong(long len) { }
+
+        @Override public void setHeader(String name, String value) {
+            if (value == null) headers.remove(name);
+            else headers.put(name, value);
+        }
+        @Override public void addHeader(String name, String value) { headers.merge(name, value, (a, b) -> a + ", " + b); }
+        @Override public void setDateHeader(String name, long date) { setHeader(name, Long.toString(date)); }
+        @Override public void addDateHeader(String name, long date) { addHeader(name, Long.toString(date)); }
+        @Override public void setIntHeader(String name, int value) { setHeader(name, Integer.toString(value)); }
+        @Override public void addIntHeader(String name, int value) { addHeader(name, Integer.toString(value)); }
+        @Override public boolean containsHeader(String name) { return headers.containsKey(name); }
+        @Override public String getHeader(String name) { return headers.get(name); }
+        @Override public Collection<String> getHeaders(String name) {
+            String value = headers.get(name);
+            return (value != null) ? List.of(value) : List.of();
+        }
+        @Override public Collection<String> getHeaderNames() { return new ArrayList<>(headers.keySet()); }
+        @Override public void addCookie(Cookie cookie) { }
+
+        @Override public void flushBuffer() { }
+        @Override public boolean isCommitted() { return false; }
+        @Override public void resetBuffer() {
+            if (chars != null) chars.getBuffer().setLength(0);
+            body.reset();
+        }
+        @Override public void reset() {
+            resetBuffer();
+            headers.clear();
+            status = SC_OK;
+            contentType = null;
+            characterEncoding = null;
+        }
+    }
+}
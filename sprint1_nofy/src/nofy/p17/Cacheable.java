@@ -0,0 +1,20 @@
+package nofy.p17;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Met en cache la réponse rendue d'une route GET (octets, type, ETag).
+ * La clé contient toujours le chemin (donc les path params) ; key() ajoute
+ * les paramètres de requête listés, "*" : tous. Seules les réponses 200
+ * sans en-tête ni cookie posés par le contrôleur sont conservées, et le
+ * chargement d'une clé absente se fait sur le thread de la requête.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+    long ttl() default 60000;   // ms
+    String[] key() default {};  // paramètres de requête inclus dans la clé
+}
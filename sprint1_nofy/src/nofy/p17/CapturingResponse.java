@@ -0,0 +1,126 @@
+package nofy.p17;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Réponse dont le corps est gardé en mémoire au lieu de partir vers le
+ * client ; statut et type de contenu passent à la réponse réelle. Sert au
+ * cache : la réponse n'est conservable que si c'est un 200 sans en-tête,
+ * cookie ni redirection posés par le code applicatif.
+ */
+public class CapturingResponse extends HttpServletResponseWrapper {
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+    private int status = SC_OK;
+    private boolean headersTouched;
+
+    public CapturingResponse(HttpServletResponse response) {
+        super(response);
+    }
+
+    /** Corps écrit jusqu'ici. */
+    public byte[] toByteArray() {
+        if (writer != null) writer.flush();
+        return body.toByteArray();
+    }
+
+    public boolean isCacheable() {
+        return status == SC_OK && !headersTouched;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (stream == null) {
+            stream = new ServletOutputStream() {
+                @Override public void write(int b) { body.write(b); }
+                @Override public void write(byte[] b, int off, int len) { body.write(b, off, len); }
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener listener) { throw new IllegalStateException("Réponse capturée"); }
+                @Override public void close() { } // le corps reste disponible
+            };
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = (encoding != null) ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset)) {
+                @Override public void close() { flush(); }
+            };
+        }
+        return writer;
+    }
+
+    @Override
+    public int getStatus() {
+        return status;
+    }
+
+    @Override
+    public void setStatus(int sc) {
+        status = sc;
+        super.setStatus(sc);
+    }
+
+    @Override
+    public void sendError(int sc, String msg) throws IOException {
+        status = sc;
+        super.sendError(sc, msg);
+    }
+
+    @Override
+    public void sendError(int sc) throws IOException {
+        status = sc;
+        super.sendError(sc);
+    }
+
+    @Override
+    public void sendRedirect(String location) throws IOException {
+        status = SC_FOUND;
+        super.sendRedirect(location);
+    }
+
+    @Override public void setHeader(String name, String value) { headersTouched = true; super.setHeader(name, value); }
+    @Override public void addHeader(String name, String value) { headersTouched = true; super.addHeader(name, value); }
+    @Override public void setDateHeader(String name, long date) { headersTouched = true; super.setDateHeader(name, date); }
+    @Override public void addDateHeader(String name, long date) { headersTouched = true; super.addDateHeader(name, date); }
+    @Override public void setIntHeader(String name, int value) { headersTouched = true; super.setIntHeader(name, value); }
+    @Override public void addIntHeader(String name, int value) { headersTouched = true; super.addIntHeader(name, value); }
+    @Override public void addCookie(Cookie cookie) { headersTouched = true; super.addCookie(cookie); }
+
+    // Longueur et vidage gérés par l'appelant, une fois le corps complet
+    @Override public void setContentLength(int len) { }
+    @Override public void setContentLengthLong(long len) { }
+    @Override public void flushBuffer() { }
+    @Override public boolean isCommitted() { return false; }
+
+    @Override
+    public void resetBuffer() {
+        if (writer != null) writer.flush();
+        body.reset();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        super.reset();
+        status = SC_OK;
+        headersTouched = false;
+    }
+}
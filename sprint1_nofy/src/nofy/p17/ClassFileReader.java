@@ -0,0 +1,120 @@
+package nofy.p17;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Lecture minimale d'un fichier .class : nom de la classe et annotations
+ * visibles au runtime posées sur la classe. Permet au scanner de trouver les
+ * @Controller sans charger ni initialiser les classes.
+ */
+public class ClassFileReader {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private final String className;
+    private final Set<String> annotations; // descripteurs, ex: Lnofy/p17/Controller;
+
+    private ClassFileReader(String className, Set<String> annotations) {
+        this.className = className;
+        this.annotations = annotations;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public boolean hasAnnotation(String descriptor) {
+        return annotations.contains(descriptor);
+    }
+
+    public static String descriptorOf(Class<?> annotationType) {
+        return "L" + annotationType.getName().replace('.', '/') + ";";
+    }
+
+    public static ClassFileReader read(InputStream input) throws IOException {
+        DataInputStream in = new DataInputStream(new java.io.BufferedInputStream(input));
+        if (in.readInt() != MAGIC) throw new IOException("Fichier .class invalide");
+        in.readUnsignedShort(); // minor
+        in.readUnsignedShort(); // major
+
+        // Pool de constantes : on ne garde que les UTF8 et les index des CONSTANT_Class
+        int count = in.readUnsignedShort();
+        String[] utf8 = new String[count];
+        int[] classNameIndex = new int[count];
+        for (int i = 1; i < count; i++) {
+            int tag = in.readUnsignedByte();
+            switch (tag) {
+                case 1: utf8[i] = in.readUTF(); break;                 // Utf8
+                case 7: classNameIndex[i] = in.readUnsignedShort(); break; // Class
+                case 8: case 16: case 19: case 20: in.skipBytes(2); break; // String, MethodType, Module, Package
+                case 15: in.skipBytes(3); break;                        // MethodHandle
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    in.skipBytes(4); break;                             // Integer, Float, refs, NameAndType, Dynamic
+                case 5: case 6: in.skipBytes(8); i++; break;            // Long, Double (2 entrées)
+                default: throw new IOException("Tag de constante inconnu: " + tag);
+            }
+        }
+
+        in.readUnsignedShort(); // access flags
+        String name = utf8[classNameIndex[in.readUnsignedShort()]].replace('/', '.');
+        in.readUnsignedShort(); // super
+        in.skipBytes(2 * in.readUnsignedShort()); // interfaces
+
+        skipMembers(in); // champs
+        skipMembers(in); // méthodes
+
+        Set<String> annotations = new HashSet<>();
+        int attributes = in.readUnsignedShort();
+        for (int a = 0; a < attributes; a++) {
+            String attrName = utf8[in.readUnsignedShort()];
+            int length = in.readInt();
+            if ("RuntimeVisibleAnnotations".equals(attrName)) {
+                int n = in.readUnsignedShort();
+                for (int k = 0; k < n; k++) {
+                    annotations.add(utf8[in.readUnsignedShort()]);
+                    skipElementValuePairs(in);
+                }
+            } else {
+                in.skipBytes(length);
+            }
+        }
+        return new ClassFileReader(name, annotations);
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        int count = in.readUnsignedShort();
+        for (int i = 0; i < count; i++) {
+            in.skipBytes(6); // access, name, descriptor
+            int attributes = in.readUnsignedShort();
+            for (int a = 0; a < attributes; a++) {
+                in.skipBytes(2);
+                in.skipBytes(in.readInt());
+            }
+        }
+    }
+
+    private static void skipElementValuePairs(DataInputStream in) throws IOException {
+        int pairs = in.readUnsignedShort();
+        for (int p = 0; p < pairs; p++) {
+            in.skipBytes(2);
+            skipElementValue(in);
+        }
+    }
+
+    private static void skipElementValue(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e': in.skipBytes(4); break;                  // enum : type + nom
+            case '@': in.skipBytes(2); skipElementValuePairs(in); break;
+            case '[':
+                int n = in.readUnsignedShort();
+                for (int i = 0; i < n; i++) skipElementValue(in);
+                break;
+            default: in.skipBytes(2);                          // constante ou classe
+        }
+    }
+}
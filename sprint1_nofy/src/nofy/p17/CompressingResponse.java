@@ -0,0 +1,136 @@
+package nofy.p17;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Réponse compressée à la volée. Les premiers octets sont gardés jusqu'au
+ * seuil : une petite réponse part telle quelle (avec Content-Length), une
+ * grande part compressée si son type s'y prête. {@link #finish()} termine le
+ * flux ; il est aussi appelé à la fermeture du flux ou du writer.
+ */
+public class CompressingResponse extends HttpServletResponseWrapper {
+
+    private final Compression compression;
+    private final String encoding;
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private ServletOutputStream stream;
+    private PrintWriter writer;
+    private Compression.Encoder encoder; // non null : compression en cours
+    private boolean passthrough;         // décision prise, sans compression
+    private boolean used;
+    private boolean finished;
+
+    public CompressingResponse(HttpServletResponse response, Compression compression, String encoding) {
+        super(response);
+        this.compression = compression;
+        this.encoding = encoding;
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (stream == null) {
+            stream = new ServletOutputStream() {
+                @Override public void write(int b) throws IOException { write(new byte[] { (byte) b }, 0, 1); }
+                @Override public void write(byte[] b, int off, int len) throws IOException { append(b, off, len); }
+                // Vidage implicite (writer...) : pas de décision ni de SYNC_FLUSH, qui dégraderait la compression
+                @Override public void flush() throws IOException { if (passthrough) CompressingResponse.super.getOutputStream().flush(); }
+                @Override public void close() throws IOException { finish(); }
+                @Override public boolean isReady() { return true; }
+                @Override public void setWriteListener(WriteListener listener) { throw new IllegalStateException("Réponse compressée"); }
+            };
+        }
+        return stream;
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        if (writer == null) {
+            String charsetName = getCharacterEncoding();
+            Charset charset = (charsetName != null) ? Charset.forName(charsetName) : StandardCharsets.ISO_8859_1;
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), charset));
+        }
+        return writer;
+    }
+
+    // Longueur connue seulement à la fin ; une éventuelle valeur du code applicatif serait fausse compressée
+    @Override public void setContentLength(int len) { }
+    @Override public void setContentLengthLong(long len) { }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) writer.flush();
+        decide(true);
+        if (encoder != null) encoder.flush();
+        else super.flushBuffer();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (encoder == null && !passthrough) pending.reset();
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        super.reset();
+    }
+
+    /** Termine la réponse : envoie ce qui reste, ou la fin du flux compressé. */
+    public void finish() throws IOException {
+        if (finished) return;
+        if (writer != null) writer.flush();
+        finished = true;
+        if (!used) return; // rien écrit ici (vue rendue par AsyncContext.dispatch...)
+        if (encoder == null && !passthrough) {
+            super.setContentLength(pending.size());
+            super.getOutputStream().write(pending.toByteArray());
+            return;
+        }
+        if (encoder != null) encoder.finish();
+    }
+
+    private void append(byte[] b, int off, int len) throws IOException {
+        if (finished) throw new IOException("Réponse déjà terminée");
+        used = true;
+        if (encoder != null) {
+            encoder.write(b, off, len);
+        } else if (passthrough) {
+            super.getOutputStream().write(b, off, len);
+        } else {
+            pending.write(b, off, len);
+            if (pending.size() >= compression.getThreshold()) decide(false);
+        }
+    }
+
+    // Seuil atteint (ou vidage forcé) : on compresse si c'est utile et permis
+    private void decide(boolean forced) throws IOException {
+        if (encoder != null || passthrough || !used) return;
+        int status = getStatus();
+        boolean compress = !forced
+            && status != SC_NO_CONTENT && status != SC_NOT_MODIFIED
+            && Compression.isCompressible(getContentType())
+            && !containsHeader("Content-Encoding");
+        byte[] head = pending.toByteArray();
+        pending.reset();
+        if (compress) {
+            setHeader("Content-Encoding", encoding);
+            addHeader("Vary", "Accept-Encoding");
+            encoder = compression.open(super.getOutputStream(), encoding);
+            encoder.write(head, 0, head.length);
+        } else {
+            passthrough = true;
+            super.getOutputStream().write(head);
+        }
+    }
+}
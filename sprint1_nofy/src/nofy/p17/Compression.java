@@ -0,0 +1,249 @@
+package nofy.p17;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Checksum;
+import java.util.zip.Deflater;
+
+/**
+ * Compression gzip / deflate des réponses, négociée sur Accept-Encoding.
+ * <p>
+ * Un seul format interne : le flux deflate brut (Deflater nowrap), encadré à
+ * l'écriture par l'en-tête et la fin gzip (CRC32) ou zlib (Adler32). Une
+ * entrée de cache ne garde donc qu'une copie compressée pour les deux
+ * encodages. Les Deflater (mémoire native) sont réutilisés via un pool borné
+ * au lieu d'être créés et libérés à chaque réponse.
+ */
+public class Compression {
+
+    public static final String GZIP = "gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+    private static final byte[] ZLIB_HEADER = { 0x78, (byte) 0x9c };
+
+    private final int threshold;
+    private final int level;
+    private final int maxPooled;
+    private final ConcurrentLinkedQueue<Deflater> pool = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
+    /** threshold : taille (octets) à partir de laquelle on compresse ; level : 1 à 9. */
+    public Compression(int threshold, int level) {
+        this.threshold = threshold;
+        this.level = level;
+        this.maxPooled = 2 * Runtime.getRuntime().availableProcessors();
+    }
+
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /** Encodage retenu pour l'en-tête Accept-Encoding (gzip préféré à qualité égale), ou null. */
+    public static String negotiate(String acceptEncoding) {
+        if (acceptEncoding == null) return null;
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String item : acceptEncoding.split(",")) {
+            String[] parts = item.trim().split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals(GZIP) || coding.equals("x-gzip")) gzip = q;
+            else if (coding.equals(DEFLATE)) deflate = q;
+            else if (coding.equals("*")) any = q;
+        }
+        if (gzip < 0) gzip = any;
+        if (deflate < 0) deflate = any;
+        if (gzip <= 0 && deflate <= 0) return null;
+        return (gzip >= deflate) ? GZIP : DEFLATE;
+    }
+
+    /** Types textuels seulement : images, archives... sont déjà compressées. */
+    public static boolean isCompressible(String contentType) {
+        if (contentType == null) return false;
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/")
+            || type.startsWith("application/json")
+            || type.startsWith("application/javascript")
+            || type.startsWith("application/xml")
+            || type.startsWith("application/x-ndjson")
+            || type.startsWith("image/svg+xml")
+            || type.contains("+json")
+            || type.contains("+xml");
+    }
+
+    /**
+     * Corps entièrement compressé (pour le cache), ou null si la compression
+     * ne fait rien gagner.
+     */
+    public Deflated deflate(byte[] body) {
+        Deflater deflater = borrow();
+        try {
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+            byte[] buffer = new byte[8192];
+            deflater.setInput(body);
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                raw.write(buffer, 0, n);
+            }
+            if (raw.size() + GZIP_HEADER.length + 8 >= body.length) return null;
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            Adler32 adler = new Adler32();
+            adler.update(body);
+            return new Deflated(raw.toByteArray(), (int) crc.getValue(), (int) adler.getValue(), body.length);
+        } finally {
+            release(deflater);
+        }
+    }
+
+    /** Flux compressant vers out, au format de l'encodage ; {@link Encoder#finish()} obligatoire. */
+    public Encoder open(OutputStream out, String encoding) throws IOException {
+        return new Encoder(out, encoding, borrow());
+    }
+
+    private Deflater borrow() {
+        Deflater deflater = pool.poll();
+        if (deflater == null) return new Deflater(level, true);
+        pooled.decrementAndGet();
+        return deflater;
+    }
+
+    private void release(Deflater deflater) {
+        deflater.reset();
+        if (pooled.incrementAndGet() <= maxPooled) {
+            pool.offer(deflater);
+        } else {
+            pooled.decrementAndGet();
+            deflater.end(); // pool plein : mémoire native rendue tout de suite
+        }
+    }
+
+    /** Flux deflate brut et sommes de contrôle d'un corps, réutilisables pour gzip et deflate. */
+    public static class Deflated {
+        private final byte[] raw;
+        private final int crc32;
+        private final int adler32;
+        private final int inputLength;
+
+        Deflated(byte[] raw, int crc32, int adler32, int inputLength) {
+            this.raw = raw;
+            this.crc32 = crc32;
+            this.adler32 = adler32;
+            this.inputLength = inputLength;
+        }
+
+        /** Taille du corps encodé (Content-Length). */
+        public int length(String encoding) {
+            return GZIP.equals(encoding) ? GZIP_HEADER.length + raw.length + 8 : ZLIB_HEADER.length + raw.length + 4;
+        }
+
+        public void writeTo(OutputStream out, String encoding) throws IOException {
+            if (GZIP.equals(encoding)) {
+                out.write(GZIP_HEADER);
+                out.write(raw);
+                writeIntLE(out, crc32);
+                writeIntLE(out, inputLength);
+            } else {
+                out.write(ZLIB_HEADER);
+                out.write(raw);
+                writeIntBE(out, adler32);
+            }
+        }
+
+        int weight() {
+            return raw.length;
+        }
+    }
+
+    /** Compression au fil de l'écriture, avec un Deflater emprunté au pool. */
+    public class Encoder {
+        private final OutputStream out;
+        private final boolean gzip;
+        private final Checksum checksum;
+        private final byte[] buffer = new byte[8192];
+        private Deflater deflater;
+        private long inputLength;
+
+        private Encoder(OutputStream out, String encoding, Deflater deflater) throws IOException {
+            this.out = out;
+            this.gzip = GZIP.equals(encoding);
+            this.checksum = gzip ? new CRC32() : new Adler32();
+            this.deflater = deflater;
+            out.write(gzip ? GZIP_HEADER : ZLIB_HEADER);
+        }
+
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return;
+            checksum.update(b, off, len);
+            inputLength += len;
+            deflater.setInput(b, off, len);
+            while (!deflater.needsInput()) drain(Deflater.NO_FLUSH);
+        }
+
+        /** Pousse vers le client ce qui est déjà compressible (flushBuffer applicatif). */
+        public void flush() throws IOException {
+            drain(Deflater.SYNC_FLUSH);
+            out.flush();
+        }
+
+        /** Termine le flux (fin gzip / zlib) et rend le Deflater au pool. */
+        public void finish() throws IOException {
+            if (deflater == null) return;
+            try {
+                deflater.finish();
+                while (!deflater.finished()) drain(Deflater.NO_FLUSH);
+                int sum = (int) checksum.getValue();
+                if (gzip) {
+                    writeIntLE(out, sum);
+                    writeIntLE(out, (int) inputLength);
+                } else {
+                    writeIntBE(out, sum);
+                }
+            } finally {
+                release(deflater);
+                deflater = null;
+            }
+        }
+
+        private void drain(int flush) throws IOException {
+            int n;
+            do {
+                n = deflater.deflate(buffer, 0, buffer.length, flush);
+                if (n > 0) out.write(buffer, 0, n);
+            } while (n == buffer.length);
+        }
+    }
+
+    private static void writeIntLE(OutputStream out, int v) throws IOException {
+        out.write(v);
+        out.write(v >>> 8);
+        out.write(v >>> 16);
+        out.write(v >>> 24);
+    }
+
+    private static void writeIntBE(OutputStream out, int v) throws IOException {
+        out.write(v >>> 24);
+        out.write(v >>> 16);
+        out.write(v >>> 8);
+        out.write(v);
+    }
+}
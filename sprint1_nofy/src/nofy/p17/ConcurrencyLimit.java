@@ -0,0 +1,22 @@
+package nofy.p17;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limite les appels simultanés d'une route. Au-delà, la requête attend une
+ * place dans une file bornée ; file pleine ou attente trop longue : 503
+ * immédiat avec Retry-After. Les valeurs -1 reprennent les init-params
+ * du FrontServlet (concurrencyLimit, concurrencyQueue...).
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimit {
+    int value() default -1;           // appels simultanés, -1 : init-param concurrencyLimit, 0 : illimité
+    int queue() default -1;           // requêtes en attente, -1 : init-param concurrencyQueue
+    long queueTimeout() default -1;   // ms, -1 : init-param concurrencyQueueTimeout
+    boolean adaptive() default false; // limite ajustée à la latence observée, value() étant le maximum
+    long retryAfter() default -1;     // s, -1 : init-param retryAfter
+}
@@ -0,0 +1,153 @@
+package nofy.p17;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Admission des appels d'une route : au plus limit() en cours, queueSize
+ * requêtes en attente d'une place (au plus queueTimeout), les autres sont
+ * refusées tout de suite. Places prises et rendues par compareAndSet, sans
+ * verrou ; seules les requêtes en file se garent.
+ *
+ * En mode adaptatif, la limite suit la latence observée (AIMD) : +1 après
+ * limit() réponses rapides alors que la limite était atteinte, ×0,9 (au plus
+ * une fois par durée de requête) quand la latence lissée dépasse deux fois
+ * la latence minimale récente. Elle reste entre 1 et le maximum configuré.
+ */
+public final class ConcurrencyLimiter {
+
+    private static final double TOLERANCE = 2.0;  // latence au-delà de laquelle la route est jugée saturée
+    private static final double BACKOFF = 0.9;
+    private static final int LATENCY_WINDOW = 1000; // réponses avant de réévaluer la latence minimale
+
+    private final int maxLimit;
+    private final int queueSize;
+    private final long queueTimeoutNanos;
+    private final boolean adaptive;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final ConcurrentLinkedQueue<Thread> waiters = new ConcurrentLinkedQueue<>();
+    // Mode adaptatif
+    private final AtomicLong minLatency = new AtomicLong(Long.MAX_VALUE);    // fenêtre précédente
+    private final AtomicLong windowLatency = new AtomicLong(Long.MAX_VALUE); // fenêtre en cours
+    private final AtomicLong smoothedLatency = new AtomicLong();             // moyenne mobile (1/16)
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicInteger successes = new AtomicInteger();
+    private final AtomicLong lastDecrease = new AtomicLong(System.nanoTime());
+
+    /**
+     * maxConcurrent : appels simultanés (maximum de la limite adaptative),
+     * queueSize : requêtes en attente, queueTimeoutMillis : attente maximale.
+     */
+    public ConcurrencyLimiter(int maxConcurrent, int queueSize, long queueTimeoutMillis, boolean adaptive) {
+        if (maxConcurrent <= 0) throw new IllegalArgumentException("maxConcurrent doit être positif : " + maxConcurrent);
+        this.maxLimit = maxConcurrent;
+        this.queueSize = Math.max(0, queueSize);
+        this.queueTimeoutNanos = Math.max(0, queueTimeoutMillis) * 1_000_000;
+        this.adaptive = adaptive;
+        this.limit = new AtomicInteger(maxConcurrent);
+    }
+
+    /** Prend une place sans attendre ; false si la limite est atteinte. */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) return false;
+            if (inFlight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    /**
+     * Prend une place, en attendant dans la file si elle n'est pas pleine ;
+     * false : requête à refuser. Les nouvelles requêtes ne doublent pas
+     * celles qui attendent déjà.
+     */
+    public boolean acquire() {
+        if (queued.get() == 0 && tryAcquire()) return true;
+        if (queueSize == 0 || queueTimeoutNanos == 0) return false;
+        if (queued.incrementAndGet() > queueSize) {
+            queued.decrementAndGet();
+            return false;
+        }
+        Thread thread = Thread.currentThread();
+        waiters.add(thread);
+        long deadline = System.nanoTime() + queueTimeoutNanos;
+        boolean acquired = false;
+        try {
+            while (!(acquired = tryAcquire())) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0 || thread.isInterrupted()) return false;
+                LockSupport.parkNanos(this, remaining);
+            }
+            return true;
+        } finally {
+            waiters.remove(thread);
+            queued.decrementAndGet();
+            // Réveil perdu au profit d'un thread qui sortait de la file : on le repasse au suivant
+            if (!acquired && inFlight.get() < limit.get()) signalNext();
+        }
+    }
+
+    /** Rend une place ; latencyNanos : durée de l'appel admis (mode adaptatif). */
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        if (adaptive) adapt(latencyNanos);
+        signalNext();
+    }
+
+    private void signalNext() {
+        Thread next = waiters.peek();
+        if (next != null) LockSupport.unpark(next);
+    }
+
+    private void adapt(long latency) {
+        windowLatency.accumulateAndGet(latency, Math::min);
+        long baseline = minLatency.accumulateAndGet(latency, Math::min);
+        if (samples.incrementAndGet() % LATENCY_WINDOW == 0) {
+            // La latence minimale peut remonter (données plus grosses, base plus lente...)
+            minLatency.set(windowLatency.getAndSet(Long.MAX_VALUE));
+        }
+
+        // Une réponse isolée plus lente (GC, ordonnanceur) ne suffit pas à réduire la limite
+        long smoothed = smoothedLatency.accumulateAndGet(latency, (average, sample) ->
+            (average == 0) ? sample : average + (sample - average) / 16);
+
+        int current = limit.get();
+        if (smoothed > baseline * TOLERANCE) {
+            long now = System.nanoTime();
+            long last = lastDecrease.get();
+            if (now - last >= smoothed && lastDecrease.compareAndSet(last, now)) {
+                limit.compareAndSet(current, Math.max(1, (int) (current * BACKOFF)));
+                successes.set(0);
+            }
+        } else if (current < maxLimit && inFlight.get() + 1 >= current
+                   && successes.incrementAndGet() >= current) {
+            successes.set(0);
+            limit.compareAndSet(current, current + 1);
+        }
+    }
+
+    /** Limite en vigueur (égale au maximum hors mode adaptatif). */
+    public int getLimit() {
+        return limit.get();
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+}
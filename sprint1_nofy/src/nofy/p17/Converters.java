@@ -0,0 +1,201 @@
+package nofy.p17;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des conversions texte → type cible, résolues une fois par paramètre
+ * à l'enregistrement des routes. Les applications peuvent y ajouter leurs
+ * propres types avec {@link #register(Class, TypeConverter)}.
+ */
+public final class Converters {
+
+    /**
+     * Convertit une portion de texte [start, end[ : les nombres sont lus
+     * directement dans la CharSequence (chemin ou paramètre) sans sous-chaîne.
+     */
+    public interface TypeConverter<T> {
+        T convert(CharSequence text, int start, int end);
+
+        default T convert(CharSequence text) {
+            return convert(text, 0, text.length());
+        }
+    }
+
+    /**
+     * Conversion d'un paramètre à valeurs multiples (tableau, List, Set).
+     */
+    public interface MultiConverter {
+        Object convert(String[] values);
+    }
+
+    private static final Map<Class<?>, TypeConverter<?>> registry = new ConcurrentHashMap<>();
+
+    static {
+        TypeConverter<String> string = (t, s, e) -> t.subSequence(s, e).toString();
+        register(String.class, string);
+        register(CharSequence.class, string);
+        register(Object.class, string);
+        register(int.class, (t, s, e) -> Integer.parseInt(t, s, e, 10));
+        register(Integer.class, (t, s, e) -> Integer.parseInt(t, s, e, 10));
+        register(long.class, (t, s, e) -> Long.parseLong(t, s, e, 10));
+        register(Long.class, (t, s, e) -> Long.parseLong(t, s, e, 10));
+        register(short.class, (t, s, e) -> toShort(Integer.parseInt(t, s, e, 10)));
+        register(Short.class, (t, s, e) -> toShort(Integer.parseInt(t, s, e, 10)));
+        register(byte.class, (t, s, e) -> toByte(Integer.parseInt(t, s, e, 10)));
+        register(Byte.class, (t, s, e) -> toByte(Integer.parseInt(t, s, e, 10)));
+        register(double.class, (t, s, e) -> Double.parseDouble(t.subSequence(s, e).toString()));
+        register(Double.class, (t, s, e) -> Double.parseDouble(t.subSequence(s, e).toString()));
+        register(float.class, (t, s, e) -> Float.parseFloat(t.subSequence(s, e).toString()));
+        register(Float.class, (t, s, e) -> Float.parseFloat(t.subSequence(s, e).toString()));
+        register(boolean.class, Converters::parseBoolean);
+        register(Boolean.class, Converters::parseBoolean);
+        register(char.class, Converters::parseChar);
+        register(Character.class, Converters::parseChar);
+        register(BigDecimal.class, (t, s, e) -> new BigDecimal(t.subSequence(s, e).toString()));
+        register(BigInteger.class, (t, s, e) -> new BigInteger(t.subSequence(s, e).toString()));
+        register(LocalDate.class, (t, s, e) -> LocalDate.parse(t.subSequence(s, e)));
+        register(LocalDateTime.class, (t, s, e) -> LocalDateTime.parse(t.subSequence(s, e)));
+        register(LocalTime.class, (t, s, e) -> LocalTime.parse(t.subSequence(s, e)));
+        register(OffsetDateTime.class, (t, s, e) -> OffsetDateTime.parse(t.subSequence(s, e)));
+        register(ZonedDateTime.class, (t, s, e) -> ZonedDateTime.parse(t.subSequence(s, e)));
+        register(Instant.class, (t, s, e) -> Instant.parse(t.subSequence(s, e)));
+        register(UUID.class, (t, s, e) -> UUID.fromString(t.subSequence(s, e).toString()));
+    }
+
+    private Converters() {
+    }
+
+    /** Enregistre (ou remplace) le convertisseur d'un type. */
+    public static <T> void register(Class<T> type, TypeConverter<? extends T> converter) {
+        registry.put(type, converter);
+    }
+
+    /**
+     * Convertisseur d'une valeur unique vers le type donné. Pour un type sans
+     * conversion connue, le convertisseur retourné lève "Type non supporté".
+     */
+    public static TypeConverter<?> forType(Class<?> type) {
+        TypeConverter<?> converter = registry.get(type);
+        if (converter == null && type.isEnum()) converter = enumConverter(type);
+        if (converter == null) {
+            return (t, s, e) -> {
+                throw new IllegalArgumentException("Type non supporté: " + type.getName());
+            };
+        }
+        TypeConverter<?> delegate = converter;
+        return (t, s, e) -> {
+            try {
+                return delegate.convert(t, s, e);
+            } catch (NumberFormatException | DateTimeParseException ex) {
+                throw new IllegalArgumentException("Erreur de conversion pour la valeur: " + t.subSequence(s, e), ex);
+            }
+        };
+    }
+
+    /** Vrai si une conversion texte existe pour ce type (enregistrée, enum, tableau, List...). */
+    public static boolean supports(Class<?> type) {
+        return registry.containsKey(type) || type.isEnum() || isMultiValued(type);
+    }
+
+    /** Vrai si le type attend plusieurs valeurs. */
+    public static boolean isMultiValued(Class<?> type) {
+        return (type.isArray() && type != char[].class) || List.class == type || Set.class == type
+            || Collection.class == type;
+    }
+
+    /**
+     * Conversion d'un tableau de valeurs vers T[], List&lt;T&gt; ou Set&lt;T&gt;. Pour des
+     * éléments non textuels (nombres, enums...), une valeur unique contenant des
+     * virgules est découpée ("1,2,3") ; les textes sont gardés tels quels, sans
+     * découpage ni suppression des blancs.
+     */
+    public static MultiConverter forMultiValued(Class<?> type, Type genericType) {
+        Class<?> elementType = type.isArray() ? type.getComponentType() : elementType(genericType);
+        TypeConverter<?> element = forType(elementType);
+        boolean split = elementType != String.class && elementType != CharSequence.class && elementType != Object.class;
+        return values -> {
+            if (split && values.length == 1 && values[0].indexOf(',') >= 0) values = values[0].split(",");
+            if (type.isArray()) {
+                Object array = Array.newInstance(elementType, values.length);
+                for (int i = 0; i < values.length; i++) Array.set(array, i, element.convert(values[i]));
+                return array;
+            }
+            Collection<Object> collection = (type == Set.class) ? new LinkedHashSet<>() : new ArrayList<>(values.length);
+            for (String value : values) collection.add(element.convert(value));
+            return collection;
+        };
+    }
+
+    static Class<?> elementType(Type genericType) {
+        if (genericType instanceof ParameterizedType) {
+            Type[] args = ((ParameterizedType) genericType).getActualTypeArguments();
+            if (args.length == 1 && args[0] instanceof Class) return (Class<?>) args[0];
+        }
+        return String.class;
+    }
+
+    /** Vrai si la portion [start, end[ est vide ou ne contient que des blancs. */
+    public static boolean isBlank(CharSequence text, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(text.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    // --- Conversions de base ---
+
+    private static TypeConverter<?> enumConverter(Class<?> type) {
+        Map<String, Object> constants = new HashMap<>();
+        for (Object constant : type.getEnumConstants()) constants.put(((Enum<?>) constant).name(), constant);
+        return (t, s, e) -> {
+            Object constant = constants.get(t.subSequence(s, e).toString());
+            if (constant == null) throw new IllegalArgumentException("Valeur inconnue pour " + type.getSimpleName() + ": " + t.subSequence(s, e));
+            return constant;
+        };
+    }
+
+    // Même règle que Boolean.parseBoolean : seul "true" (casse ignorée) vaut vrai
+    private static Boolean parseBoolean(CharSequence text, int start, int end) {
+        if (end - start != 4) return Boolean.FALSE;
+        String expected = "true";
+        for (int i = 0; i < 4; i++) {
+            if (Character.toLowerCase(text.charAt(start + i)) != expected.charAt(i)) return Boolean.FALSE;
+        }
+        return Boolean.TRUE;
+    }
+
+    private static Character parseChar(CharSequence text, int start, int end) {
+        if (end - start != 1) throw new IllegalArgumentException("Un seul caractère attendu: " + text.subSequence(start, end));
+        return text.charAt(start);
+    }
+
+    private static Short toShort(int value) {
+        if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) throw new NumberFormatException("Hors limites pour short: " + value);
+        return (short) value;
+    }
+
+    private static Byte toByte(int value) {
+        if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) throw new NumberFormatException("Hors limites pour byte: " + value);
+        return (byte) value;
+    }
+}
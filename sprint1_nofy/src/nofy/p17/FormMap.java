@@ -0,0 +1,118 @@
+package nofy.p17;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map "formulaire" d'un paramètre déclaré Map du contrôleur : vue sur
+ * getParameterMap(), sans copie. Une valeur seule donne la String, plusieurs
+ * donnent le String[], aucune : clé absente. La première modification copie
+ * la vue dans une HashMap ; la requête n'est jamais touchée.
+ * <p>
+ * Comme la map du conteneur, elle n'est valable que pendant la requête :
+ * new HashMap&lt;&gt;(form) pour la garder (session...). Un paramètre déclaré
+ * HashMap, TreeMap... reçoit directement une copie.
+ */
+final class FormMap extends AbstractMap<String, Object> {
+
+    private final Map<String, String[]> parameters;
+    private Map<String, Object> copy; // non null après la première modification
+
+    FormMap(Map<String, String[]> parameters) {
+        this.parameters = parameters;
+    }
+
+    private static Object value(String[] values) {
+        if (values == null || values.length == 0) return null;
+        return (values.length == 1) ? values[0] : values;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (copy != null) return copy.get(key);
+        return value(parameters.get(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (copy != null) return copy.containsKey(key);
+        return value(parameters.get(key)) != null;
+    }
+
+    @Override
+    public int size() {
+        if (copy != null) return copy.size();
+        int size = 0;
+        for (String[] values : parameters.values()) {
+            if (values != null && values.length > 0) size++;
+        }
+        return size;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return copy().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return copy().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        copy().clear();
+    }
+
+    private Map<String, Object> copy() {
+        if (copy == null) copy = new HashMap<>(this);
+        return copy;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (copy != null) return copy.entrySet();
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                if (copy != null) return copy.entrySet().iterator();
+                Iterator<Entry<String, String[]>> source = parameters.entrySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    private Entry<String, Object> next = advance();
+
+                    private Entry<String, Object> advance() {
+                        while (source.hasNext()) {
+                            Entry<String, String[]> entry = source.next();
+                            Object value = value(entry.getValue());
+                            if (value != null) return new SimpleImmutableEntry<>(entry.getKey(), value);
+                        }
+                        return null;
+                    }
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next == null) throw new NoSuchElementException();
+                        Entry<String, Object> current = next;
+                        next = advance();
+                        return current;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return FormMap.this.size();
+            }
+        };
+    }
+}
@@ -4,9 +4,17 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.RequestDispatcher;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
@@ -16,257 +24,1362 @@ import jakarta.servlet.http.HttpServletResponse;
 @jakarta.servlet.annotation.MultipartConfig
 public class FrontServlet extends HttpServlet {
 
+    /** Attribut de requête : nombre d'appels de contrôleur effectués pour cette requête. */
+    public static final String DISPATCH_COUNT_ATTRIBUTE = "nofy.p17.dispatchCount";
+    /** Init-param : liste des packages de contrôleurs à scanner. */
+    public static final String BASE_PACKAGES_PARAM = "basePackages";
+    /**
+     * Init-param : "true" charge les contrôleurs depuis les index
+     * MyScanner.INDEX_RESOURCE du classpath. Seules les entrées sous basePackages
+     * sont gardées ; les packages qu'aucun index ne déclare sont scannés.
+     * Ignoré en rechargement à chaud (l'index ne suit pas les classes modifiées).
+     */
+    public static final String CONTROLLER_INDEX_PARAM = "controllerIndex";
+    /**
+     * Init-params : taille maximale (octets) d'un fichier envoyé et de l'ensemble
+     * des fichiers d'une requête. La limite par requête est d'abord appliquée au
+     * Content-Length, avant toute lecture du corps ; les fichiers eux-mêmes ne
+     * sont contrôlés qu'après leur réception par le conteneur. Pour que celui-ci
+     * refuse aussi les envois sans Content-Length (chunked) avant de les stocker,
+     * renseigner max-file-size / max-request-size dans le multipart-config du
+     * servlet (web.xml) : l'annotation @MultipartConfig ne fixe aucune limite.
+     */
+    public static final String MAX_UPLOAD_FILE_SIZE_PARAM = "maxUploadFileSize";
+    public static final String MAX_UPLOAD_REQUEST_SIZE_PARAM = "maxUploadRequestSize";
+    private static final String UPLOADS_ATTRIBUTE = "nofy.p17.uploads";
+    /** Init-param : taille maximale (octets) d'un corps @RequestBody, -1 : illimitée. */
+    public static final String MAX_BODY_SIZE_PARAM = "maxBodySize";
+    /**
+     * Init-params du mode asynchrone : "async" (true : toutes les routes, sinon
+     * seulement celles annotées @MyAsync), "asyncTimeout" (ms) et
+     * "asyncMaxConcurrent" (appels simultanés par route, 0 : illimité).
+     */
+    public static final String ASYNC_PARAM = "async";
+    public static final String ASYNC_TIMEOUT_PARAM = "asyncTimeout";
+    public static final String ASYNC_MAX_CONCURRENT_PARAM = "asyncMaxConcurrent";
+    /**
+     * Admission par route (défauts de @ConcurrencyLimit) : "concurrencyLimit"
+     * (appels simultanés, 0 : illimité ; s'applique alors à toutes les routes),
+     * "concurrencyQueue" (requêtes en attente d'une place), "concurrencyQueueTimeout"
+     * (ms), "concurrencyAdaptive" (true : limite ajustée à la latence) et
+     * "retryAfter" (s, en-tête des réponses 503).
+     */
+    public static final String CONCURRENCY_LIMIT_PARAM = "concurrencyLimit";
+    public static final String CONCURRENCY_QUEUE_PARAM = "concurrencyQueue";
+    public static final String CONCURRENCY_QUEUE_TIMEOUT_PARAM = "concurrencyQueueTimeout";
+    public static final String CONCURRENCY_ADAPTIVE_PARAM = "concurrencyAdaptive";
+    public static final String RETRY_AFTER_PARAM = "retryAfter";
+    /**
+     * Init-params du cache @Cacheable : nombre maximal d'entrées et taille
+     * totale des corps (octets, -1 : illimitée). Le cache est publié dans
+     * l'attribut de contexte RESPONSE_CACHE_ATTRIBUTE (statistiques).
+     */
+    public static final String CACHE_MAX_ENTRIES_PARAM = "cacheMaxEntries";
+    public static final String CACHE_MAX_BYTES_PARAM = "cacheMaxBytes";
+    public static final String RESPONSE_CACHE_ATTRIBUTE = "nofy.p17.responseCache";
+    /**
+     * Init-params de la compression des réponses : "compression" (false pour
+     * la désactiver), "compressionThreshold" (octets) et "compressionLevel" (1-9).
+     */
+    public static final String COMPRESSION_PARAM = "compression";
+    public static final String COMPRESSION_THRESHOLD_PARAM = "compressionThreshold";
+    public static final String COMPRESSION_LEVEL_PARAM = "compressionLevel";
+    /**
+     * Métriques par route : MBeans JMX (domaine nofy.p17, "metricsJmx"=false
+     * pour ne pas les enregistrer) et, si "metricsEndpoint"=true, la page
+     * METRICS_PATH au format Prometheus.
+     */
+    public static final String METRICS_JMX_PARAM = "metricsJmx";
+    public static final String METRICS_ENDPOINT_PARAM = "metricsEndpoint";
+    public static final String METRICS_PATH = "/__metrics";
+    /**
+     * Init-param : "metricsPhases"=false retire les mesures de binding et
+     * d'invocation de chaque appel (deux histogrammes, trois nanoTime) ; les
+     * autres phases et la durée totale restent mesurées.
+     */
+    public static final String METRICS_PHASES_PARAM = "metricsPhases";
+    private static final String ROUTE_METRICS_ATTRIBUTE = "nofy.p17.routeMetrics";
+    /** Init-param : intervalle (ms) des battements des flux SSE / NDJSON, 0 : aucun. */
+    public static final String STREAM_HEARTBEAT_PARAM = "streamHeartbeat";
+    /**
+     * Rechargement à chaud des routes : "reloadEndpoint"=true ouvre POST
+     * RELOAD_PATH, "reloadWatch"=true surveille le répertoire de classes
+     * ("reloadClassesDir", par défaut WEB-INF/classes). Pour le développement.
+     */
+    public static final String RELOAD_ENDPOINT_PARAM = "reloadEndpoint";
+    public static final String RELOAD_WATCH_PARAM = "reloadWatch";
+    public static final String RELOAD_CLASSES_DIR_PARAM = "reloadClassesDir";
+    public static final String RELOAD_PATH = "/__reload";
+    /**
+     * Lot d'appels : "batchEndpoint"=true ouvre POST BATCH_PATH (voir
+     * {@link BatchHandler}), "batchMaxCalls" borne le nombre d'appels d'un lot
+     * et "batchTimeout" (ms) le délai de chacun.
+     */
+    public static final String BATCH_ENDPOINT_PARAM = "batchEndpoint";
+    public static final String BATCH_MAX_CALLS_PARAM = "batchMaxCalls";
+    public static final String BATCH_TIMEOUT_PARAM = "batchTimeout";
+    public static final String BATCH_PATH = "/__batch";
+    /**
+     * Fichiers statiques des GET / HEAD sans route : "staticResources"=false
+     * pour les laisser au conteneur, "staticRoots" (par défaut "/", la webapp ;
+     * "/prefixe=/répertoire" pour un répertoire du disque), "staticCacheBytes"
+     * et "staticCacheFileSize" (octets gardés en mémoire, au total et par
+     * fichier), "staticCheckInterval" (ms entre deux lectures des dates sur le
+     * disque) et "staticMaxAge" (Cache-Control, s).
+     */
+    public static final String STATIC_RESOURCES_PARAM = "staticResources";
+    public static final String STATIC_ROOTS_PARAM = "staticRoots";
+    public static final String STATIC_CACHE_BYTES_PARAM = "staticCacheBytes";
+    public static final String STATIC_CACHE_FILE_SIZE_PARAM = "staticCacheFileSize";
+    public static final String STATIC_CHECK_INTERVAL_PARAM = "staticCheckInterval";
+    public static final String STATIC_MAX_AGE_PARAM = "staticMaxAge";
+    /**
+     * Vues : "templateSuffix" (par défaut ".tpl", vide : pas de gabarits)
+     * désigne les vues rendues par {@link Template} ; "viewCheckInterval"
+     * (ms) espace les vérifications de date des .html et gabarits.
+     */
+    public static final String TEMPLATE_SUFFIX_PARAM = "templateSuffix";
+    public static final String VIEW_CHECK_INTERVAL_PARAM = "viewCheckInterval";
+
     private RequestDispatcher defaultDispatcher;
-    private MyScanner controllerScanner;
+    private ClassLoader appClassLoader;
+    private java.nio.file.Path reloadClassesDir; // null : rechargement sans relire les classes
+    private ReloadWatcher reloadWatcher;
+    private boolean reloadEndpoint;
+    private boolean metricsJmx;
+    private long maxUploadFileSize;    // -1 : illimité
+    private long maxUploadRequestSize; // -1 : illimité
+    private long maxBodySize;          // -1 : illimité
+    private boolean asyncByDefault;
+    private long asyncTimeout;
+    private int asyncMaxConcurrent;
+    private int concurrencyLimit;        // 0 : illimité
+    private int concurrencyQueue;
+    private long concurrencyQueueTimeout;
+    private boolean concurrencyAdaptive;
+    private long retryAfter;
+    private ExecutorService asyncExecutor; // créé au premier appel asynchrone
+    private long streamHeartbeat;
+    private ScheduledExecutorService streamScheduler; // un seul thread pour tous les flux ouverts
+    private volatile ResponseCache responseCache; // créé si au moins une route est @Cacheable
+    private Compression compression;     // null : désactivée
+    private StaticResources staticResources; // null : laissés au conteneur
+    private ViewResolver viewResolver;
+    private BatchHandler batchHandler; // null : pas de point d'entrée de lot
+    private final java.util.concurrent.atomic.LongAdder notFound = new java.util.concurrent.atomic.LongAdder();
+    private final List<javax.management.ObjectName> registeredMBeans = new ArrayList<>();
+    private boolean metricsEndpoint;
+    private boolean metricsPhases;
 
-    // URL → (HTTP method → Method Java)
-    private final Map<String, Map<String, Method>> urlToHttpMethod = new HashMap<>();
-    private final Map<Method, Object> methodInstances = new HashMap<>(); // Méthode → instance du contrôleur
+    // Table des routes figée, remplacée d'un bloc par reload() : aucune lecture ne prend de verrou
+    private final java.util.concurrent.atomic.AtomicReference<RouteTable> routes =
+        new java.util.concurrent.atomic.AtomicReference<>();
 
     @Override
     public void init() throws ServletException {
         defaultDispatcher = getServletContext().getNamedDispatcher("default");
-        controllerScanner = new MyScanner();
+        appClassLoader = Thread.currentThread().getContextClassLoader();
+        maxUploadFileSize = getConfigLong(MAX_UPLOAD_FILE_SIZE_PARAM, -1);
+        maxUploadRequestSize = getConfigLong(MAX_UPLOAD_REQUEST_SIZE_PARAM, -1);
+        maxBodySize = getConfigLong(MAX_BODY_SIZE_PARAM, 1024 * 1024);
+        asyncByDefault = Boolean.parseBoolean(getConfig(ASYNC_PARAM));
+        asyncTimeout = getConfigLong(ASYNC_TIMEOUT_PARAM, 30000);
+        asyncMaxConcurrent = (int) getConfigLong(ASYNC_MAX_CONCURRENT_PARAM, 0);
+        concurrencyLimit = (int) getConfigLong(CONCURRENCY_LIMIT_PARAM, 0);
+        concurrencyQueue = (int) getConfigLong(CONCURRENCY_QUEUE_PARAM, 0);
+        concurrencyQueueTimeout = getConfigLong(CONCURRENCY_QUEUE_TIMEOUT_PARAM, 1000);
+        concurrencyAdaptive = Boolean.parseBoolean(getConfig(CONCURRENCY_ADAPTIVE_PARAM));
+        retryAfter = getConfigLong(RETRY_AFTER_PARAM, 1);
+        streamHeartbeat = getConfigLong(STREAM_HEARTBEAT_PARAM, 15000);
+        metricsEndpoint = Boolean.parseBoolean(getConfig(METRICS_ENDPOINT_PARAM));
+        metricsPhases = !"false".equalsIgnoreCase(getConfig(METRICS_PHASES_PARAM));
+        if (!"false".equalsIgnoreCase(getConfig(COMPRESSION_PARAM))) {
+            compression = new Compression((int) getConfigLong(COMPRESSION_THRESHOLD_PARAM, 1024),
+                                          (int) getConfigLong(COMPRESSION_LEVEL_PARAM, 6));
+        }
+        String templateSuffix = getConfig(TEMPLATE_SUFFIX_PARAM);
+        if (templateSuffix == null) templateSuffix = ".tpl";
+        if (!"false".equalsIgnoreCase(getConfig(STATIC_RESOURCES_PARAM))) {
+            String roots = getConfig(STATIC_ROOTS_PARAM);
+            staticResources = new StaticResources(getServletContext(), (roots != null) ? roots : "/",
+                                                  (int) getConfigLong(STATIC_CACHE_FILE_SIZE_PARAM, 64 * 1024),
+                                                  getConfigLong(STATIC_CACHE_BYTES_PARAM, 16L * 1024 * 1024),
+                                                  getConfigLong(STATIC_CHECK_INTERVAL_PARAM, 2000),
+                                                  getConfigLong(STATIC_MAX_AGE_PARAM, -1), templateSuffix);
+        }
+        viewResolver = new ViewResolver(getServletContext(), templateSuffix,
+                                        getConfigLong(VIEW_CHECK_INTERVAL_PARAM, 2000));
+
+        if (Boolean.parseBoolean(getConfig(BATCH_ENDPOINT_PARAM))) {
+            batchHandler = new BatchHandler(this::serveCall, this::usesSession, this::getAsyncExecutor, BATCH_PATH,
+                                            (int) getConfigLong(BATCH_MAX_CALLS_PARAM, 50),
+                                            getConfigLong(BATCH_TIMEOUT_PARAM, 5000), maxBodySize);
+        }
+
+        initReload();
 
         try {
-            controllerScanner.scanControllersFromPackage("nofy.p17");
+            routes.set(buildRouteTable(new MyScanner(newClassLoader()), null));
+        } catch (Exception e) {
+            throw new ServletException("Erreur lors de l'initialisation des contrôleurs", e);
+        }
 
-            for (Class<?> controllerClass : controllerScanner.getControllers()) {
-                Controller ctrlAnn = controllerClass.getAnnotation(Controller.class);
-                String baseUrl = (ctrlAnn != null) ? ctrlAnn.value() : "";
+        metricsJmx = !"false".equalsIgnoreCase(getConfig(METRICS_JMX_PARAM));
+        if (metricsJmx) registerMBeans(routes.get());
+        if (reloadWatcher != null) reloadWatcher.start();
+    }
 
-                Object controllerInstance = controllerClass.getDeclaredConstructor().newInstance();
+    /**
+     * Scanne les contrôleurs et compile leurs routes dans une nouvelle table.
+     * previous : table remplacée (métriques reprises), null au démarrage.
+     */
+    private RouteTable buildRouteTable(MyScanner scanner, RouteTable previous) throws Exception {
+        // Index précalculé au build (MyScanner.main) sur demande, scan du bytecode pour le reste
+        List<String> packages = new ArrayList<>(getBasePackages());
+        if (reloadClassesDir == null && Boolean.parseBoolean(getConfig(CONTROLLER_INDEX_PARAM))) {
+            packages.removeAll(scanner.scanControllersFromIndex(packages));
+        }
+        if (!packages.isEmpty()) scanner.scanControllersFromPackages(packages);
 
-                for (Method method : controllerClass.getDeclaredMethods()) {
-                    // GET
-                    if (method.isAnnotationPresent(GetMapping.class)) {
-                        String url = method.getAnnotation(GetMapping.class).value();
-                        registerUrl(baseUrl + url, "GET", method, controllerInstance);
-                    }
-                    // POST
-                    if (method.isAnnotationPresent(PostMapping.class)) {
-                        String url = method.getAnnotation(PostMapping.class).value();
-                        registerUrl(baseUrl + url, "POST", method, controllerInstance);
-                    }
-                    // MyMap fallback
-                    if (method.isAnnotationPresent(MyMap.class)) {
-                        String url = method.getAnnotation(MyMap.class).url();
-                        registerUrl(baseUrl + url, "GET", method, controllerInstance);
-                        registerUrl(baseUrl + url, "POST", method, controllerInstance);
-                    }
+        RouteTable.Builder table = new RouteTable.Builder(previous);
+        for (Class<?> controllerClass : scanner.getControllers()) {
+            Controller ctrlAnn = controllerClass.getAnnotation(Controller.class);
+            String baseUrl = (ctrlAnn != null) ? ctrlAnn.value() : "";
+
+            Object controllerInstance = controllerClass.getDeclaredConstructor().newInstance();
+
+            for (Method method : controllerClass.getDeclaredMethods()) {
+                // GET
+                if (method.isAnnotationPresent(GetMapping.class)) {
+                    String url = method.getAnnotation(GetMapping.class).value();
+                    registerUrl(table, baseUrl + url, "GET", method, controllerInstance);
+                }
+                // POST
+                if (method.isAnnotationPresent(PostMapping.class)) {
+                    String url = method.getAnnotation(PostMapping.class).value();
+                    registerUrl(table, baseUrl + url, "POST", method, controllerInstance);
+                }
+                // MyMap fallback
+                if (method.isAnnotationPresent(MyMap.class)) {
+                    String url = method.getAnnotation(MyMap.class).url();
+                    registerUrl(table, baseUrl + url, "GET", method, controllerInstance);
+                    registerUrl(table, baseUrl + url, "POST", method, controllerInstance);
                 }
             }
+        }
+        return table.build(scanner.getScanStats());
+    }
+
+    private void initReload() throws ServletException {
+        reloadEndpoint = Boolean.parseBoolean(getConfig(RELOAD_ENDPOINT_PARAM));
+        boolean watch = Boolean.parseBoolean(getConfig(RELOAD_WATCH_PARAM));
+        if (!reloadEndpoint && !watch) return;
+
+        String dir = getConfig(RELOAD_CLASSES_DIR_PARAM);
+        if (dir == null) dir = getServletContext().getRealPath("/WEB-INF/classes"); // null dans un WAR non déployé
+        if (dir != null && java.nio.file.Files.isDirectory(java.nio.file.Paths.get(dir))) {
+            reloadClassesDir = java.nio.file.Paths.get(dir).toAbsolutePath();
+        }
+        if (watch) {
+            if (reloadClassesDir == null) throw new ServletException("reloadWatch : aucun répertoire de classes à surveiller");
+            try {
+                reloadWatcher = new ReloadWatcher(reloadClassesDir, 500, this::reloadQuietly);
+            } catch (IOException e) {
+                throw new ServletException("Surveillance impossible de " + reloadClassesDir, e);
+            }
+        }
+    }
+
+    /**
+     * Reconstruit la table des routes (classes relues depuis le répertoire de
+     * classes s'il est connu) et la publie d'un coup. Les requêtes en cours
+     * terminent sur l'ancienne table ; en cas d'erreur, elle reste en place.
+     * Le cache de réponses est vidé : il contient des rendus des anciens contrôleurs.
+     */
+    public synchronized RouteTable reload() throws Exception {
+        RouteTable previous = routes.get();
+        RouteTable table = buildRouteTable(new MyScanner(newClassLoader()), previous);
+        routes.set(table);
+
+        ResponseCache cache = responseCache;
+        if (cache != null) cache.clear();
+        viewResolver.clear();
+        if (metricsJmx) {
+            unregisterMBeans();
+            registerMBeans(table);
+        }
+        log("Routes rechargées : " + table.size() + " (avant : " + previous.size() + ")");
+        return table;
+    }
+
+    // Rechargeable : les classes du répertoire surveillé sont lues par un chargeur propre à chaque table
+    private ClassLoader newClassLoader() throws ServletException {
+        if (reloadClassesDir == null) return appClassLoader;
+        try {
+            return new ReloadingClassLoader(reloadClassesDir, appClassLoader);
+        } catch (java.net.MalformedURLException e) {
+            throw new ServletException(e);
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
         } catch (Exception e) {
-            throw new ServletException("Erreur lors de l'initialisation des contrôleurs", e);
+            log("Rechargement des routes échoué, ancienne table conservée", e);
         }
     }
 
-    private void registerUrl(String url, String httpMethod, Method method, Object instance) {
-        urlToHttpMethod.computeIfAbsent(url, k -> new HashMap<>())
-                       .put(httpMethod.toUpperCase(), method);
-        methodInstances.put(method, instance);
+    // POST RELOAD_PATH : rechargement à la demande, compte rendu en texte
+    private void handleReload(HttpServletRequest req, HttpServletResponse res) throws IOException {
+        if (!"POST".equalsIgnoreCase(req.getMethod())) {
+            res.setHeader("Allow", "POST");
+            res.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        res.setContentType("text/plain;charset=UTF-8");
+        try {
+            RouteTable table = reload();
+            try (PrintWriter out = res.getWriter()) {
+                out.println(table.size() + " routes");
+            }
+        } catch (Exception e) {
+            log("Rechargement des routes échoué, ancienne table conservée", e);
+            res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            try (PrintWriter out = res.getWriter()) {
+                out.println("Rechargement échoué, ancienne table conservée : " + e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (reloadWatcher != null) reloadWatcher.close();
+        if (asyncExecutor != null) asyncExecutor.shutdown();
+        if (streamScheduler != null) streamScheduler.shutdownNow();
+        unregisterMBeans();
+        RequestContext.clear();
+        super.destroy();
+    }
+
+    /**
+     * Packages à scanner : init-param (ou context-param) "basePackages",
+     * séparés par des virgules. Par défaut "nofy.p17".
+     */
+    private List<String> getBasePackages() {
+        String value = getConfig(BASE_PACKAGES_PARAM);
+        if (value == null || value.trim().isEmpty()) return Collections.singletonList("nofy.p17");
+
+        List<String> packages = new ArrayList<>();
+        for (String pkg : value.split("[,\\s]+")) {
+            if (!pkg.isEmpty()) packages.add(pkg);
+        }
+        return packages;
+    }
+
+    // Init-param du servlet, sinon context-param du même nom
+    private String getConfig(String name) {
+        String value = getInitParameter(name);
+        return (value != null) ? value : getServletContext().getInitParameter(name);
+    }
+
+    private long getConfigLong(String name, long defaultValue) {
+        String value = getConfig(name);
+        return (value == null || value.trim().isEmpty()) ? defaultValue : Long.parseLong(value.trim());
+    }
+
+    private void registerUrl(RouteTable.Builder table, String url, String httpMethod, Method method, Object instance) throws Exception {
+        table.register(url, httpMethod, compileInvoker(method, instance, url, httpMethod, table.metricsFor(url, httpMethod)));
+    }
+
+    // Un MBean par route et verbe : nofy.p17:type=Route,context=...,servlet=...,route="GET /x/{id}"
+    private synchronized void registerMBeans(RouteTable table) {
+        javax.management.MBeanServer server = java.lang.management.ManagementFactory.getPlatformMBeanServer();
+        String context = getServletContext().getContextPath();
+        for (RouteMetrics metrics : table.getMetrics()) {
+            try {
+                javax.management.ObjectName name = new javax.management.ObjectName("nofy.p17:type=Route"
+                    + ",context=" + javax.management.ObjectName.quote(context == null || context.isEmpty() ? "/" : context)
+                    + ",servlet=" + javax.management.ObjectName.quote(getServletName())
+                    + ",route=" + javax.management.ObjectName.quote(metrics.getHttpMethod() + " " + metrics.getRoute()));
+                if (server.isRegistered(name)) server.unregisterMBean(name); // rechargement de l'application
+                server.registerMBean(metrics, name);
+                registeredMBeans.add(name);
+            } catch (Exception e) {
+                log("MBean non enregistré pour " + metrics.getRoute(), e);
+            }
+        }
+    }
+
+    private synchronized void unregisterMBeans() {
+        javax.management.MBeanServer server = java.lang.management.ManagementFactory.getPlatformMBeanServer();
+        for (javax.management.ObjectName name : registeredMBeans) {
+            try {
+                server.unregisterMBean(name);
+            } catch (Exception e) {
+                // déjà retiré
+            }
+        }
+        registeredMBeans.clear();
+    }
+
+    // Page Prometheus : routes, cache, scan
+    private void writeMetrics(HttpServletResponse res) throws IOException {
+        res.setContentType(PrometheusExporter.CONTENT_TYPE);
+        try (PrintWriter out = res.getWriter()) {
+            RouteTable table = routes.get();
+            PrometheusExporter.write(out, table.getMetrics(), notFound.sum(), responseCache, table.getScanStats());
+        }
     }
 
     @Override
     protected void service(HttpServletRequest req, HttpServletResponse res) throws ServletException, IOException {
         String path = req.getRequestURI().substring(req.getContextPath().length());
-        String methodType = req.getMethod().toUpperCase();
 
         customServe(req, res, path);
     }
 
-    private void customServe(HttpServletRequest req, HttpServletResponse res, String path) throws IOException {
+    private void customServe(HttpServletRequest req, HttpServletResponse res, String path)
+            throws IOException, ServletException {
+        long start = System.nanoTime();
         String httpMethod = req.getMethod().toUpperCase();
 
-        Method targetMethod = null;
-        Map<String, String> pathParams = new HashMap<>();
-
-        // Parcourir toutes les URL pour matcher les patterns
-        for (Map.Entry<String, Map<String, Method>> entry : urlToHttpMethod.entrySet()) {
-            String pattern = entry.getKey();
-            if (UrlMatcher.matches(pattern, path)) {
-                Map<String, Method> methodMap = entry.getValue();
-                targetMethod = methodMap.get(httpMethod);
-                pathParams = UrlMatcher.extractParameters(pattern, path);
-                break;
-            }
+        if (metricsEndpoint && path.equals(METRICS_PATH)) {
+            writeMetrics(res);
+            return;
+        }
+        if (reloadEndpoint && path.equals(RELOAD_PATH)) {
+            handleReload(req, res);
+            return;
+        }
+        if (batchHandler != null && path.equals(BATCH_PATH)) {
+            batchHandler.handle(req, res);
+            return;
         }
 
-        if (targetMethod == null) {
+        serveCall(req, res, path, httpMethod, start);
+    }
+
+    // Appel d'une route : requête du conteneur ou sous-appel d'un lot
+    private void serveCall(HttpServletRequest req, HttpServletResponse res, String path)
+            throws IOException, ServletException {
+        serveCall(req, res, path, req.getMethod().toUpperCase(), System.nanoTime());
+    }
+
+    // Sous-appel d'un lot : la route trouvée reçoit-elle la session ?
+    private boolean usesSession(String httpMethod, String path) {
+        Router.RouteMatch<HandlerInvoker> match = routes.get().match(path);
+        HandlerInvoker invoker = (match != null) ? match.getHandler(httpMethod) : null;
+        return invoker != null && invoker.usesSession();
+    }
+
+    private void serveCall(HttpServletRequest req, HttpServletResponse res, String path, String httpMethod, long start)
+            throws IOException, ServletException {
+        // Résultat de recherche réutilisé par thread (copié s'il part sur un autre thread)
+        Router.RouteMatch<HandlerInvoker> match = RequestContext.borrowMatch();
+        try {
+            serveRoute(req, res, path, httpMethod, match, start);
+        } finally {
+            RequestContext.release(match);
+        }
+    }
+
+    private void serveRoute(HttpServletRequest req, HttpServletResponse res, String path, String httpMethod,
+                            Router.RouteMatch<HandlerInvoker> match, long start)
+            throws IOException, ServletException {
+        HandlerInvoker invoker = null;
+
+        // Recherche dans l'arbre : statique d'abord, puis {param}
+        if (routes.get().match(path, match)) {
+            invoker = match.getHandler(httpMethod);
+        }
+
+        if (invoker == null && ("GET".equals(httpMethod) || "HEAD".equals(httpMethod))) {
+            if (serveStatic(req, res, path)) return;
+        }
+
+        if (invoker == null) {
+            notFound.increment();
             res.setStatus(HttpServletResponse.SC_NOT_FOUND);
             try (PrintWriter out = res.getWriter()) {
                 out.println("<h1>404 Not Found</h1>");
-                out.println("<p>Aucune route correspondante pour " + path + " [" + httpMethod + "]</p>");
+                out.println("<p>Aucune route correspondante pour " + escapeHtml(path) + " [" + escapeHtml(httpMethod) + "]</p>");
             }
             return;
-        }try {
-            Object controllerInstance = methodInstances.get(targetMethod);
-            
-            // --- MODIFICATION ICI ---
-            Object result = invokeMethodWithParams(targetMethod, controllerInstance, req, res, pathParams);
-            handleControllerResult(result, req, res, targetMethod); // Passer targetMethod
-            // ------------------------
-            
-        } catch (Exception e) {
-            
         }
 
+        RouteMetrics metrics = invoker.getMetrics();
+        metrics.record(RouteMetrics.Phase.MATCH, System.nanoTime() - start);
+
         try {
-            Object controllerInstance = methodInstances.get(targetMethod);
-            Object result = invokeMethodWithParams(targetMethod, controllerInstance, req, res, pathParams);
-            handleControllerResult(result, req, res,targetMethod);
-        } catch (Exception e) {
-            res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-            try (PrintWriter out = res.getWriter()) {
-                out.println("<h1>500 Internal Server Error</h1>");
-                out.println("<p>" + e.getMessage() + "</p>");
-                e.printStackTrace(out);
+            if (invoker.getCache() != null && "GET".equals(httpMethod)) {
+                serveCacheable(invoker, req, res, match); // admission des seuls appels au contrôleur
+            } else if (admit(invoker, res)) {
+                long admitted = System.nanoTime();
+                if (invoker.isAsync() && req.isAsyncSupported()) {
+                    serveAsync(invoker, req, res, match, admitted); // place rendue par la tâche elle-même
+                } else {
+                    try {
+                        serve(invoker, req, res, match);
+                    } finally {
+                        releaseAfter(invoker, req, admitted);
+                    }
+                }
+            }
+        } finally {
+            // Réponse asynchrone : durée totale mesurée à la fin de l'échange
+            AsyncExchange exchange = AsyncExchange.of(req);
+            if (exchange != null) {
+                exchange.onComplete(() -> metrics.recordRequest(System.nanoTime() - start, res.getStatus()));
+            } else {
+                metrics.recordRequest(System.nanoTime() - start, res.getStatus());
             }
         }
     }
 
-    private Object invokeMethodWithParams(Method method,
-                                          Object controllerInstance,
-                                          HttpServletRequest req,
-                                          HttpServletResponse res,
-                                          Map<String, String> pathParams) throws Exception {
+    /**
+     * Place prise dans la limite de la route (après une attente éventuelle
+     * dans sa file) ; false : 503 avec Retry-After déjà envoyé.
+     */
+    private boolean admit(HandlerInvoker invoker, HttpServletResponse res) throws IOException {
+        ConcurrencyLimiter limiter = invoker.getLimiter();
+        if (limiter == null || limiter.acquire()) return true;
+        invoker.getMetrics().recordRejected();
+        res.setHeader("Retry-After", Long.toString(invoker.getRetryAfter()));
+        sendUnavailable(res, "Trop de requêtes simultanées sur cette route");
+        return false;
+    }
 
-        Class<?>[] paramTypes = method.getParameterTypes();
-        java.lang.reflect.Parameter[] parameters = method.getParameters();
-        Object[] args = new Object[paramTypes.length];
-
-        for (int i = 0; i < paramTypes.length; i++) {
-            Class<?> paramType = paramTypes[i];
-            java.lang.reflect.Parameter parameter = parameters[i];
-            String paramName = null;
-            String paramValue = null;
-
-            // HttpServletRequest / HttpServletResponse
-            if (paramType.equals(HttpServletRequest.class)) {
-                args[i] = req;
-                continue;
-            } else if (paramType.equals(HttpServletResponse.class)) {
-                args[i] = res;
-                continue;
+    // Place rendue à la fin de la réponse, asynchrone comprise
+    private static void releaseAfter(HandlerInvoker invoker, HttpServletRequest req, long admitted) {
+        ConcurrencyLimiter limiter = invoker.getLimiter();
+        if (limiter == null) return;
+        AsyncExchange exchange = AsyncExchange.of(req);
+        if (exchange != null) exchange.onComplete(() -> limiter.release(System.nanoTime() - admitted));
+        else limiter.release(System.nanoTime() - admitted);
+    }
+
+    private static void release(HandlerInvoker invoker, long admitted) {
+        ConcurrencyLimiter limiter = invoker.getLimiter();
+        if (limiter != null) limiter.release(System.nanoTime() - admitted);
+    }
+
+    // Un seul passage dans le contrôleur, un seul chemin d'erreur
+    private void serve(HandlerInvoker invoker, HttpServletRequest req, HttpServletResponse res,
+                       Router.RouteMatch<HandlerInvoker> match) throws IOException {
+        Object result = null;
+        try {
+            result = dispatch(invoker, req, res, match);
+            if (result instanceof CompletionStage && !req.isAsyncSupported()) {
+                result = join((CompletionStage<?>) result, deferredTimeout(result, invoker)); // conteneur sans async : on attend ici
             }
-            if (Map.class.isAssignableFrom(paramType) && isStringByteArrayMap(parameter)) {
-                if (req.getContentType() != null && req.getContentType().startsWith("multipart/form-data")) {
-                    Map<String, byte[]> fileMap = new HashMap<>();
-
-                    // Extraction des fichiers
-                    for (jakarta.servlet.http.Part part : req.getParts()) {
-                        String fileName = part.getSubmittedFileName();
-                        if (fileName != null && !fileName.isEmpty()) {
-                            // On utilise le nom du fichier comme clé et le contenu comme valeur
-                            byte[] fileContent = part.getInputStream().readAllBytes();
-                            fileMap.put(fileName, fileContent);
-                        }
+        } catch (java.util.concurrent.TimeoutException e) {
+            // Même réponse que le délai d'un échange asynchrone
+            sendUnavailable(res, "Délai dépassé (" + deferredTimeout(result, invoker) + " ms)");
+            return;
+        } catch (Throwable e) {
+            renderError(e, res);
+            return;
+        }
+
+        if (isDeferred(result)) {
+            serveDeferred(result, invoker, req, res);
+            return;
+        }
+        render(result, invoker, req, res);
+    }
+
+    private long deferredTimeout(Object result, HandlerInvoker invoker) {
+        return (result instanceof ResponseEmitter) ? ((ResponseEmitter) result).getTimeout()
+             : invoker.isAsync() ? invoker.getAsyncTimeout() : asyncTimeout;
+    }
+
+    private void serveDeferred(Object result, HandlerInvoker invoker, HttpServletRequest req, HttpServletResponse res) {
+        long timeout = deferredTimeout(result, invoker);
+        AsyncExchange exchange = startExchange(req, res, timeout);
+        renderDeferred(result, invoker, exchange);
+        if (exchange.getContext() == null) awaitQuietly(exchange, res, timeout); // flux sans async
+    }
+
+    /**
+     * Route @Cacheable : entrée valide servie sans appeler le contrôleur. Sinon,
+     * une seule requête par clé rend la réponse (capturée puis conservée) ;
+     * les requêtes concurrentes sur la même clé attendent son résultat.
+     */
+    private void serveCacheable(HandlerInvoker invoker, HttpServletRequest req, HttpServletResponse res,
+                                Router.RouteMatch<HandlerInvoker> match) throws IOException {
+        ResponseCache cache = invoker.getCache();
+        String key = invoker.cacheKey(req, match);
+        ResponseCache.Entry entry = cache.get(key);
+
+        if (entry == null) {
+            ResponseCache.Flight flight = cache.begin(key);
+            if (flight.isLeader()) {
+                long admitted = 0;
+                try {
+                    if (!admit(invoker, res)) return; // les requêtes en attente de la clé tenteront leur chance
+                    admitted = System.nanoTime();
+                    entry = renderForCache(invoker, req, res, match);
+                } finally {
+                    flight.finish(entry);
+                    if (admitted != 0) releaseAfter(invoker, req, admitted);
+                }
+                if (entry == null) return; // réponse non conservable, déjà envoyée
+            } else {
+                entry = flight.await();
+                if (entry == null) { // le premier n'a rien pu conserver : appel normal
+                    if (!admit(invoker, res)) return;
+                    long admitted = System.nanoTime();
+                    try {
+                        serve(invoker, req, res, match);
+                    } finally {
+                        releaseAfter(invoker, req, admitted);
                     }
-                    args[i] = fileMap;
-                    continue;
+                    return;
                 }
             }
-                if (parameter.isAnnotationPresent(Session.class)) {
-    if (Map.class.isAssignableFrom(paramType)) {
-        // On récupère ou crée la session
-        jakarta.servlet.http.HttpSession session = req.getSession();
-        args[i] = createSessionMap(session);
-        continue;
-    } else {
-        throw new ServletException("L'annotation @Session ne peut être utilisée que sur un type Map<String, Object>");
+        }
+        writeCached(entry, req, res);
+    }
+
+    // Entrée à conserver, ou null si la réponse a été envoyée directement (erreur, non-200, flux...)
+    private ResponseCache.Entry renderForCache(HandlerInvoker invoker, HttpServletRequest req, HttpServletResponse res,
+                                               Router.RouteMatch<HandlerInvoker> match) throws IOException {
+        // Le contrôleur reçoit déjà la réponse capturée : ses en-têtes la rendent non conservable
+        CapturingResponse capture = new CapturingResponse(res);
+        Object result;
+        try {
+            result = dispatch(invoker, req, capture, match);
+        } catch (Exception e) {
+            result = e;
+        }
+        if (isDeferred(result)) {
+            byte[] written = capture.toByteArray();
+            if (written.length > 0) res.getOutputStream().write(written);
+            serveDeferred(result, invoker, req, res);
+            return null;
+        }
+
+        if (result instanceof Exception) renderError((Exception) result, capture);
+        else render(result, invoker, req, capture);
+        byte[] body = capture.toByteArray();
+        if (capture.isCacheable()) {
+            return new ResponseCache.Entry(body, res.getContentType(), invoker.getCacheTtl(), compression);
+        }
+        if (body.length > 0) res.getOutputStream().write(body);
+        return null;
+    }
+
+    /**
+     * ETag sur chaque réponse servie depuis le cache ; If-None-Match correspondant :
+     * 304 sans corps. La version compressée stockée est envoyée telle quelle.
+     */
+    private void writeCached(ResponseCache.Entry entry, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        Compression.Deflated deflated = entry.getDeflated();
+        String encoding = (deflated != null) ? Compression.negotiate(req.getHeader("Accept-Encoding")) : null;
+        String etag = entry.getEtag(encoding);
+        if (deflated != null) res.addHeader("Vary", "Accept-Encoding");
+        res.setHeader("ETag", etag);
+        if (etagMatches(req.getHeader("If-None-Match"), etag)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        res.setStatus(HttpServletResponse.SC_OK);
+        if (entry.getContentType() != null) res.setContentType(entry.getContentType());
+        if (encoding != null) {
+            res.setHeader("Content-Encoding", encoding);
+            res.setContentLength(deflated.length(encoding));
+            deflated.writeTo(res.getOutputStream(), encoding);
+        } else {
+            res.setContentLength(entry.getBody().length);
+            res.getOutputStream().write(entry.getBody());
+        }
+    }
+
+    /**
+     * Fichier statique sous une racine configurée ; une ressource de la webapp
+     * absente du disque (WAR non déployé) passe au servlet "default" du conteneur.
+     */
+    private boolean serveStatic(HttpServletRequest req, HttpServletResponse res, String path)
+            throws IOException, ServletException {
+        if (staticResources == null) return false;
+        StaticResources.Result result = staticResources.serve(req, res, path);
+        if (result == StaticResources.Result.UNRESOLVED && defaultDispatcher != null) {
+            defaultDispatcher.forward(req, res);
+            return true;
+        }
+        return result == StaticResources.Result.SERVED;
+    }
+
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return false;
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) candidate = candidate.substring(2); // comparaison faible (RFC 9110)
+            if (candidate.equals("*") || candidate.equals(etag)) return true;
+        }
+        return false;
     }
-}
-            if (Map.class.isAssignableFrom(paramType)) {
-                Map<String, String[]> parameterMap = req.getParameterMap();
-                Map<String, Object> formMap = new HashMap<>(); 
-    
-                for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
-                        String key = entry.getKey();
-                        String[] values = entry.getValue();
 
-                if (values.length == 1) {
-                    // S'il y a une seule valeur (cas normal : texte, radio, checkbox simple)
-                    formMap.put(key, values[0]);
+    /**
+     * Libère le thread du conteneur : le contrôleur et le rendu s'exécutent sur
+     * l'exécuteur asynchrone. La limite de la route (admission) a déjà été
+     * vérifiée ; sa place est rendue quand la tâche se termine (contrôleur et
+     * rendu faits), pas à la fin de l'échange : un délai dépassé n'ouvre pas de
+     * place tant que le contrôleur tourne encore. Résultat différé (flux,
+     * CompletionStage) : la place suit l'échange, comme sur le thread du conteneur.
+     */
+    private void serveAsync(HandlerInvoker invoker, HttpServletRequest req, HttpServletResponse res,
+                            Router.RouteMatch<HandlerInvoker> match, long admitted) throws IOException {
+        boolean submitted = false;
+        try {
+            AsyncExchange exchange = startExchange(req, res, invoker.getAsyncTimeout());
 
-                } else if (values.length > 1) {
-                    // S'il y a plusieurs valeurs (cas : multiples checkboxes ou select multiple)
-                    formMap.put(key, values); // <-- Mettre le tableau de String[]
+            // Le thread du conteneur rend son résultat de recherche dès le retour
+            Router.RouteMatch<HandlerInvoker> taskMatch = match.copy();
+            Runnable task = () -> {
+                boolean deferred = false;
+                try {
+                    Object result;
+                    try {
+                        result = dispatch(invoker, req, res, taskMatch);
+                    } catch (Exception e) {
+                        result = e;
+                    }
+                    if (isDeferred(result)) {
+                        deferred = true;
+                        renderDeferred(result, invoker, exchange);
+                        return;
+                    }
+                    if (!exchange.beginRendering()) return; // délai dépassé
 
+                    if (result instanceof Exception) {
+                        renderError((Exception) result, res);
+                    } else {
+                        render(result, invoker, req, res);
+                    }
+                } catch (Exception e) {
+                    log("Erreur pendant le traitement asynchrone", e);
+                } finally {
+                    if (deferred) {
+                        exchange.onComplete(() -> release(invoker, admitted));
+                    } else {
+                        release(invoker, admitted); // avant la réponse : le client suivant trouve la place
+                        exchange.complete();
+                    }
+                }
+            };
+            try {
+                getAsyncExecutor().execute(task);
+                submitted = true;
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                if (exchange.beginRendering()) {
+                    sendUnavailable(res, "Exécuteur asynchrone indisponible");
                 }
-                // Si values.length == 0, on n'ajoute rien (ce cas n'arrive normalement pas 
-                // car la clé n'est pas dans parameterMap si aucune valeur n'est fournie)
+                exchange.complete();
+            }
+        } finally {
+            if (!submitted) release(invoker, admitted);
+        }
+    }
+
+    /**
+     * Passe la requête en mode asynchrone (si le conteneur le permet) : au-delà
+     * du délai, 503 si rien n'a encore été écrit, puis fin de l'échange.
+     */
+    private AsyncExchange startExchange(HttpServletRequest req, HttpServletResponse res, long timeout) {
+        AsyncExchange exchange = AsyncExchange.start(req, res, timeout);
+        if (exchange.getContext() != null) {
+            exchange.getContext().addListener(new AsyncListener() {
+                @Override
+                public void onTimeout(AsyncEvent event) throws IOException {
+                    timeOut(exchange, res, timeout);
                 }
+                @Override public void onComplete(AsyncEvent event) { }
+                @Override public void onError(AsyncEvent event) { exchange.complete(); }
+                @Override public void onStartAsync(AsyncEvent event) { }
+            });
+        }
+        return exchange;
+    }
 
-    args[i] = formMap;
-    continue;}
+    // Rendu normal, compressé si le client l'accepte (pas pour une réponse capturée par le cache)
+    private void render(Object result, HandlerInvoker invoker, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        String encoding = (compression != null && !(res instanceof CapturingResponse))
+                        ? Compression.negotiate(req.getHeader("Accept-Encoding")) : null;
+        CompressingResponse compressing = (encoding != null) ? new CompressingResponse(res, compression, encoding) : null;
+        long start = System.nanoTime();
+        try {
+            handleControllerResult(result, req, (compressing != null) ? compressing : res, invoker.getJson());
+        } catch (Exception e) {
+            renderError(e, (compressing != null) ? compressing : res);
+        } finally {
+            if (compressing != null) compressing.finish();
+            invoker.getMetrics().record(RouteMetrics.Phase.RENDER, System.nanoTime() - start);
+        }
+    }
 
-            if (!paramType.isPrimitive() && 
-                !paramType.equals(String.class) && 
-                !paramType.getName().startsWith("java.") &&
-                !paramType.getName().startsWith("jakarta.")) {
-                
-                try {
-                    Object pojoInstance = paramType.getDeclaredConstructor().newInstance();
-                    Map<String, String[]> parameterMap = req.getParameterMap();
-                    
-                    // APPEL À LA MÉTHODE QUI FAIT LE BINDING PAR RÉFLEXION (bindParametersToPojo)
-                    bindParametersToPojo(pojoInstance, parameterMap); 
-                    
-                    args[i] = pojoInstance;
+    // Résultats rendus plus tard, hors du thread du contrôleur
+    private static boolean isDeferred(Object result) {
+        return result instanceof CompletionStage || result instanceof Flow.Publisher
+            || result instanceof ResponseEmitter;
+    }
+
+    /**
+     * CompletionStage : rendu par le thread qui complète le futur.
+     * Flow.Publisher : éléments écrits au fil de l'eau (tableau JSON, ou NDJSON
+     * si le client l'accepte).
+     * ResponseEmitter / SseEmitter : flux ouvert, alimenté par le code applicatif.
+     */
+    private void renderDeferred(Object result, HandlerInvoker invoker, AsyncExchange exchange) {
+        HttpServletRequest req = exchange.getRequest();
+        HttpServletResponse res = exchange.getResponse();
+
+        if (result instanceof ResponseEmitter) {
+            ResponseEmitter emitter = (ResponseEmitter) result;
+            emitter.attach(exchange, getStreamScheduler(), getAsyncExecutor(), streamHeartbeat, errorRenderer(res));
+            return;
+        }
+        if (result instanceof Flow.Publisher) {
+            PublisherWriter writer = new PublisherWriter(exchange, invoker.getJson(), acceptsNdjson(req), errorRenderer(res));
+            try {
+                ((Flow.Publisher<?>) result).subscribe(writer);
+            } catch (RuntimeException e) {
+                writer.onError(e);
+            }
+            return;
+        }
+
+        ((CompletionStage<?>) result).whenComplete((value, error) -> {
+            if (error == null && isDeferred(value)) { // futur d'un Publisher...
+                renderDeferred(value, invoker, exchange);
+                return;
+            }
+            if (!exchange.beginRendering()) return; // délai dépassé
+            try {
+                if (error != null) renderError(unwrap(error), res);
+                else render(value, invoker, req, res);
+            } catch (IOException e) {
+                log("Erreur pendant le rendu d'un résultat différé", e);
+            } finally {
+                exchange.complete();
+            }
+        });
+    }
+
+    // Page d'erreur écrite hors du chemin normal (flux, futur)
+    private java.util.function.Consumer<Throwable> errorRenderer(HttpServletResponse res) {
+        return error -> {
+            try {
+                renderError(error, res);
+            } catch (IOException ignored) {
+                // client parti
+            }
+        };
+    }
+
+    private ResponseCache getResponseCache() {
+        if (responseCache == null) {
+            responseCache = new ResponseCache((int) getConfigLong(CACHE_MAX_ENTRIES_PARAM, 10000),
+                                              getConfigLong(CACHE_MAX_BYTES_PARAM, 64L * 1024 * 1024));
+            getServletContext().setAttribute(RESPONSE_CACHE_ATTRIBUTE, responseCache);
+        }
+        return responseCache;
+    }
+
+    private synchronized ScheduledExecutorService getStreamScheduler() {
+        if (streamScheduler == null) {
+            java.util.concurrent.ScheduledThreadPoolExecutor scheduler = new java.util.concurrent.ScheduledThreadPoolExecutor(1, task -> {
+                Thread thread = new Thread(task, "nofy-stream-heartbeat");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.setRemoveOnCancelPolicy(true); // connexions fermées retirées de la file tout de suite
+            streamScheduler = scheduler;
+        }
+        return streamScheduler;
+    }
+
+    /**
+     * Paramètre déclaré HashMap, TreeMap... : copie des paramètres dans une
+     * instance du type demandé (HashMap si le type l'accepte), que le
+     * contrôleur peut garder au-delà de la requête.
+     */
+    @SuppressWarnings("unchecked")
+    private static HandlerInvoker.ArgumentResolver formMapCopy(Class<?> paramType) throws ServletException {
+        if (paramType.isAssignableFrom(HashMap.class)) {
+            return (req, res, match) -> new HashMap<>(new FormMap(req.getParameterMap()));
+        }
+        java.lang.reflect.Constructor<?> constructor;
+        try {
+            constructor = paramType.getConstructor();
+        } catch (NoSuchMethodException e) {
+            throw new ServletException("Type Map sans constructeur public sans argument : " + paramType.getName());
+        }
+        if (java.lang.reflect.Modifier.isAbstract(paramType.getModifiers())) {
+            throw new ServletException("Type Map abstrait non pris en charge : " + paramType.getName());
+        }
+        return (req, res, match) -> {
+            Map<String, Object> copy = (Map<String, Object>) constructor.newInstance();
+            copy.putAll(new FormMap(req.getParameterMap()));
+            return copy;
+        };
+    }
+
+    // Attente bornée par le délai asynchrone (0 ou moins : sans limite) ; au-delà, TimeoutException
+    private static Object join(CompletionStage<?> stage, long timeoutMillis) throws Throwable {
+        java.util.concurrent.CompletableFuture<?> future = stage.toCompletableFuture();
+        try {
+            return (timeoutMillis > 0) ? future.get(timeoutMillis, java.util.concurrent.TimeUnit.MILLISECONDS) : future.get();
+        } catch (java.util.concurrent.ExecutionException e) {
+            throw unwrap(e);
+        } catch (java.util.concurrent.TimeoutException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof java.util.concurrent.CompletionException
+                || error instanceof java.util.concurrent.ExecutionException) && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * Délai dépassé : 503 si le contrôleur n'a pas commencé à écrire ; un flux
+     * ouvert est terminé (il s'arrête au prochain élément). Un rendu en cours
+     * n'est pas interrompu : il terminera l'échange lui-même (false).
+     */
+    private boolean timeOut(AsyncExchange exchange, HttpServletResponse res, long timeout) throws IOException {
+        if (exchange.beginTimeout()) {
+            try {
+                sendUnavailable(res, "Délai dépassé (" + timeout + " ms)");
+            } finally {
+                exchange.complete();
+            }
+            return true;
+        }
+        if (!exchange.isStreaming()) return false;
+        exchange.complete();
+        return true;
+    }
+
+    // Mode bloquant : la réponse ne doit pas être rendue au conteneur pendant un rendu en cours
+    private void awaitQuietly(AsyncExchange exchange, HttpServletResponse res, long timeout) {
+        try {
+            if (!exchange.await(timeout) && !timeOut(exchange, res, timeout)) exchange.await(0);
+        } catch (IOException e) {
+            exchange.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static boolean acceptsNdjson(HttpServletRequest req) {
+        String accept = req.getHeader("Accept");
+        return accept != null && (accept.contains(PublisherWriter.NDJSON) || accept.contains("application/ndjson"));
+    }
+
+    // Les messages reprennent des valeurs envoyées par le client : toujours échappés
+    private void renderError(Throwable e, HttpServletResponse res) throws IOException {
+        if (e instanceof PayloadTooLargeException) {
+            res.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+            try (PrintWriter out = res.getWriter()) {
+                out.println("<h1>413 Payload Too Large</h1>");
+                out.println("<p>" + escapeHtml(e.getMessage()) + "</p>");
+            }
+            return;
+        }
+        if (e instanceof UnsupportedMediaTypeException) {
+            res.setStatus(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE);
+            try (PrintWriter out = res.getWriter()) {
+                out.println("<h1>415 Unsupported Media Type</h1>");
+                out.println("<p>" + escapeHtml(e.getMessage()) + "</p>");
+            }
+            return;
+        }
+        if (e instanceof BadRequestException) {
+            res.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            try (PrintWriter out = res.getWriter()) {
+                out.println("<h1>400 Bad Request</h1>");
+                out.println("<p>" + escapeHtml(e.getMessage()) + "</p>");
+            }
+            return;
+        }
+        res.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        java.io.StringWriter trace = new java.io.StringWriter();
+        e.printStackTrace(new PrintWriter(trace));
+        try (PrintWriter out = res.getWriter()) {
+            out.println("<h1>500 Internal Server Error</h1>");
+            out.println("<p>" + escapeHtml(e.getMessage()) + "</p>");
+            out.print(escapeHtml(trace.toString()));
+        }
+    }
+
+    private static String escapeHtml(String text) {
+        if (text == null) return "";
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String entity;
+            switch (c) {
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                case '&': entity = "&amp;"; break;
+                case '"': entity = "&quot;"; break;
+                case '\'': entity = "&#39;"; break;
+                default:
+                    if (escaped != null) escaped.append(c);
                     continue;
-                    
-                } catch (NoSuchMethodException e) {
-                    throw new ServletException("La classe argument " + paramType.getName() + " doit avoir un constructeur sans argument pour le binding.", e);
-                }
             }
-            // Path params
-            if (pathParams.containsKey(parameter.getName())) {
-                paramName = parameter.getName();
-                paramValue = pathParams.get(paramName);
+            if (escaped == null) escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            escaped.append(entity);
+        }
+        return (escaped != null) ? escaped.toString() : text;
+    }
+
+    private void sendUnavailable(HttpServletResponse res, String message) throws IOException {
+        res.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        res.setContentType("text/html;charset=UTF-8");
+        try (PrintWriter out = res.getWriter()) {
+            out.println("<h1>503 Service Unavailable</h1>");
+            out.println("<p>" + escapeHtml(message) + "</p>");
+        }
+    }
+
+    /**
+     * Threads virtuels si le JDK les fournit (21+), sinon pool de threads démons.
+     */
+    private synchronized ExecutorService getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            try {
+                asyncExecutor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                AtomicInteger counter = new AtomicInteger();
+                asyncExecutor = Executors.newCachedThreadPool(task -> {
+                    Thread thread = new Thread(task, "nofy-async-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+        return asyncExecutor;
+    }
+
+    private Object dispatch(HandlerInvoker invoker, HttpServletRequest req, HttpServletResponse res,
+                            Router.RouteMatch<HandlerInvoker> match) throws Exception {
+        Integer count = (Integer) req.getAttribute(DISPATCH_COUNT_ATTRIBUTE);
+        req.setAttribute(DISPATCH_COUNT_ATTRIBUTE, (count == null) ? 1 : count + 1);
+        req.setAttribute(ROUTE_METRICS_ATTRIBUTE, invoker.getMetrics()); // pour la mesure du forward
+        try {
+            return invoker.invoke(req, res, match);
+        } finally {
+            // Écritures @Session appliquées avant le rendu : la vue les voit, le cookie peut encore partir
+            SessionMap.flush(req);
+        }
+    }
+
+    /**
+     * Construit une fois, pour une route, la liste des résolveurs d'arguments :
+     * aucune réflexion ni lecture d'annotation ne reste sur le chemin de la requête.
+     */
+    private HandlerInvoker compileInvoker(Method method, Object controllerInstance, String pattern, String httpMethod,
+                                          RouteMetrics metrics) throws Exception {
+        java.lang.reflect.Parameter[] parameters = method.getParameters();
+        List<String> pathParamNames = Router.parameterNames(pattern);
+        HandlerInvoker.ArgumentResolver[] resolvers = new HandlerInvoker.ArgumentResolver[parameters.length];
+
+        for (int i = 0; i < parameters.length; i++) {
+            resolvers[i] = compileResolver(parameters[i], pathParamNames);
+        }
+        HandlerInvoker invoker = new HandlerInvoker(method, controllerInstance, resolvers, metrics);
+        if (!metricsPhases) invoker.disablePhaseTiming();
+
+        Cacheable cacheAnn = method.getAnnotation(Cacheable.class);
+        if (cacheAnn != null) {
+            invoker.enableCache(getResponseCache(), cacheAnn.ttl(), cacheAnn.key());
+        }
+
+        // Limite de la route : @ConcurrencyLimit, sinon celle du mode asynchrone, sinon concurrencyLimit
+        int maxConcurrent = concurrencyLimit;
+        MyAsync asyncAnn = method.getAnnotation(MyAsync.class);
+        if (asyncAnn != null || asyncByDefault) {
+            long timeout = (asyncAnn != null && asyncAnn.timeout() >= 0) ? asyncAnn.timeout() : asyncTimeout;
+            int asyncLimit = (asyncAnn != null && asyncAnn.maxConcurrent() >= 0) ? asyncAnn.maxConcurrent() : asyncMaxConcurrent;
+            if (asyncLimit > 0) maxConcurrent = asyncLimit;
+            invoker.enableAsync(timeout);
+        }
+        ConcurrencyLimit limitAnn = method.getAnnotation(ConcurrencyLimit.class);
+        if (limitAnn != null && limitAnn.value() >= 0) maxConcurrent = limitAnn.value();
+        if (maxConcurrent > 0) {
+            int queue = (limitAnn != null && limitAnn.queue() >= 0) ? limitAnn.queue() : concurrencyQueue;
+            long queueTimeout = (limitAnn != null && limitAnn.queueTimeout() >= 0) ? limitAnn.queueTimeout() : concurrencyQueueTimeout;
+            boolean adaptive = (limitAnn != null && limitAnn.adaptive()) || concurrencyAdaptive;
+            long retry = (limitAnn != null && limitAnn.retryAfter() >= 0) ? limitAnn.retryAfter() : retryAfter;
+            invoker.enableLimit(new ConcurrencyLimiter(maxConcurrent, queue, queueTimeout, adaptive), retry);
+        }
+        metrics.setLimiter(invoker.getLimiter());
+        return invoker;
+    }
+
+    private HandlerInvoker.ArgumentResolver compileResolver(java.lang.reflect.Parameter parameter,
+                                                           List<String> pathParamNames) throws Exception {
+        Class<?> paramType = parameter.getType();
+
+        // HttpServletRequest / HttpServletResponse
+        if (paramType.equals(HttpServletRequest.class)) {
+            return (req, res, match) -> req;
+        } else if (paramType.equals(HttpServletResponse.class)) {
+            return (req, res, match) -> res;
+        }
+
+        RequestBody body = parameter.getAnnotation(RequestBody.class);
+        if (body != null) return compileBodyResolver(parameter, body);
+
+        // Résolveur utilisé pour un Map "ordinaire" (session ou formulaire)
+        HandlerInvoker.ArgumentResolver mapResolver = null;
+        if (parameter.isAnnotationPresent(Session.class)) {
+            if (Map.class.isAssignableFrom(paramType)) {
+                mapResolver = (req, res, match) -> SessionMap.of(req);
+            } else {
+                throw new ServletException("L'annotation @Session ne peut être utilisée que sur un type Map<String, Object>");
             }
+        } else if (paramType == Map.class) {
+            // Vue sans copie sur les paramètres : valable le temps de la requête seulement
+            mapResolver = (req, res, match) -> new FormMap(req.getParameterMap());
+        } else if (Map.class.isAssignableFrom(paramType)) {
+            mapResolver = formMapCopy(paramType);
+        }
+
+        java.lang.reflect.Type mapValueType = Map.class.isAssignableFrom(paramType) ? mapValueType(parameter) : null;
+        if (mapValueType == byte[].class || mapValueType == UploadedFile.class) {
+            HandlerInvoker.ArgumentResolver fallback = mapResolver;
+            boolean streaming = (mapValueType == UploadedFile.class);
+            return (req, res, match) -> {
+                if (isMultipart(req)) {
+                    return streaming ? createUploadMap(req) : createFileMap(req);
+                }
+                return fallback.resolve(req, res, match);
+            };
+        }
+        if (mapResolver != null) return mapResolver;
+
+        // Fichiers en flux : UploadedFile, UploadedFile[] ou List<UploadedFile> du champ nommé
+        RequestParam uploadParam = parameter.getAnnotation(RequestParam.class);
+        String uploadName = (uploadParam != null) ? uploadParam.value() : parameter.getName();
+        if (paramType == UploadedFile.class) {
+            return (req, res, match) -> {
+                for (UploadedFile file : getUploads(req)) {
+                    if (file.getName().equals(uploadName)) return file;
+                }
+                return null;
+            };
+        }
+        if (paramType == UploadedFile[].class
+                || (List.class.isAssignableFrom(paramType) && Converters.elementType(parameter.getParameterizedType()) == UploadedFile.class)) {
+            boolean array = paramType.isArray();
+            return (req, res, match) -> {
+                List<UploadedFile> files = new ArrayList<>();
+                for (UploadedFile file : getUploads(req)) {
+                    if (file.getName().equals(uploadName)) files.add(file);
+                }
+                return array ? files.toArray(new UploadedFile[0]) : files;
+            };
+        }
+
+        if (!paramType.isPrimitive() && 
+            !paramType.equals(String.class) && 
+            !Converters.supports(paramType) && 
+            !paramType.getName().startsWith("java.") &&
+            !paramType.getName().startsWith("jakarta.")) {
+            return compilePojoResolver(paramType);
+        }
+
+        // RequestParam, sinon path param, sinon paramètre de requête du même nom
+        RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
+        String paramName = (requestParam != null) ? requestParam.value() : parameter.getName();
+        int pathIndex = (requestParam != null) ? -1 : pathParamNames.indexOf(paramName);
+        boolean primitive = paramType.isPrimitive();
 
-            // RequestParam
-            RequestParam requestParam = parameter.getAnnotation(RequestParam.class);
-            if (requestParam != null) {
-                paramName = requestParam.value();
-                paramValue = req.getParameter(paramName);
-            } else if (paramValue == null) {
-                paramName = parameter.getName();
-                paramValue = req.getParameter(paramName);
+        // Tableau / List / Set : toutes les valeurs du paramètre
+        if (Converters.isMultiValued(paramType)) {
+            Converters.MultiConverter converter = Converters.forMultiValued(paramType, parameter.getParameterizedType());
+            return (req, res, match) -> {
+                String[] values = (pathIndex >= 0) ? new String[] { match.getParamValue(pathIndex) }
+                                                   : req.getParameterValues(paramName);
+                return (values == null || values.length == 0) ? null : converter.convert(values);
+            };
+        }
+
+        // Convertisseur résolu une fois ; la valeur est lue sans sous-chaîne
+        Converters.TypeConverter<?> converter = Converters.forType(paramType);
+        return (req, res, match) -> {
+            CharSequence text;
+            int start;
+            int end;
+            if (pathIndex >= 0) {
+                text = match.getPath();
+                start = match.getParamStart(pathIndex);
+                end = match.getParamEnd(pathIndex);
+            } else {
+                String paramValue = req.getParameter(paramName);
+                text = paramValue;
+                start = 0;
+                end = (paramValue == null) ? 0 : paramValue.length();
             }
 
             // Conversion type
-            if (paramValue == null || paramValue.trim().isEmpty()) {
-                if (paramType.isPrimitive()) throw new IllegalArgumentException("Paramètre primitif requis manquant: " + paramName);
-                args[i] = null;
-            } else {
-                args[i] = convertParameterValue(paramValue, paramType);
+            if (text == null || Converters.isBlank(text, start, end)) {
+                if (primitive) throw new IllegalArgumentException("Paramètre primitif requis manquant: " + paramName);
+                return null;
+            }
+            return converter.convert(text, start, end);
+        };
+    }
+
+    /**
+     * @RequestBody : le corps est lu en flux et lié par le plan du type du
+     * paramètre (construit ici, une fois), sans arbre ni chaîne intermédiaire.
+     */
+    private HandlerInvoker.ArgumentResolver compileBodyResolver(java.lang.reflect.Parameter parameter, RequestBody body) {
+        JsonBinders.JsonBinder binder = JsonBinders.of(parameter.getParameterizedType());
+        long limit = (body.maxSize() >= 0) ? body.maxSize() : maxBodySize;
+        boolean required = body.required();
+        boolean primitive = parameter.getType().isPrimitive();
+        return (req, res, match) -> {
+            long declared = req.getContentLengthLong();
+            String contentType = req.getContentType();
+            // Sans Content-Type, seul un corps vide (paramètre facultatif) est accepté
+            if ((contentType != null || declared != 0) && !isJson(contentType)) {
+                throw new UnsupportedMediaTypeException("Content-Type JSON attendu (application/json), reçu : "
+                    + ((contentType != null) ? contentType : "aucun"));
+            }
+            if (limit >= 0 && declared > limit) {
+                throw new PayloadTooLargeException("Corps de requête trop volumineux (" + declared + " > " + limit + " octets)");
+            }
+            byte[] buffer = RequestContext.borrowBuffer();
+            try {
+                JsonReader in = new JsonReader(req.getInputStream(), buffer, limit);
+                if (in.peek() == JsonReader.Token.END) {
+                    if (required || primitive) throw new BadRequestException("Corps de requête JSON requis");
+                    return null;
+                }
+                Object value = binder.read(in);
+                in.endDocument();
+                if (value == null && primitive) throw new BadRequestException("Valeur requise pour " + parameter.getName());
+                return value;
+            } catch (JsonReader.TooLargeException e) {
+                throw new PayloadTooLargeException(e.getMessage());
+            } catch (JsonReader.MalformedJsonException | IllegalArgumentException e) {
+                throw new BadRequestException(e.getMessage(), e);
+            } finally {
+                RequestContext.release(buffer);
+            }
+        };
+    }
+
+    // application/json ou type suffixé +json (application/problem+json...), paramètres ignorés
+    private static boolean isJson(String contentType) {
+        if (contentType == null) return false;
+        int end = contentType.indexOf(';');
+        String mediaType = ((end >= 0) ? contentType.substring(0, end) : contentType).trim().toLowerCase(Locale.ROOT);
+        return mediaType.equals("application/json") || (mediaType.startsWith("application/") && mediaType.endsWith("+json"));
+    }
+
+    private HandlerInvoker.ArgumentResolver compilePojoResolver(Class<?> paramType) {
+        // Plan de binding construit une fois par classe (setters, champs, convertisseurs)
+        PojoBinder binder = PojoBinder.of(paramType);
+        if (!binder.canInstantiate()) {
+            return (req, res, match) -> {
+                throw new ServletException("La classe argument " + paramType.getName() + " doit avoir un constructeur sans argument pour le binding.");
+            };
+        }
+        return (req, res, match) -> {
+            Object pojoInstance = binder.newInstance();
+            binder.bind(pojoInstance, req.getParameterMap());
+            return pojoInstance;
+        };
+    }
+
+    private static boolean isMultipart(HttpServletRequest req) {
+        return req.getContentType() != null && req.getContentType().startsWith("multipart/form-data");
+    }
+
+    /**
+     * Fichiers de la requête multipart, contrôlés contre les limites configurées.
+     * Un Content-Length au-delà de maxUploadRequestSize est refusé avant que le
+     * conteneur ne lise le corps ; sinon les tailles des parts reçues sont vérifiées.
+     * Le résultat est gardé en attribut pour les autres paramètres de la méthode.
+     */
+    @SuppressWarnings("unchecked")
+    private List<UploadedFile> getUploads(HttpServletRequest req) throws Exception {
+        List<UploadedFile> uploads = (List<UploadedFile>) req.getAttribute(UPLOADS_ATTRIBUTE);
+        if (uploads != null) return uploads;
+        if (!isMultipart(req)) return Collections.emptyList();
+
+        long declared = req.getContentLengthLong();
+        if (maxUploadRequestSize >= 0 && declared > maxUploadRequestSize) {
+            throw new PayloadTooLargeException("Requête trop volumineuse (" + declared + " > " + maxUploadRequestSize + " octets)");
+        }
+        Collection<jakarta.servlet.http.Part> parts;
+        try {
+            parts = req.getParts();
+        } catch (IllegalStateException e) {
+            // Limites du multipart-config dépassées pendant la lecture par le conteneur
+            throw new PayloadTooLargeException(e.getMessage());
+        }
+
+        uploads = new ArrayList<>();
+        long total = 0;
+        for (jakarta.servlet.http.Part part : parts) {
+            String fileName = part.getSubmittedFileName();
+            if (fileName == null || fileName.isEmpty()) continue;
+
+            long size = part.getSize();
+            if (maxUploadFileSize >= 0 && size > maxUploadFileSize) {
+                throw new PayloadTooLargeException("Fichier " + fileName + " trop volumineux (" + size + " > " + maxUploadFileSize + " octets)");
+            }
+            total += size;
+            if (maxUploadRequestSize >= 0 && total > maxUploadRequestSize) {
+                throw new PayloadTooLargeException("Fichiers trop volumineux pour une requête (> " + maxUploadRequestSize + " octets)");
             }
+            uploads.add(new UploadedFile(part));
         }
+        req.setAttribute(UPLOADS_ATTRIBUTE, uploads);
+        return uploads;
+    }
 
-        return method.invoke(controllerInstance, args);
+    private Map<String, UploadedFile> createUploadMap(HttpServletRequest req) throws Exception {
+        Map<String, UploadedFile> uploadMap = new HashMap<>();
+        for (UploadedFile file : getUploads(req)) uploadMap.put(file.getFileName(), file);
+        return uploadMap;
     }
 
-    private Object convertParameterValue(String value, Class<?> targetType) {
-    try {
-        if (targetType.equals(String.class)) return value;
-        else if (targetType.equals(int.class) || targetType.equals(Integer.class)) return Integer.parseInt(value);
-        else if (targetType.equals(long.class) || targetType.equals(Long.class)) return Long.parseLong(value);
-        else if (targetType.equals(double.class) || targetType.equals(Double.class)) return Double.parseDouble(value);
-        else if (targetType.equals(boolean.class) || targetType.equals(Boolean.class)) return Boolean.parseBoolean(value);
-        else throw new IllegalArgumentException("Type non supporté: " + targetType.getName());
-    } catch (NumberFormatException e) {
-        throw new IllegalArgumentException("Erreur de conversion pour la valeur: " + value, e);
+    private Map<String, byte[]> createFileMap(HttpServletRequest req) throws Exception {
+        Map<String, byte[]> fileMap = new HashMap<>();
+
+        // Extraction des fichiers (en mémoire : préférer Map<String, UploadedFile> pour les gros fichiers)
+        for (UploadedFile file : getUploads(req)) {
+            // On utilise le nom du fichier comme clé et le contenu comme valeur
+            fileMap.put(file.getFileName(), file.getBytes());
+        }
+        return fileMap;
     }
-}
+
 public void handleControllerResult(Object result, HttpServletRequest req, HttpServletResponse res, java.lang.reflect.Method method) throws Exception {
+    handleControllerResult(result, req, res, method.getAnnotation(MyJson.class));
+}
+
+private void handleControllerResult(Object result, HttpServletRequest req, HttpServletResponse res, MyJson jsonAnnotation) throws Exception {
     if (result == null) {
         res.setStatus(HttpServletResponse.SC_NO_CONTENT);
         return;
     }
 
-    if (method.isAnnotationPresent(MyJson.class)) {
-        MyJson jsonAnnotation = method.getAnnotation(MyJson.class);
+    if (jsonAnnotation != null) {
         
         JsonResponse jsonResponse = new JsonResponse(
             jsonAnnotation.code(),
@@ -278,34 +1391,57 @@ public void handleControllerResult(Object result, HttpServletRequest req, HttpSe
         res.setContentType("application/json;charset=UTF-8");
         res.setStatus(jsonAnnotation.code()); // Définir le statut HTTP
         
-        try (PrintWriter out = res.getWriter()) {
-            out.println(jsonResponse.toJsonString());
+        // Sérialisation en flux vers la réponse, sans String intermédiaire
+        try (java.io.OutputStream out = res.getOutputStream()) {
+            jsonResponse.writeTo(out);
+            out.write('\n');
         }
         return;
     }
 
     if (result instanceof String) {
         String viewOrContent = (String) result;
-        if (isViewName(viewOrContent)) {
-            RequestDispatcher dispatcher = req.getRequestDispatcher("/" + viewOrContent);
-            dispatcher.forward(req, res);
+        if (viewResolver.isViewName(viewOrContent)) {
+            forward(req, res, viewOrContent, null);
         } else {
             res.setContentType("text/html;charset=UTF-8");
             try (PrintWriter out = res.getWriter()) { out.println(viewOrContent); }
         }
     } else if (result instanceof ModelView) {
         ModelView mv = (ModelView) result;
-        for (Map.Entry<String, Object> entry : mv.getData().entrySet()) req.setAttribute(entry.getKey(), entry.getValue());
-        RequestDispatcher dispatcher = req.getRequestDispatcher("/" + mv.getView());
-        dispatcher.forward(req, res);
+        forward(req, res, mv.getView(), mv.getData());
     } else {
         res.setContentType("text/plain;charset=UTF-8");
         try (PrintWriter out = res.getWriter()) { out.println("Type de retour non géré : " + result.getClass().getName()); }
     }
 }
 
-    private boolean isViewName(String result) {
-        return result.endsWith(".jsp") || result.endsWith(".html");
+    // .html et gabarits écrits directement ; JSP via le dispatcher gardé (AsyncContext.dispatch en asynchrone)
+    private void forward(HttpServletRequest req, HttpServletResponse res, String view, Map<String, Object> model)
+            throws Exception {
+        long start = System.nanoTime();
+        try {
+            viewResolver.render(view, model, req, res,
+                                (path, dispatcher, data) -> doForward(req, res, path, dispatcher, data));
+        } finally {
+            RouteMetrics metrics = (RouteMetrics) req.getAttribute(ROUTE_METRICS_ATTRIBUTE);
+            if (metrics != null) metrics.record(RouteMetrics.Phase.FORWARD, System.nanoTime() - start);
+        }
+    }
+
+    private void doForward(HttpServletRequest req, HttpServletResponse res, String path, RequestDispatcher dispatcher,
+                           Map<String, Object> model) throws Exception {
+        AsyncExchange exchange = AsyncExchange.of(req);
+        if (exchange != null && exchange.getContext() != null) {
+            // Le dispatch repart de la requête d'origine : le modèle y est recopié
+            if (model != null) {
+                for (Map.Entry<String, Object> entry : model.entrySet()) req.setAttribute(entry.getKey(), entry.getValue());
+            }
+            exchange.dispatch(path);
+            return;
+        }
+        if (dispatcher == null) dispatcher = req.getRequestDispatcher(path);
+        dispatcher.forward((model == null || model.isEmpty()) ? req : new ViewResolver.ModelRequest(req, model), res);
     }
 
     // --- Utilitaires regex / path param ---
@@ -319,120 +1455,13 @@ public void handleControllerResult(Object result, HttpServletRequest req, HttpSe
         while (m.find()) names.add(m.group(1));
         return names;
     }
-    private void bindParametersToPojo(Object pojoInstance, Map<String, String[]> parameterMap) {
-        Class<?> pojoClass = pojoInstance.getClass();
-
-        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
-            String paramName = entry.getKey();
-            String[] values = entry.getValue();
-            
-            // Normalisation : nom du paramètre -> nom de la propriété
-            String fieldName = paramName; 
-
-            try {
-                // 1. Tenter d'utiliser un Setter (Méthode setPropertyName)
-                String setterName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
-                
-                // On essaie de trouver un setter adapté aux types simples ou aux tableaux (pour les checkboxes multiples)
-                Method setter = null;
-                
-                // Recherche d'un setter pour un type simple (ex: setNom(String))
-                try {
-                    setter = pojoClass.getMethod(setterName, String.class);
-                    if (values.length == 1) {
-                         setter.invoke(pojoInstance, values[0]);
-                         continue;
-                    }
-                } catch (NoSuchMethodException ignored) { /* on ignore, on essaie l'autre type de setter */ }
-
-                // Recherche d'un setter pour un tableau de String (ex: setInterets(String[]))
-                try {
-                    setter = pojoClass.getMethod(setterName, String[].class);
-                    if (values.length > 1) {
-                        setter.invoke(pojoInstance, (Object) values); // Le cast (Object) est nécessaire pour éviter l'ambiguïté avec l'appel varargs
-                        continue;
-                    }
-                } catch (NoSuchMethodException ignored) { /* on ignore, on essaie le champ direct */ }
-                
-                
-                // 2. Tenter d'accéder directement au champ (si le champ est public)
-                try {
-                    java.lang.reflect.Field field = pojoClass.getDeclaredField(fieldName);
-                    field.setAccessible(true); // Permet d'accéder aux champs privés
-                    
-                    if (field.getType().equals(String.class) && values.length == 1) {
-                        field.set(pojoInstance, values[0]);
-                    } else if (field.getType().equals(String[].class) && values.length > 1) {
-                        field.set(pojoInstance, values);
-                    } else {
-                        // Pour les autres types de champs (int, Integer, Date, etc.)
-                        if (values.length == 1) {
-                            Object convertedValue = convertParameterValue(values[0], field.getType());
-                            field.set(pojoInstance, convertedValue);
-                        }
-                    }
-                    continue;
-
-                } catch (NoSuchFieldException ignored) { /* on ignore */ }
-                
-                // Gérer les cas où le paramètre n'a pas de champ/setter correspondant
-                // (Souvent ignoré, car tous les paramètres de formulaire ne correspondent pas à des champs de la classe)
-                
-            } catch (Exception e) {
-                // Erreur lors de l'invocation du setter ou de l'accès au champ
-                System.err.println("Erreur de binding pour le champ " + paramName + " dans la classe " + pojoClass.getName() + ": " + e.getMessage());
-            }
-        }
-    }
-    private boolean isStringByteArrayMap(java.lang.reflect.Parameter parameter) {
-    java.lang.reflect.Type type = parameter.getParameterizedType();
-    if (type instanceof java.lang.reflect.ParameterizedType) {
-        java.lang.reflect.ParameterizedType pType = (java.lang.reflect.ParameterizedType) type;
-        java.lang.reflect.Type[] args = pType.getActualTypeArguments();
-        
-        if (args.length == 2) {
-            boolean keyIsString = args[0].equals(String.class);
-            boolean valueIsByteArray = false;
-            if (args[1] instanceof Class) {
-                Class<?> clz = (Class<?>) args[1];
-                valueIsByteArray = clz.isArray() && clz.getComponentType().equals(byte.class);
-            }
-            return keyIsString && valueIsByteArray;
+    // Type des valeurs d'un paramètre Map<String, V> (null si non paramétré ou clé non String)
+    private java.lang.reflect.Type mapValueType(java.lang.reflect.Parameter parameter) {
+        java.lang.reflect.Type type = parameter.getParameterizedType();
+        if (type instanceof java.lang.reflect.ParameterizedType) {
+            java.lang.reflect.Type[] args = ((java.lang.reflect.ParameterizedType) type).getActualTypeArguments();
+            if (args.length == 2 && args[0].equals(String.class)) return args[1];
         }
+        return null;
     }
-    return false;
-}
-private Map<String, Object> createSessionMap(jakarta.servlet.http.HttpSession session) {
-    return new AbstractMap<String, Object>() {
-        @Override
-        public Object put(String key, Object value) {
-            Object old = session.getAttribute(key);
-            session.setAttribute(key, value);
-            return old;
-        }
-
-        @Override
-        public Object get(Object key) {
-            return session.getAttribute(key.toString());
-        }
-
-        @Override
-        public Object remove(Object key) {
-            Object old = session.getAttribute(key.toString());
-            session.removeAttribute(key.toString());
-            return old;
-        }
-
-        @Override
-        public Set<Entry<String, Object>> entrySet() {
-            Set<Entry<String, Object>> set = new HashSet<>();
-            java.util.Enumeration<String> names = session.getAttributeNames();
-            while (names.hasMoreElements()) {
-                String name = names.nextElement();
-                set.add(new SimpleEntry<>(name, session.getAttribute(name)));
-            }
-            return set;
-        }
-    };
-}
 }
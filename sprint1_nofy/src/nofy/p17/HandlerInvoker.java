@@ -0,0 +1,186 @@
+package nofy.p17;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Appel précompilé d'une méthode de contrôleur pour une route donnée.
+ * Tout ce qui relève de la réflexion (types, annotations, génériques) est
+ * résolu une fois dans init() : la requête n'exécute que les résolveurs
+ * d'arguments puis un MethodHandle.
+ */
+public class HandlerInvoker {
+
+    /**
+     * Produit la valeur d'un argument de la méthode à partir de la requête.
+     */
+    public interface ArgumentResolver {
+        Object resolve(HttpServletRequest req, HttpServletResponse res, Router.RouteMatch<?> match) throws Exception;
+    }
+
+    private final Method method;
+    private final MethodHandle handle; // (Object[]) → Object, instance déjà liée
+    private final ArgumentResolver[] resolvers;
+    private final MyJson json;
+    private final boolean usesSession; // un paramètre @Session
+    private final LongAdder dispatchCount = new LongAdder();
+    private final RouteMetrics metrics;
+    private boolean phaseTiming = true; // binding et invoke mesurés à chaque appel
+    // Mode asynchrone (@MyAsync ou init-param async)
+    private boolean async;
+    private long asyncTimeout;
+    // Admission (@ConcurrencyLimit, limite asynchrone ou init-params)
+    private ConcurrencyLimiter limiter; // null : pas de limite
+    private long retryAfter;            // s
+    // Cache de réponse (@Cacheable)
+    private ResponseCache cache;
+    private long cacheTtl;
+    private String[] cacheKeyParams; // null : tous les paramètres de requête
+
+    public HandlerInvoker(Method method, Object instance, ArgumentResolver[] resolvers) throws IllegalAccessException {
+        this(method, instance, resolvers, new RouteMetrics(method.getDeclaringClass().getSimpleName() + "." + method.getName(), "*"));
+    }
+
+    public HandlerInvoker(Method method, Object instance, ArgumentResolver[] resolvers, RouteMetrics metrics) throws IllegalAccessException {
+        this.method = method;
+        this.metrics = metrics;
+        this.resolvers = resolvers;
+        this.json = method.getAnnotation(MyJson.class);
+        this.usesSession = Arrays.stream(method.getParameters()).anyMatch(p -> p.isAnnotationPresent(Session.class));
+
+        method.setAccessible(true);
+        MethodHandle mh = MethodHandles.lookup().unreflect(method);
+        if (!Modifier.isStatic(method.getModifiers())) mh = mh.bindTo(instance);
+        this.handle = mh.asSpreader(Object[].class, resolvers.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    public Object invoke(HttpServletRequest req, HttpServletResponse res, Router.RouteMatch<?> match) throws Exception {
+        long start = phaseTiming ? System.nanoTime() : 0;
+        // Tableau réutilisé par thread, vidé et rendu après l'appel
+        Object[] args = RequestContext.borrowArgs(resolvers.length);
+        try {
+            for (int i = 0; i < resolvers.length; i++) {
+                args[i] = resolvers[i].resolve(req, res, match);
+            }
+            dispatchCount.increment();
+            if (!phaseTiming) return (Object) handle.invokeExact(args);
+
+            long bound = System.nanoTime();
+            metrics.record(RouteMetrics.Phase.BINDING, bound - start);
+            try {
+                return (Object) handle.invokeExact(args);
+            } finally {
+                metrics.record(RouteMetrics.Phase.INVOKE, System.nanoTime() - bound);
+            }
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        } finally {
+            RequestContext.release(args);
+        }
+    }
+
+    /** Plus de mesure des phases binding et invoke (init-param metricsPhases=false). */
+    public void disablePhaseTiming() {
+        this.phaseTiming = false;
+    }
+
+    /** Exécution hors du thread du conteneur, avec délai maximal (ms, 0 : aucun). */
+    public void enableAsync(long timeoutMillis) {
+        this.async = true;
+        this.asyncTimeout = timeoutMillis;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public long getAsyncTimeout() {
+        return asyncTimeout;
+    }
+
+    /** Appels simultanés limités ; retryAfterSeconds : en-tête Retry-After des refus. */
+    public void enableLimit(ConcurrencyLimiter limiter, long retryAfterSeconds) {
+        this.limiter = limiter;
+        this.retryAfter = retryAfterSeconds;
+    }
+
+    /** Limiteur d'admission de la route, ou null. */
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /** Réponses GET conservées ttl ms ; keyParams : paramètres de requête de la clé ("*" : tous). */
+    public void enableCache(ResponseCache cache, long ttlMillis, String[] keyParams) {
+        this.cache = cache;
+        this.cacheTtl = ttlMillis;
+        this.cacheKeyParams = Arrays.asList(keyParams).contains("*") ? null : keyParams.clone();
+    }
+
+    /** Cache de la route, ou null. */
+    public ResponseCache getCache() {
+        return cache;
+    }
+
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /** Clé de cache : chemin (donc path params) puis paramètres de requête retenus. */
+    public String cacheKey(HttpServletRequest req, Router.RouteMatch<?> match) {
+        StringBuilder key = new StringBuilder(match.getPath());
+        if (cacheKeyParams == null) {
+            for (String name : new TreeSet<>(req.getParameterMap().keySet())) appendParam(key, req, name);
+        } else {
+            for (String name : cacheKeyParams) appendParam(key, req, name);
+        }
+        return key.toString();
+    }
+
+    private static void appendParam(StringBuilder key, HttpServletRequest req, String name) {
+        String[] values = req.getParameterValues(name);
+        if (values == null) return;
+        for (String value : values) {
+            key.append('\u0000').append(name).append('=').append(value);
+        }
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /** Vrai si la méthode reçoit la session (paramètre @Session). */
+    public boolean usesSession() {
+        return usesSession;
+    }
+
+    /** Nombre total d'appels de la méthode via cette route depuis init(). */
+    public long getDispatchCount() {
+        return dispatchCount.sum();
+    }
+
+    /** Compteurs et durées de cette route. */
+    public RouteMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Annotation @MyJson de la méthode, ou null. */
+    public MyJson getJson() {
+        return json;
+    }
+}
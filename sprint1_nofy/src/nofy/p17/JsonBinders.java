@@ -0,0 +1,400 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Binding JSON → objets Java, lu directement dans un {@link JsonReader}.
+ * Le plan d'un type (propriétés et leurs setters MethodHandle, type des
+ * éléments d'une List ou d'une Map, convertisseur d'un scalaire) est
+ * construit une seule fois et conservé par type dans un ClassValue, génériques
+ * compris (List&lt;Item&gt; et List&lt;String&gt; ont chacun le leur).
+ * <p>
+ * Scalaires : ceux de {@link Converters} (nombres, dates, enum, UUID...),
+ * lus sans chaîne intermédiaire. Objets : constructeur sans argument puis
+ * setters / champs, ou constructeur canonique d'un record. Les propriétés
+ * inconnues sont ignorées ; null laisse un primitif à sa valeur par défaut.
+ */
+public final class JsonBinders {
+
+    /** Lecture d'une valeur JSON vers un type donné. */
+    public interface JsonBinder {
+        Object read(JsonReader in) throws IOException;
+    }
+
+    // Plans conservés avec la classe (ClassValue) : aucun classloader retenu par le framework
+    private static final ClassValue<JsonBinder> plans = new ClassValue<JsonBinder>() {
+        @Override
+        protected JsonBinder computeValue(Class<?> type) {
+            return buildPlan(type);
+        }
+    };
+    // Types génériques (List<Item>, Item[]...) : un plan par type, rangé sous son type brut
+    private static final ClassValue<Map<Type, JsonBinder>> genericPlans = new ClassValue<Map<Type, JsonBinder>>() {
+        @Override
+        protected Map<Type, JsonBinder> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private JsonBinders() {
+    }
+
+    public static JsonBinder of(Type type) {
+        if (type instanceof Class) return plans.get((Class<?>) type);
+        Map<Type, JsonBinder> generic = genericPlans.get(rawType(type));
+        JsonBinder binder = generic.get(type);
+        if (binder == null) {
+            binder = buildPlan(type);
+            generic.putIfAbsent(type, binder);
+        }
+        return binder;
+    }
+
+    private static JsonBinder buildPlan(Type type) {
+        Class<?> raw = rawType(type);
+        if (raw == Object.class) return JsonReader::readValue;
+        if (raw == String.class || raw == CharSequence.class) return JsonBinders::readString;
+        if (raw.isArray()) return arrayPlan(raw.getComponentType(), componentType(type));
+        if (Collection.class.isAssignableFrom(raw)) return collectionPlan(collectionFactory(raw), typeArgument(type, 0));
+        if (Map.class.isAssignableFrom(raw)) return mapPlan(mapFactory(raw), rawType(typeArgument(type, 0)), typeArgument(type, 1));
+        if (raw.isPrimitive() || Converters.supports(raw)) return scalarPlan(raw);
+        if (raw.isRecord()) return recordPlan(raw);
+        return objectPlan(raw);
+    }
+
+    // --- Types génériques ---
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class) return (Class<?>) type;
+        if (type instanceof ParameterizedType) return rawType(((ParameterizedType) type).getRawType());
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if (type instanceof WildcardType) return rawType(((WildcardType) type).getUpperBounds()[0]);
+        if (type instanceof TypeVariable) {
+            Type[] bounds = ((TypeVariable<?>) type).getBounds();
+            return (bounds.length > 0) ? rawType(bounds[0]) : Object.class;
+        }
+        return Object.class;
+    }
+
+    private static Type typeArgument(Type type, int index) {
+        if (type instanceof ParameterizedType) {
+            Type[] args = ((ParameterizedType) type).getActualTypeArguments();
+            if (index < args.length) return args[index];
+        }
+        return Object.class; // type brut : List, Map
+    }
+
+    private static Type componentType(Type type) {
+        if (type instanceof GenericArrayType) return ((GenericArrayType) type).getGenericComponentType();
+        return ((Class<?>) type).getComponentType();
+    }
+
+    // --- Scalaires ---
+
+    private static Object readString(JsonReader in) throws IOException {
+        switch (in.peek()) {
+            case NULL:
+                in.nextNull();
+                return null;
+            case STRING:
+                return in.nextString();
+            default:
+                return in.nextText().toString(); // nombre ou booléen accepté tel qu'écrit
+        }
+    }
+
+    private static JsonBinder scalarPlan(Class<?> type) {
+        Converters.TypeConverter<?> converter = Converters.forType(type);
+        if (type == boolean.class || type == Boolean.class) {
+            return in -> {
+                switch (in.peek()) {
+                    case NULL:
+                        in.nextNull();
+                        return null;
+                    case BOOLEAN:
+                        return in.nextBoolean();
+                    default:
+                        CharSequence text = in.nextText();
+                        return converter.convert(text, 0, text.length());
+                }
+            };
+        }
+        // Nombre, même écrit entre guillemets : grammaire JSON avant conversion (ni "Infinity" ni "1.5f")
+        boolean numeric = Number.class.isAssignableFrom(type) || (type.isPrimitive() && type != char.class);
+        return in -> {
+            if (in.peek() == JsonReader.Token.NULL) {
+                in.nextNull();
+                return null;
+            }
+            CharSequence text = in.nextText();
+            if (numeric && !JsonReader.isNumber(text)) {
+                throw new IllegalArgumentException("Nombre JSON invalide pour " + type.getSimpleName() + ": " + text);
+            }
+            return converter.convert(text, 0, text.length());
+        };
+    }
+
+    // --- Tableaux, collections, maps ---
+
+    private static JsonBinder arrayPlan(Class<?> component, Type genericComponent) {
+        JsonBinder elements = collectionPlan(ArrayList::new, genericComponent);
+        return in -> {
+            List<?> list = (List<?>) elements.read(in);
+            if (list == null) return null;
+            Object array = Array.newInstance(component, list.size());
+            for (int i = 0; i < list.size(); i++) {
+                Object value = list.get(i);
+                if (value != null || !component.isPrimitive()) Array.set(array, i, value);
+            }
+            return array;
+        };
+    }
+
+    private static JsonBinder collectionPlan(Supplier<Collection<Object>> factory, Type elementType) {
+        JsonBinder[] element = new JsonBinder[1]; // résolu au premier usage (types récursifs)
+        return in -> {
+            if (in.peek() == JsonReader.Token.NULL) {
+                in.nextNull();
+                return null;
+            }
+            if (element[0] == null) element[0] = of(elementType);
+            Collection<Object> collection = factory.get();
+            if (in.beginArray()) {
+                do {
+                    collection.add(element[0].read(in));
+                } while (in.nextElement());
+            }
+            return collection;
+        };
+    }
+
+    private static JsonBinder mapPlan(Supplier<Map<Object, Object>> factory, Class<?> keyType, Type valueType) {
+        Converters.TypeConverter<?> keyConverter =
+            (keyType == String.class || keyType == Object.class) ? null : Converters.forType(keyType);
+        JsonBinder[] value = new JsonBinder[1];
+        return in -> {
+            if (in.peek() == JsonReader.Token.NULL) {
+                in.nextNull();
+                return null;
+            }
+            if (value[0] == null) value[0] = of(valueType);
+            Map<Object, Object> map = factory.get();
+            if (in.beginObject()) {
+                do {
+                    in.readName();
+                    Object key = (keyConverter == null) ? in.name() : keyConverter.convert(in.name());
+                    map.put(key, value[0].read(in));
+                } while (in.nextMember());
+            }
+            return map;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Collection<Object>> collectionFactory(Class<?> type) {
+        if (type.isAssignableFrom(ArrayList.class)) return ArrayList::new;
+        if (type.isAssignableFrom(LinkedHashSet.class)) return LinkedHashSet::new;
+        if (type.isAssignableFrom(TreeSet.class) && SortedSet.class.isAssignableFrom(type)) return TreeSet::new;
+        if (type.isAssignableFrom(ArrayDeque.class) && Queue.class.isAssignableFrom(type)) return ArrayDeque::new;
+        return () -> (Collection<Object>) instantiate(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Supplier<Map<Object, Object>> mapFactory(Class<?> type) {
+        if (type.isAssignableFrom(LinkedHashMap.class)) return LinkedHashMap::new;
+        if (type.isAssignableFrom(TreeMap.class) && SortedMap.class.isAssignableFrom(type)) return TreeMap::new;
+        return () -> (Map<Object, Object>) instantiate(type);
+    }
+
+    private static Object instantiate(Class<?> type) {
+        try {
+            return PojoBinder.of(type).newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Impossible d'instancier " + type.getName(), e);
+        }
+    }
+
+    // --- Objets ---
+
+    /** Propriété d'un plan : nom (et son hash), setter, type lu. */
+    private static final class Property {
+        final String name;
+        final int hash;
+        final Type type;
+        final boolean primitive;
+        final MethodHandle setter; // (Object, Object)void ; null pour un record
+        final int index;           // position dans le constructeur d'un record
+        JsonBinder binder;         // résolu au premier usage (types récursifs)
+
+        Property(String name, Type type, MethodHandle setter, int index) {
+            this.name = name;
+            this.hash = name.hashCode();
+            this.type = type;
+            this.primitive = rawType(type).isPrimitive();
+            this.setter = setter;
+            this.index = index;
+        }
+
+        Object read(JsonReader in) throws IOException {
+            if (binder == null) binder = of(type);
+            return binder.read(in);
+        }
+    }
+
+    // Recherche du dernier nom lu, sans String : hash puis caractères
+    private static Property find(Property[] properties, JsonReader in) {
+        int hash = in.nameHash();
+        for (Property property : properties) {
+            if (property.hash == hash && in.nameEquals(property.name, hash)) return property;
+        }
+        return null;
+    }
+
+    private static JsonBinder objectPlan(Class<?> type) {
+        PojoBinder instances = PojoBinder.of(type);
+        Map<String, Property> byName = new LinkedHashMap<>();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        // Champs (classe et superclasses), puis setters publics qui les remplacent
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isTransient(modifiers)
+                        || field.isSynthetic() || byName.containsKey(field.getName())) continue;
+                try {
+                    field.setAccessible(true);
+                    MethodHandle setter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                    byName.put(field.getName(), new Property(field.getName(), field.getGenericType(), setter, -1));
+                } catch (Exception e) {
+                    // Champ inaccessible : seuls les setters publics serviront
+                }
+            }
+        }
+        for (Method method : type.getMethods()) {
+            String name = method.getName();
+            if (Modifier.isStatic(method.getModifiers()) || name.length() <= 3 || !name.startsWith("set")
+                    || method.getParameterCount() != 1) continue;
+            String property = Character.toLowerCase(name.charAt(3)) + name.substring(4);
+            try {
+                MethodHandle setter = lookup.unreflect(method).asType(SETTER_TYPE);
+                byName.put(property, new Property(property, method.getGenericParameterTypes()[0], setter, -1));
+            } catch (IllegalAccessException e) {
+                // Méthode publique d'une classe non publique : le champ reste
+            }
+        }
+        Property[] properties = byName.values().toArray(new Property[0]);
+
+        return in -> {
+            if (in.peek() == JsonReader.Token.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Object target;
+            try {
+                target = instances.newInstance();
+            } catch (Exception e) {
+                throw new IllegalStateException("Binding JSON impossible : " + e.getMessage(), e);
+            }
+            if (in.beginObject()) {
+                do {
+                    in.readName();
+                    Property property = find(properties, in);
+                    if (property == null) {
+                        in.skipValue();
+                        continue;
+                    }
+                    Object value = property.read(in);
+                    if (value == null && property.primitive) continue;
+                    try {
+                        property.setter.invokeExact(target, value);
+                    } catch (Throwable e) {
+                        throw new IllegalArgumentException("Propriété " + property.name + " de " + type.getName()
+                                                           + " : " + e.getMessage(), e);
+                    }
+                } while (in.nextMember());
+            }
+            return target;
+        };
+    }
+
+    private static JsonBinder recordPlan(Class<?> type) {
+        RecordComponent[] components = type.getRecordComponents();
+        Property[] properties = new Property[components.length];
+        Class<?>[] types = new Class<?>[components.length];
+        Object[] defaults = new Object[components.length];
+        for (int i = 0; i < components.length; i++) {
+            properties[i] = new Property(components[i].getName(), components[i].getGenericType(), null, i);
+            types[i] = components[i].getType();
+            if (types[i].isPrimitive()) defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+        }
+        MethodHandle constructor;
+        try {
+            Constructor<?> canonical = type.getDeclaredConstructor(types);
+            canonical.setAccessible(true);
+            constructor = MethodHandles.lookup().unreflectConstructor(canonical)
+                                       .asSpreader(Object[].class, types.length)
+                                       .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return in -> {
+                throw new IllegalStateException("Record " + type.getName() + " inaccessible pour le binding JSON", e);
+            };
+        }
+
+        return in -> {
+            if (in.peek() == JsonReader.Token.NULL) {
+                in.nextNull();
+                return null;
+            }
+            Object[] values = defaults.clone();
+            if (in.beginObject()) {
+                do {
+                    in.readName();
+                    Property property = find(properties, in);
+                    if (property == null) {
+                        in.skipValue();
+                        continue;
+                    }
+                    Object value = property.read(in);
+                    if (value != null || !property.primitive) values[property.index] = value;
+                } while (in.nextMember());
+            }
+            try {
+                return (Object) constructor.invokeExact(values);
+            } catch (Throwable e) {
+                throw new IllegalArgumentException("Record " + type.getName() + " : " + e.getMessage(), e);
+            }
+        };
+    }
+}
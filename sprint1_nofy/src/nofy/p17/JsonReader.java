@@ -0,0 +1,526 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lecture JSON en flux, au fil des octets d'un InputStream (UTF-8) : aucun
+ * arbre ni chaîne du document entier n'est construit. Le binding
+ * ({@link JsonBinders}) pilote la lecture valeur par valeur ; les nombres et
+ * les noms de propriétés sont lus dans un tampon de caractères réutilisé.
+ * <p>
+ * Le nombre d'octets lus et la profondeur d'imbrication sont bornés :
+ * au-delà, {@link TooLargeException} ou {@link MalformedJsonException}.
+ */
+public final class JsonReader {
+
+    /** Document invalide (position en octets). */
+    public static final class MalformedJsonException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public MalformedJsonException(String message) {
+            super(message);
+        }
+    }
+
+    /** Corps plus long que la limite donnée. */
+    public static final class TooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    public enum Token { OBJECT, ARRAY, STRING, NUMBER, BOOLEAN, NULL, END }
+
+    private static final int MAX_DEPTH = 256;
+
+    private final InputStream in;
+    private final byte[] buffer;
+    private final long maxBytes; // -1 : illimité
+    private int pos;
+    private int limit;
+    private long read;           // octets lus avant le tampon courant
+    private int depth;
+
+    // Texte du dernier nom / scalaire lu (valide jusqu'à la lecture suivante)
+    private char[] chars = new char[64];
+    private int length;
+    private int hash;
+    private final Text text = new Text();
+
+    public JsonReader(InputStream in, long maxBytes) {
+        this(in, new byte[8192], maxBytes);
+    }
+
+    /** Lecture dans un tampon fourni (réutilisé d'une requête à l'autre). */
+    JsonReader(InputStream in, byte[] buffer, long maxBytes) {
+        this.in = in;
+        this.buffer = buffer;
+        this.maxBytes = maxBytes;
+    }
+
+    // --- Structure ---
+
+    /** Nature de la valeur suivante, sans la consommer. */
+    public Token peek() throws IOException {
+        int c = peekByte();
+        switch (c) {
+            case '{': return Token.OBJECT;
+            case '[': return Token.ARRAY;
+            case '"': return Token.STRING;
+            case 't': case 'f': return Token.BOOLEAN;
+            case 'n': return Token.NULL;
+            case -1: return Token.END;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return Token.NUMBER;
+                throw error("valeur attendue, trouvé '" + (char) c + "'");
+        }
+    }
+
+    /** Consomme '{' ; false si l'objet est vide (et déjà fermé). */
+    public boolean beginObject() throws IOException {
+        expect('{');
+        enter();
+        if (peekByte() == '}') {
+            pos++;
+            depth--;
+            return false;
+        }
+        return true;
+    }
+
+    /** Après une valeur de propriété : true s'il en suit une autre, false à la fin de l'objet. */
+    public boolean nextMember() throws IOException {
+        return next('}');
+    }
+
+    /** Consomme '[' ; false si le tableau est vide (et déjà fermé). */
+    public boolean beginArray() throws IOException {
+        expect('[');
+        enter();
+        if (peekByte() == ']') {
+            pos++;
+            depth--;
+            return false;
+        }
+        return true;
+    }
+
+    /** Après un élément : true s'il en suit un autre, false à la fin du tableau. */
+    public boolean nextElement() throws IOException {
+        return next(']');
+    }
+
+    /** Lit un nom de propriété et le ':' qui le suit ; voir {@link #nameEquals}. */
+    public void readName() throws IOException {
+        if (peekByte() != '"') throw error("nom de propriété attendu");
+        readString();
+        expect(':');
+    }
+
+    /** Vrai si le dernier nom lu vaut name (comparaison sans allocation). */
+    public boolean nameEquals(String name, int nameHash) {
+        if (length != name.length() || hash != nameHash) return false;
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** Hash du dernier nom lu, identique à String.hashCode(). */
+    public int nameHash() {
+        return hash;
+    }
+
+    public String name() {
+        return new String(chars, 0, length);
+    }
+
+    /** Vérifie qu'il ne reste que des blancs. */
+    public void endDocument() throws IOException {
+        if (peekByte() != -1) throw error("contenu après la fin du document");
+    }
+
+    // --- Valeurs ---
+
+    public String nextString() throws IOException {
+        if (peekByte() != '"') throw error("chaîne attendue");
+        pos++;
+        int end = scanAscii();
+        if (end >= 0) {
+            // ASCII sans échappement : une seule allocation, la String elle-même
+            String value = new String(buffer, pos, end - pos, StandardCharsets.ISO_8859_1);
+            pos = end + 1;
+            return value;
+        }
+        readStringSlow();
+        return new String(chars, 0, length);
+    }
+
+    /**
+     * Texte d'un scalaire (chaîne décodée, nombre ou booléen tel qu'écrit),
+     * dans un tampon réutilisé : valide jusqu'à la lecture suivante.
+     */
+    public CharSequence nextText() throws IOException {
+        int c = peekByte();
+        if (c == '"') {
+            readString();
+        } else if (c == '-' || (c >= '0' && c <= '9') || c == 't' || c == 'f') {
+            readLiteral();
+        } else {
+            throw error("valeur simple attendue");
+        }
+        return text;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int c = peekByte();
+        if (c != 't' && c != 'f') throw error("booléen attendu");
+        readLiteral();
+        return c == 't';
+    }
+
+    public void nextNull() throws IOException {
+        if (peekByte() != 'n') throw error("null attendu");
+        readLiteral();
+    }
+
+    /** Valeur quelconque : Map, List, String, Long / Double, Boolean ou null. */
+    public Object readValue() throws IOException {
+        switch (peek()) {
+            case OBJECT: {
+                Map<String, Object> map = new LinkedHashMap<>();
+                if (beginObject()) {
+                    do {
+                        readName();
+                        String key = name();
+                        map.put(key, readValue());
+                    } while (nextMember());
+                }
+                return map;
+            }
+            case ARRAY: {
+                List<Object> list = new ArrayList<>();
+                if (beginArray()) {
+                    do {
+                        list.add(readValue());
+                    } while (nextElement());
+                }
+                return list;
+            }
+            case STRING:
+                return nextString();
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return null;
+            case NUMBER:
+                readLiteral();
+                return number();
+            default:
+                throw error("document vide");
+        }
+    }
+
+    /** Ignore la valeur suivante (propriété inconnue). */
+    public void skipValue() throws IOException {
+        switch (peek()) {
+            case OBJECT:
+                if (beginObject()) {
+                    do {
+                        readName();
+                        skipValue();
+                    } while (nextMember());
+                }
+                break;
+            case ARRAY:
+                if (beginArray()) {
+                    do {
+                        skipValue();
+                    } while (nextElement());
+                }
+                break;
+            case STRING:
+                readString();
+                break;
+            case END:
+                throw error("valeur attendue");
+            default:
+                readLiteral();
+        }
+    }
+
+    // Entier si possible (Long), sinon Double
+    private Object number() throws IOException {
+        boolean integral = length <= 18;
+        for (int i = 0; i < length && integral; i++) {
+            char c = chars[i];
+            if (c == '.' || c == 'e' || c == 'E') integral = false;
+        }
+        try {
+            if (integral) return Long.parseLong(text, 0, length, 10);
+            return Double.parseDouble(new String(chars, 0, length));
+        } catch (NumberFormatException e) {
+            throw error("nombre invalide : " + new String(chars, 0, length));
+        }
+    }
+
+    // --- Lecture des octets ---
+
+    private void enter() throws IOException {
+        if (++depth > MAX_DEPTH) throw error("imbrication trop profonde (> " + MAX_DEPTH + ")");
+    }
+
+    private boolean next(char close) throws IOException {
+        int c = peekByte();
+        pos++;
+        if (c == ',') return true;
+        if (c == close) {
+            depth--;
+            return false;
+        }
+        throw error(c == -1 ? "fin du document inattendue" : "',' ou '" + close + "' attendu");
+    }
+
+    private void expect(char c) throws IOException {
+        if (peekByte() != c) throw error("'" + c + "' attendu");
+        pos++;
+    }
+
+    // Prochain octet hors blancs, non consommé ; -1 en fin de flux
+    private int peekByte() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) return -1;
+            byte b = buffer[pos];
+            if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                pos++;
+            } else {
+                return b & 0xFF;
+            }
+        }
+    }
+
+    private int nextByte() throws IOException {
+        if (pos == limit && !fill()) throw error("fin du document inattendue");
+        return buffer[pos++] & 0xFF;
+    }
+
+    private boolean fill() throws IOException {
+        read += limit;
+        pos = 0;
+        limit = 0;
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) return false;
+        limit = n;
+        if (maxBytes >= 0 && read + limit > maxBytes) {
+            throw new TooLargeException("Corps JSON trop volumineux (> " + maxBytes + " octets)");
+        }
+        return true;
+    }
+
+    // Chaîne (guillemet ouvrant compris) décodée dans chars, avec son hash
+    private void readString() throws IOException {
+        pos++;
+        int end = scanAscii();
+        if (end >= 0) {
+            ensure(end - pos);
+            int h = 0;
+            for (int i = pos; i < end; i++) {
+                char c = (char) buffer[i];
+                chars[i - pos] = c;
+                h = 31 * h + c;
+            }
+            length = end - pos;
+            hash = h;
+            pos = end + 1;
+            return;
+        }
+        readStringSlow();
+    }
+
+    // Position du guillemet fermant si la chaîne est dans le tampon, en ASCII sans échappement ; sinon -1
+    private int scanAscii() {
+        for (int i = pos; i < limit; i++) {
+            byte b = buffer[i];
+            if (b == '"') return i;
+            if (b == '\\' || b < 0x20) return -1; // échappement, contrôle ou non-ASCII (octet négatif)
+        }
+        return -1;
+    }
+
+    // Chemin général : échappements et UTF-8, à cheval sur plusieurs tampons
+    private void readStringSlow() throws IOException {
+        length = 0;
+        while (true) {
+            int b = nextByte();
+            if (b == '"') break;
+            if (b == '\\') {
+                b = nextByte();
+                switch (b) {
+                    case '"': case '\\': case '/': append((char) b); break;
+                    case 'b': append('\b'); break;
+                    case 'f': append('\f'); break;
+                    case 'n': append('\n'); break;
+                    case 'r': append('\r'); break;
+                    case 't': append('\t'); break;
+                    case 'u': {
+                        int cp = 0;
+                        for (int k = 0; k < 4; k++) {
+                            int d = Character.digit(nextByte(), 16);
+                            if (d < 0) throw error("échappement \\u invalide");
+                            cp = (cp << 4) | d;
+                        }
+                        append((char) cp);
+                        break;
+                    }
+                    default: throw error("échappement invalide \\" + (char) b);
+                }
+            } else if (b < 0x20) {
+                throw error("caractère de contrôle dans une chaîne");
+            } else if (b < 0x80) {
+                append((char) b);
+            } else {
+                decodeUtf8(b);
+            }
+        }
+        int h = 0;
+        for (int i = 0; i < length; i++) h = 31 * h + chars[i];
+        hash = h;
+    }
+
+    private void decodeUtf8(int b) throws IOException {
+        int cp;
+        int extra;
+        if ((b & 0xE0) == 0xC0) {
+            cp = b & 0x1F;
+            extra = 1;
+        } else if ((b & 0xF0) == 0xE0) {
+            cp = b & 0x0F;
+            extra = 2;
+        } else if ((b & 0xF8) == 0xF0) {
+            cp = b & 0x07;
+            extra = 3;
+        } else {
+            throw error("UTF-8 invalide");
+        }
+        for (int k = 0; k < extra; k++) {
+            int next = nextByte();
+            if ((next & 0xC0) != 0x80) throw error("UTF-8 invalide");
+            cp = (cp << 6) | (next & 0x3F);
+        }
+        if (cp >= 0x10000) {
+            append(Character.highSurrogate(cp));
+            append(Character.lowSurrogate(cp));
+        } else {
+            append((char) cp);
+        }
+    }
+
+    // Nombre, true, false ou null : jusqu'au prochain séparateur
+    private void readLiteral() throws IOException {
+        length = 0;
+        while (true) {
+            if (pos == limit && !fill()) break;
+            int b = buffer[pos];
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') break;
+            if (b < 0x20 || b >= 0x7F || b == '"' || b == '{' || b == '[' || b == ':') throw error("valeur invalide");
+            append((char) b);
+            pos++;
+        }
+        if (length == 0) throw error("valeur attendue");
+        char c = chars[0];
+        if (c == 't' && !isLiteral("true") || c == 'f' && !isLiteral("false") || c == 'n' && !isLiteral("null")) {
+            throw error("valeur invalide : " + new String(chars, 0, length));
+        }
+        if ((c == '-' || (c >= '0' && c <= '9')) && !isNumber(text)) {
+            throw error("nombre invalide : " + new String(chars, 0, length));
+        }
+    }
+
+    /**
+     * Grammaire des nombres JSON (RFC 8259) : -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+     * Ni Infinity, ni NaN, ni suffixe (1.5f), ni zéro en tête (01).
+     */
+    static boolean isNumber(CharSequence s) {
+        int n = s.length();
+        int i = 0;
+        if (i < n && s.charAt(i) == '-') i++;
+        if (i == n) return false;
+        if (s.charAt(i) == '0') {
+            i++;
+        } else {
+            int start = i;
+            while (i < n && isDigit(s.charAt(i))) i++;
+            if (i == start) return false;
+        }
+        if (i < n && s.charAt(i) == '.') {
+            int start = ++i;
+            while (i < n && isDigit(s.charAt(i))) i++;
+            if (i == start) return false;
+        }
+        if (i < n && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < n && (s.charAt(i) == '+' || s.charAt(i) == '-')) i++;
+            int start = i;
+            while (i < n && isDigit(s.charAt(i))) i++;
+            if (i == start) return false;
+        }
+        return i == n;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private boolean isLiteral(String literal) {
+        if (length != literal.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (chars[i] != literal.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void append(char c) {
+        if (length == chars.length) ensure(length + 1);
+        chars[length++] = c;
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > chars.length) chars = java.util.Arrays.copyOf(chars, Math.max(capacity, chars.length * 2));
+    }
+
+    private MalformedJsonException error(String message) {
+        return new MalformedJsonException("JSON invalide (octet " + (read + pos) + ") : " + message);
+    }
+
+    /** Vue sur le texte courant, pour les convertisseurs (Converters) sans sous-chaîne. */
+    private final class Text implements CharSequence {
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -31,85 +31,46 @@ public class JsonResponse {
     
     // Méthode pour convertir en JSON (version simplifiée)
     public String toJsonString() {
-        StringBuilder json = new StringBuilder();
-        json.append("{");
-        json.append("\"code\":").append(code).append(",");
-        json.append("\"data\":").append(formatData(data)).append(",");
-        json.append("\"message\":\"").append(escapeJson(message)).append("\",");
-        json.append("\"status\":\"").append(escapeJson(status)).append("\"");
-        json.append("}");
-        return json.toString();
-    }
-    
-    private String formatData(Object data) {
-        if (data == null) return "null";
-        
-        if (data instanceof String) {
-            return "\"" + escapeJson((String) data) + "\"";
-        } else if (data instanceof Number || data instanceof Boolean) {
-            return data.toString();
-        } else if (data instanceof Collection) {
-            return formatCollection((Collection<?>) data);
-        } else if (data instanceof Object[]) {
-            return formatArray((Object[]) data);
-        } else {
-            // Pour les objets simples, on utilise une réflexion basique
-            return formatObject(data);
-        }
-    }
-    
-    private String formatCollection(Collection<?> collection) {
-        StringBuilder sb = new StringBuilder("[");
-        Iterator<?> it = collection.iterator();
-        while (it.hasNext()) {
-            sb.append(formatData(it.next()));
-            if (it.hasNext()) sb.append(",");
-        }
-        sb.append("]");
-        return sb.toString();
-    }
-    
-    private String formatArray(Object[] array) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < array.length; i++) {
-            sb.append(formatData(array[i]));
-            if (i < array.length - 1) sb.append(",");
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        try {
+            writeTo(bytes);
+        } catch (java.io.IOException e) {
+            throw new java.io.UncheckedIOException(e); // impossible en mémoire
         }
-        sb.append("]");
-        return sb.toString();
+        return new String(bytes.toByteArray(), java.nio.charset.StandardCharsets.UTF_8);
     }
-    
-    private String formatObject(Object obj) {
-        // Réflexion simple pour les objets
+
+    /**
+     * Écrit l'enveloppe JSON en UTF-8 directement dans le flux, sans construire
+     * le document en mémoire (tampon borné de {@link JsonWriter}, réutilisé
+     * par thread).
+     */
+    public void writeTo(java.io.OutputStream out) throws java.io.IOException {
+        byte[] buffer = RequestContext.borrowBuffer();
         try {
-            StringBuilder sb = new StringBuilder("{");
-            java.lang.reflect.Field[] fields = obj.getClass().getDeclaredFields();
-            boolean first = true;
-            
-            for (java.lang.reflect.Field field : fields) {
-                field.setAccessible(true);
-                Object value = field.get(obj);
-                
-                if (value != null) {
-                    if (!first) sb.append(",");
-                    sb.append("\"").append(field.getName()).append("\":");
-                    sb.append(formatData(value));
-                    first = false;
-                }
-            }
-            sb.append("}");
-            return sb.toString();
-        } catch (Exception e) {
-            return "{}";
+            JsonWriter json = new JsonWriter(out, buffer);
+            writeHead(json);
+            json.writeValue(data);
+            writeTail(json);
+            json.flush();
+        } finally {
+            RequestContext.release(buffer);
         }
     }
-    
-    private String escapeJson(String input) {
-        if (input == null) return "";
-        return input.replace("\\", "\\\\")
-                   .replace("\"", "\\\"")
-                   .replace("\n", "\\n")
-                   .replace("\r", "\\r")
-                   .replace("\t", "\\t");
+
+    /** Début de l'enveloppe jusqu'à "data": inclus (data écrit ensuite, éventuellement en flux). */
+    public void writeHead(JsonWriter json) throws java.io.IOException {
+        json.writeAscii("{\"code\":");
+        json.writeAscii(String.valueOf(code));
+        json.writeAscii(",\"data\":");
+    }
+
+    /** Fin de l'enveloppe, après la valeur de data. */
+    public void writeTail(JsonWriter json) throws java.io.IOException {
+        json.writeAscii(",\"message\":\"");
+        json.writeEscaped(message);
+        json.writeAscii("\",\"status\":\"");
+        json.writeEscaped(status);
+        json.writeAscii("\"}");
     }
 }
\ No newline at end of file
@@ -0,0 +1,227 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registre des sérialiseurs JSON par classe. Le plan d'une classe (getters en
+ * MethodHandle, noms de champs déjà échappés en octets) est construit une
+ * seule fois et conservé dans un ClassValue : les DTO fréquents sont écrits
+ * sans aucune réflexion.
+ */
+public final class JsonSerializers {
+
+    /**
+     * Écrit une valeur non nulle d'un type donné.
+     */
+    public interface JsonSerializer {
+        void write(Object value, JsonWriter out) throws IOException;
+    }
+
+    private static final Map<Class<?>, JsonSerializer> custom = new ConcurrentHashMap<>();
+
+    private static final ClassValue<JsonSerializer> plans = new ClassValue<JsonSerializer>() {
+        @Override
+        protected JsonSerializer computeValue(Class<?> type) {
+            JsonSerializer registered = custom.get(type);
+            return (registered != null) ? registered : buildPlan(type);
+        }
+    };
+
+    private JsonSerializers() {
+    }
+
+    /** Sérialiseur (mis en cache) pour une classe. */
+    public static JsonSerializer of(Class<?> type) {
+        return plans.get(type);
+    }
+
+    /** Enregistre un sérialiseur applicatif pour un type exact. */
+    public static void register(Class<?> type, JsonSerializer serializer) {
+        custom.put(type, serializer);
+        plans.remove(type);
+    }
+
+    // --- Construction des plans ---
+
+    private static JsonSerializer buildPlan(Class<?> type) {
+        if (type == String.class) return (v, out) -> out.writeString((String) v);
+        if (type == Boolean.class || Number.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeAscii(v.toString());
+        }
+        if (type == Character.class || CharSequence.class.isAssignableFrom(type)
+                || type == java.util.UUID.class || type == java.net.URI.class) {
+            return (v, out) -> out.writeString(v.toString());
+        }
+        if (Enum.class.isAssignableFrom(type)) return (v, out) -> out.writeString(((Enum<?>) v).name());
+        if (java.util.Date.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeString(((java.util.Date) v).toInstant().toString());
+        }
+        if (java.util.Calendar.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeString(((java.util.Calendar) v).toInstant().toString());
+        }
+        if (java.time.temporal.TemporalAccessor.class.isAssignableFrom(type)
+                || java.time.temporal.TemporalAmount.class.isAssignableFrom(type)) {
+            return (v, out) -> out.writeString(v.toString());
+        }
+        if (Collection.class.isAssignableFrom(type)) return JsonSerializers::writeCollection;
+        if (Map.class.isAssignableFrom(type)) return JsonSerializers::writeMap;
+        if (type.isArray()) return arrayPlan(type.getComponentType());
+        return objectPlan(type);
+    }
+
+    private static void writeCollection(Object value, JsonWriter out) throws IOException {
+        if (!out.enter(value)) return;
+        out.writeByte('[');
+        Iterator<?> it = ((Collection<?>) value).iterator();
+        while (it.hasNext()) {
+            out.writeValue(it.next());
+            if (it.hasNext()) out.writeByte(',');
+        }
+        out.writeByte(']');
+        out.exit(value);
+    }
+
+    private static void writeMap(Object value, JsonWriter out) throws IOException {
+        if (!out.enter(value)) return;
+        out.writeByte('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+            if (!first) out.writeByte(',');
+            out.writeString(String.valueOf(entry.getKey()));
+            out.writeByte(':');
+            out.writeValue(entry.getValue());
+            first = false;
+        }
+        out.writeByte('}');
+        out.exit(value);
+    }
+
+    private static JsonSerializer arrayPlan(Class<?> component) {
+        if (!component.isPrimitive()) {
+            return (v, out) -> {
+                if (!out.enter(v)) return;
+                Object[] array = (Object[]) v;
+                out.writeByte('[');
+                for (int i = 0; i < array.length; i++) {
+                    if (i > 0) out.writeByte(',');
+                    out.writeValue(array[i]);
+                }
+                out.writeByte(']');
+                out.exit(v);
+            };
+        }
+        if (component == int.class) return (v, out) -> {
+            int[] a = (int[]) v;
+            out.writeByte('[');
+            for (int i = 0; i < a.length; i++) { if (i > 0) out.writeByte(','); out.writeAscii(Integer.toString(a[i])); }
+            out.writeByte(']');
+        };
+        if (component == long.class) return (v, out) -> {
+            long[] a = (long[]) v;
+            out.writeByte('[');
+            for (int i = 0; i < a.length; i++) { if (i > 0) out.writeByte(','); out.writeAscii(Long.toString(a[i])); }
+            out.writeByte(']');
+        };
+        if (component == double.class) return (v, out) -> {
+            double[] a = (double[]) v;
+            out.writeByte('[');
+            for (int i = 0; i < a.length; i++) { if (i > 0) out.writeByte(','); out.writeAscii(Double.toString(a[i])); }
+            out.writeByte(']');
+        };
+        if (component == char.class) return (v, out) -> out.writeString(new String((char[]) v));
+        // byte, short, float, boolean : passage par java.lang.reflect.Array
+        return (v, out) -> {
+            int length = java.lang.reflect.Array.getLength(v);
+            out.writeByte('[');
+            for (int i = 0; i < length; i++) {
+                if (i > 0) out.writeByte(',');
+                out.writeAscii(String.valueOf(java.lang.reflect.Array.get(v, i)));
+            }
+            out.writeByte(']');
+        };
+    }
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Plan d'un objet : un getter MethodHandle et un nom pré-encodé par champ
+     * déclaré (hors static), comme le faisait la réflexion de formatObject.
+     */
+    private static JsonSerializer objectPlan(Class<?> type) {
+        List<MethodHandle> getters = new ArrayList<>();
+        List<byte[]> names = new ArrayList<>();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            for (Field field : type.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) continue;
+                field.setAccessible(true);
+                getters.add(lookup.unreflectGetter(field).asType(GETTER_TYPE));
+                names.add(encodeName(field.getName()));
+            }
+        } catch (Exception e) {
+            // Classe non accessible (module fermé...) : même résultat qu'avant
+            return (v, out) -> out.writeAscii("{}");
+        }
+        return new ObjectSerializer(getters.toArray(new MethodHandle[0]), names.toArray(new byte[0][]));
+    }
+
+    private static byte[] encodeName(String name) {
+        java.io.ByteArrayOutputStream bytes = new java.io.ByteArrayOutputStream();
+        JsonWriter w = new JsonWriter(bytes);
+        try {
+            w.writeString(name);
+            w.writeByte(':');
+            w.flush();
+        } catch (IOException e) {
+            throw new java.io.UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static final class ObjectSerializer implements JsonSerializer {
+        private final MethodHandle[] getters;
+        private final byte[][] names; // "nom": déjà échappé en UTF-8
+
+        ObjectSerializer(MethodHandle[] getters, byte[][] names) {
+            this.getters = getters;
+            this.names = names;
+        }
+
+        @Override
+        public void write(Object obj, JsonWriter out) throws IOException {
+            // On lit d'abord tous les champs : en cas d'erreur l'objet vaut {}
+            // sans avoir écrit de JSON partiel dans le flux
+            Object[] values = new Object[getters.length];
+            try {
+                for (int i = 0; i < getters.length; i++) values[i] = (Object) getters[i].invokeExact(obj);
+            } catch (Throwable t) {
+                out.writeAscii("{}");
+                return;
+            }
+
+            if (!out.enter(obj)) return;
+            out.writeByte('{');
+            boolean first = true;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] == null) continue;
+                if (!first) out.writeByte(',');
+                out.writeBytes(names[i]);
+                out.writeValue(values[i]);
+                first = false;
+            }
+            out.writeByte('}');
+            out.exit(obj);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Écriture JSON en flux : les octets UTF-8 sont produits directement dans un
+ * tampon de taille fixe, vidé dans l'OutputStream dès qu'il est plein.
+ * Aucune chaîne intermédiaire n'est construite pour le document.
+ */
+public class JsonWriter {
+
+    private static final int BUFFER_SIZE = 8192;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int pos;
+    // Conteneurs en cours d'écriture, pour couper les cycles
+    private Map<Object, Boolean> inProgress;
+
+    public JsonWriter(OutputStream out) {
+        this(out, new byte[BUFFER_SIZE]);
+    }
+
+    /** Écriture dans un tampon fourni (réutilisé d'une réponse à l'autre). */
+    JsonWriter(OutputStream out, byte[] buffer) {
+        this.out = out;
+        this.buffer = buffer;
+    }
+
+    // --- Valeurs ---
+
+    public void writeValue(Object data) throws IOException {
+        if (data == null) {
+            writeAscii("null");
+        } else {
+            // Plan mis en cache par classe (voir JsonSerializers)
+            JsonSerializers.of(data.getClass()).write(data, this);
+        }
+    }
+
+    /**
+     * Marque le début d'un conteneur. Si l'objet est déjà en cours d'écriture
+     * (cycle), écrit null et retourne false.
+     */
+    boolean enter(Object container) throws IOException {
+        if (inProgress == null) inProgress = new IdentityHashMap<>();
+        if (inProgress.put(container, Boolean.TRUE) != null) {
+            writeAscii("null");
+            return false;
+        }
+        return true;
+    }
+
+    void exit(Object container) {
+        inProgress.remove(container);
+    }
+
+    // --- Primitives d'écriture ---
+
+    /** Chaîne entre guillemets, échappée et encodée en UTF-8. */
+    public void writeString(String s) throws IOException {
+        writeByte('"');
+        writeEscaped(s);
+        writeByte('"');
+    }
+
+    public void writeEscaped(String s) throws IOException {
+        if (s == null) return;
+        int len = s.length();
+        for (int i = 0; i < len; i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\': writeByte('\\'); writeByte('\\'); break;
+                case '"':  writeByte('\\'); writeByte('"'); break;
+                case '\n': writeByte('\\'); writeByte('n'); break;
+                case '\r': writeByte('\\'); writeByte('r'); break;
+                case '\t': writeByte('\\'); writeByte('t'); break;
+                default:
+                    if (c < 0x20) {
+                        writeAscii("\\u00");
+                        writeByte(HEX[c >> 4]);
+                        writeByte(HEX[c & 0xF]);
+                    } else if (c < 0x80) {
+                        writeByte(c);
+                    } else if (c < 0x800) {
+                        writeByte(0xC0 | (c >> 6));
+                        writeByte(0x80 | (c & 0x3F));
+                    } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                        int cp = Character.toCodePoint(c, s.charAt(++i));
+                        writeByte(0xF0 | (cp >> 18));
+                        writeByte(0x80 | ((cp >> 12) & 0x3F));
+                        writeByte(0x80 | ((cp >> 6) & 0x3F));
+                        writeByte(0x80 | (cp & 0x3F));
+                    } else if (Character.isSurrogate(c)) {
+                        writeByte('?'); // surrogate isolé, comme le ferait l'encodeur UTF-8 du JDK
+                    } else {
+                        writeByte(0xE0 | (c >> 12));
+                        writeByte(0x80 | ((c >> 6) & 0x3F));
+                        writeByte(0x80 | (c & 0x3F));
+                    }
+            }
+        }
+    }
+
+    /** Texte ASCII écrit tel quel (nombres, littéraux, ponctuation). */
+    public void writeAscii(String s) throws IOException {
+        int len = s.length();
+        for (int i = 0; i < len; i++) writeByte(s.charAt(i));
+    }
+
+    /** Texte brut encodé en UTF-8, sans échappement (flux texte : SSE...). */
+    public void writeText(String s) throws IOException {
+        writeBytes(s.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+    }
+
+    public void writeBytes(byte[] bytes) throws IOException {
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    public void writeBytes(byte[] bytes, int off, int len) throws IOException {
+        if (len > buffer.length - pos) {
+            flushBuffer();
+            if (len > buffer.length) {
+                out.write(bytes, off, len);
+                return;
+            }
+        }
+        System.arraycopy(bytes, off, buffer, pos, len);
+        pos += len;
+    }
+
+    public void writeByte(int b) throws IOException {
+        if (pos == buffer.length) flushBuffer();
+        buffer[pos++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (pos > 0) {
+            out.write(buffer, 0, pos);
+            pos = 0;
+        }
+    }
+
+    /** Vide le tampon et l'OutputStream sous-jacent. */
+    public void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+}
@@ -0,0 +1,17 @@
+package nofy.p17;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Exécute la méthode hors du thread du conteneur (servlet asynchrone).
+ * Nécessite &lt;async-supported&gt;true&lt;/async-supported&gt; sur le FrontServlet.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface MyAsync {
+    long timeout() default -1;     // ms, -1 : valeur de l'init-param asyncTimeout
+    int maxConcurrent() default -1; // appels simultanés, -1 : init-param asyncMaxConcurrent, 0 : illimité
+}
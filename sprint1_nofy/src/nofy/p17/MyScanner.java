@@ -1,94 +1,336 @@
 package nofy.p17;
 
+import java.io.BufferedReader;
 import java.io.File;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class MyScanner {
-    private List<Class<?>> controllers = new ArrayList<>();
-    
+    /** Index des contrôleurs précalculé au build (un nom de classe par ligne). */
+    public static final String INDEX_RESOURCE = "META-INF/nofy/controllers.idx";
+    // En-tête de l'index : package pour lequel il a été construit
+    private static final String INDEX_PACKAGE = "#package ";
+
+    private static final String CONTROLLER_DESCRIPTOR = ClassFileReader.descriptorOf(Controller.class);
+
+    private final List<Class<?>> controllers = Collections.synchronizedList(new ArrayList<>());
+    private final List<ScanStats> scanStats = Collections.synchronizedList(new ArrayList<>());
+    private final ClassLoader classLoader; // null : chargeur de contexte du thread
+
+    public MyScanner() {
+        this(null);
+    }
+
+    /** Scanne et charge les contrôleurs avec ce chargeur (rechargement à chaud). */
+    public MyScanner(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    private ClassLoader getClassLoader() {
+        return (classLoader != null) ? classLoader : Thread.currentThread().getContextClassLoader();
+    }
+
     // Scanner depuis un JAR
     public void scanControllersFromJar(String jarPath) throws Exception {
         System.out.println("🔍 Scan du JAR: " + jarPath);
-        
-        JarFile jarFile = new JarFile(jarPath);
-        Enumeration<JarEntry> entries = jarFile.entries();
-        
+
+        List<String> classNames;
+        try (JarFile jarFile = new JarFile(jarPath)) {
+            classNames = findControllerClassNames(jarFile, Collections.singletonList(""), new AtomicInteger());
+        }
+
         URL[] urls = { new URL("jar:file:" + jarPath + "!/") };
         URLClassLoader classLoader = URLClassLoader.newInstance(urls);
-        
-        int found = 0;
-        while (entries.hasMoreElements()) {
-            JarEntry entry = entries.nextElement();
-            if (entry.getName().endsWith(".class")) {
-                String className = entry.getName()
-                    .replace("/", ".")
-                    .replace(".class", "");
-                
-                try {
-                    Class<?> clazz = classLoader.loadClass(className);
-                    if (clazz.isAnnotationPresent(Controller.class)) {
-                        controllers.add(clazz);
-                        found++;
-                        System.out.println("✅ Contrôleur: " + className);
-                    }
-                } catch (NoClassDefFoundError | ClassNotFoundException e) {
-                    // Ignorer
-                }
-            }
-        }
-        jarFile.close();
+        int found = loadControllers(classNames, classLoader);
         System.out.println("🎯 " + found + " contrôleurs trouvés dans le JAR");
     }
-    
+
     // Scanner depuis un package (classpath)
     public void scanControllersFromPackage(String packageName) throws Exception {
-        System.out.println("🔍 Scan du package: " + packageName);
-        
-        String path = packageName.replace('.', '/');
-        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-        Enumeration<URL> resources = classLoader.getResources(path);
-        
-        int found = 0;
-        while (resources.hasMoreElements()) {
-            URL resource = resources.nextElement();
-            if (resource.getProtocol().equals("file")) {
-                scanDirectory(new File(resource.getFile()), packageName, found);
+        scanControllersFromPackages(Collections.singletonList(packageName));
+    }
+
+    /**
+     * Scanne plusieurs packages de base. Les sources (répertoires de classes ou
+     * JAR de WEB-INF/lib) sont regroupées : chaque archive n'est parcourue
+     * qu'une fois, tous packages confondus, et les sources le sont en parallèle.
+     */
+    public void scanControllersFromPackages(Collection<String> packageNames) throws Exception {
+        System.out.println("🔍 Scan des packages: " + packageNames);
+
+        ClassLoader classLoader = getClassLoader();
+        Map<String, Source> sources = new LinkedHashMap<>();
+        for (String packageName : withoutSubPackages(packageNames)) {
+            String path = packageName.replace('.', '/');
+            Enumeration<URL> resources = classLoader.getResources(path);
+            while (resources.hasMoreElements()) {
+                URL resource = resources.nextElement();
+                if (resource.getProtocol().equals("file")) {
+                    String dir = new File(resource.toURI()).getPath();
+                    sources.computeIfAbsent(dir, k -> new Source(k, false)).packages.add(packageName);
+                } else if (resource.getProtocol().equals("jar")) {
+                    URLConnection connection = resource.openConnection();
+                    String jar = ((JarURLConnection) connection).getJarFileURL().toString();
+                    sources.computeIfAbsent(jar, k -> new Source(k, true)).packages.add(packageName);
+                }
             }
         }
-        System.out.println("🎯 " + found + " contrôleurs trouvés dans le package");
-    }
-    
-    private void scanDirectory(File directory, String packageName, int count) throws Exception {
-        File[] files = directory.listFiles();
-        if (files == null) return;
-        
-        for (File file : files) {
-            if (file.isDirectory()) {
-                scanDirectory(file, packageName + "." + file.getName(), count);
-            } else if (file.getName().endsWith(".class")) {
-                String className = packageName + '.' + file.getName().replace(".class", "");
-                try {
-                    Class<?> clazz = Class.forName(className);
-                    if (clazz.isAnnotationPresent(Controller.class)) {
-                        controllers.add(clazz);
-                        count++;
-                        System.out.println("✅ Contrôleur: " + className);
+
+        List<String> classNames = sources.values().parallelStream()
+            .flatMap(source -> source.scan().stream())
+            .collect(Collectors.toList());
+
+        int found = loadControllers(classNames, classLoader);
+        System.out.println("🎯 " + found + " contrôleurs trouvés dans les packages");
+    }
+
+    // "a.b" est déjà couvert par "a" : inutile de parcourir deux fois les mêmes classes
+    private static List<String> withoutSubPackages(Collection<String> packageNames) {
+        List<String> kept = new ArrayList<>();
+        for (String candidate : new TreeSet<>(packageNames)) {
+            boolean covered = kept.stream().anyMatch(parent -> candidate.startsWith(parent + "."));
+            if (!covered) kept.add(candidate);
+        }
+        return kept;
+    }
+
+    /**
+     * Une source de classes (répertoire ou archive) et les packages à y chercher.
+     */
+    private final class Source {
+        final String location;
+        final boolean archive;
+        final Set<String> packages = new LinkedHashSet<>();
+
+        Source(String location, boolean archive) {
+            this.location = location;
+            this.archive = archive;
+        }
+
+        List<String> scan() {
+            long start = System.nanoTime();
+            AtomicInteger inspected = new AtomicInteger();
+            List<String> names = new ArrayList<>();
+            try {
+                if (archive) {
+                    // Un seul passage dans l'archive pour tous les packages
+                    try (JarFile jarFile = new JarFile(new File(new URL(location).toURI()))) {
+                        names = findControllerClassNames(jarFile, packages, inspected);
+                    }
+                } else {
+                    for (String packageName : packages) {
+                        names.addAll(scanDirectory(Paths.get(location), packageName, inspected));
                     }
-                } catch (ClassNotFoundException | NoClassDefFoundError e) {
-                    // Ignorer
                 }
+            } catch (Exception e) {
+                System.err.println("Erreur de scan pour " + location + ": " + e.getMessage());
             }
+            ScanStats stat = new ScanStats(location, inspected.get(), names.size(),
+                                           (System.nanoTime() - start) / 1_000_000);
+            scanStats.add(stat);
+            System.out.println("📊 " + stat);
+            return names;
         }
     }
-    
+
+    /**
+     * Métriques de démarrage d'une source scannée.
+     */
+    public static class ScanStats {
+        private final String source;
+        private final int classesInspected;
+        private final int controllersFound;
+        private final long millis;
+
+        public ScanStats(String source, int classesInspected, int controllersFound, long millis) {
+            this.source = source;
+            this.classesInspected = classesInspected;
+            this.controllersFound = controllersFound;
+            this.millis = millis;
+        }
+
+        public String getSource() { return source; }
+        public int getClassesInspected() { return classesInspected; }
+        public int getControllersFound() { return controllersFound; }
+        public long getMillis() { return millis; }
+
+        @Override
+        public String toString() {
+            return source + " : " + classesInspected + " classes inspectées, "
+                + controllersFound + " contrôleurs, " + millis + " ms";
+        }
+    }
+
+    /**
+     * Charge les contrôleurs listés dans les index {@link #INDEX_RESOURCE} du
+     * classpath, sous les packages de base seulement. Retourne les packages de
+     * base couverts par un index (ligne "#package p" de p ou d'un parent) :
+     * les autres restent à scanner.
+     */
+    public Set<String> scanControllersFromIndex(Collection<String> basePackages) throws Exception {
+        ClassLoader classLoader = getClassLoader();
+        Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+        Set<String> declared = new HashSet<>();
+        List<String> classNames = new ArrayList<>();
+        while (indexes.hasMoreElements()) {
+            URL index = indexes.nextElement();
+            System.out.println("🔍 Index des contrôleurs: " + index);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.startsWith(INDEX_PACKAGE)) {
+                        declared.add(line.substring(INDEX_PACKAGE.length()).trim());
+                    } else if (!line.isEmpty() && !line.startsWith("#") && inPackages(line, basePackages)) {
+                        classNames.add(line);
+                    }
+                }
+            }
+        }
+        int found = loadControllers(classNames, classLoader);
+        System.out.println("🎯 " + found + " contrôleurs chargés depuis l'index");
+
+        Set<String> covered = new HashSet<>();
+        for (String basePackage : basePackages) {
+            if (inPackages(basePackage + ".", declared)) covered.add(basePackage);
+        }
+        return covered;
+    }
+
+    // Classe (ou "package.") sous l'un des packages, package vide compris
+    private static boolean inPackages(String className, Collection<String> packageNames) {
+        for (String packageName : packageNames) {
+            if (packageName.isEmpty() || className.startsWith(packageName + ".")) return true;
+        }
+        return false;
+    }
+
+    // Lecture du bytecode de chaque .class, en parallèle, sans charger les classes
+    private static List<String> scanDirectory(Path directory, String packageName, AtomicInteger inspected) {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory)) {
+            files = walk.filter(f -> f.toString().endsWith(".class")).collect(Collectors.toList());
+        } catch (IOException e) {
+            return Collections.emptyList();
+        }
+        inspected.addAndGet(files.size());
+        return files.parallelStream()
+            .map(file -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    return controllerName(in);
+                } catch (IOException e) {
+                    return null; // Ignorer
+                }
+            })
+            .filter(Objects::nonNull)
+            .filter(name -> name.startsWith(packageName + "."))
+            .collect(Collectors.toList());
+    }
+
+    private static List<String> findControllerClassNames(JarFile jarFile, Collection<String> packageNames,
+                                                         AtomicInteger inspected) {
+        List<String> prefixes = new ArrayList<>();
+        for (String packageName : packageNames) {
+            prefixes.add(packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/");
+        }
+        List<JarEntry> entries = jarFile.stream()
+            .filter(entry -> entry.getName().endsWith(".class")
+                && prefixes.stream().anyMatch(prefix -> entry.getName().startsWith(prefix)))
+            .collect(Collectors.toList());
+        inspected.addAndGet(entries.size());
+        return entries.parallelStream()
+            .map(entry -> {
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    return controllerName(in);
+                } catch (IOException e) {
+                    return null; // Ignorer
+                }
+            })
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    private static String controllerName(InputStream classFile) throws IOException {
+        ClassFileReader info = ClassFileReader.read(classFile);
+        return info.hasAnnotation(CONTROLLER_DESCRIPTOR) ? info.getClassName() : null;
+    }
+
+    // Seules les classes annotées @Controller sont effectivement chargées
+    private int loadControllers(Collection<String> classNames, ClassLoader classLoader) {
+        int found = 0;
+        for (String className : new TreeSet<>(classNames)) {
+            try {
+                Class<?> clazz = Class.forName(className, false, classLoader);
+                if (clazz.isAnnotationPresent(Controller.class) && !controllers.contains(clazz)) {
+                    controllers.add(clazz);
+                    found++;
+                    System.out.println("✅ Contrôleur: " + className);
+                }
+            } catch (ClassNotFoundException | NoClassDefFoundError e) {
+                // Ignorer
+            }
+        }
+        return found;
+    }
+
     public List<Class<?>> getControllers() {
         return controllers;
     }
-}
\ No newline at end of file
+
+    /** Métriques par source du dernier scan (classes inspectées, contrôleurs, durée). */
+    public List<ScanStats> getScanStats() {
+        return scanStats;
+    }
+
+    /**
+     * Écrit l'index des contrôleurs d'un répertoire de classes compilées, à
+     * lancer au build : java nofy.p17.MyScanner &lt;classesDir&gt; &lt;package&gt;...
+     * Au démarrage (init-param controllerIndex=true), {@link #scanControllersFromIndex}
+     * évite alors le scan de ces packages.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: java nofy.p17.MyScanner <classesDir> <package> [<package>...]");
+            System.exit(1);
+        }
+        Path classesDir = Paths.get(args[0]);
+        TreeSet<String> classNames = new TreeSet<>();
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            lines.add(INDEX_PACKAGE + args[i]);
+            Path packageDir = classesDir.resolve(args[i].replace('.', File.separatorChar));
+            if (Files.isDirectory(packageDir)) classNames.addAll(scanDirectory(packageDir, args[i], new AtomicInteger()));
+        }
+        lines.addAll(classNames);
+        Path index = classesDir.resolve(INDEX_RESOURCE);
+        Files.createDirectories(index.getParent());
+        Files.write(index, lines, StandardCharsets.UTF_8);
+        System.out.println("🎯 " + classNames.size() + " contrôleurs écrits dans " + index);
+    }
+}
@@ -0,0 +1,15 @@
+package nofy.p17;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Corps de requête au-delà des limites configurées : répondu en 413.
+ */
+public class PayloadTooLargeException extends ServletException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PayloadTooLargeException(String message) {
+        super(message);
+    }
+}
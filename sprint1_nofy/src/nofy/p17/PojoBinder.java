@@ -0,0 +1,314 @@
+package nofy.p17;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Binding formulaire → POJO. Le plan d'une classe (setters, champs et
+ * convertisseurs par nom de propriété) est construit une seule fois : le
+ * binding d'une requête ne fait ni recherche réflexive ni exception de
+ * contrôle. Gère les propriétés imbriquées (address.city) et les listes
+ * indexées (items[0].qty, index limité à 255).
+ */
+public final class PojoBinder {
+
+    private static final ClassValue<PojoBinder> binders = new ClassValue<PojoBinder>() {
+        @Override
+        protected PojoBinder computeValue(Class<?> type) {
+            return new PojoBinder(type);
+        }
+    };
+
+    // Au-delà, les chemins de paramètres ne sont plus mis en cache (noms venant du client)
+    private static final int MAX_CACHED_PATHS = 1024;
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> type;
+    private final MethodHandle constructor; // null si pas de constructeur sans argument
+    private final Map<String, Property> properties = new HashMap<>();
+    private final Map<String, Step[]> paths = new ConcurrentHashMap<>();
+
+    public static PojoBinder of(Class<?> type) {
+        return binders.get(type);
+    }
+
+    private PojoBinder(Class<?> type) {
+        this.type = type;
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+        MethodHandle ctor = null;
+        try {
+            java.lang.reflect.Constructor<?> c = type.getDeclaredConstructor();
+            c.setAccessible(true);
+            ctor = lookup.unreflectConstructor(c).asType(MethodType.methodType(Object.class));
+        } catch (Exception e) {
+            // Pas de constructeur sans argument : newInstance() échouera
+        }
+        this.constructor = ctor;
+
+        // Champs déclarés (classe et superclasses)
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()) || properties.containsKey(field.getName())) continue;
+                Property property = new Property(field.getType(), field.getGenericType());
+                try {
+                    field.setAccessible(true);
+                    property.getter = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                    if (!Modifier.isFinal(field.getModifiers())) {
+                        property.fieldSetter = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+                    }
+                } catch (Exception e) {
+                    // Champ inaccessible : seuls les accesseurs publics serviront
+                }
+                properties.put(field.getName(), property);
+            }
+        }
+
+        // Setters / getters publics
+        for (Method method : type.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers())) continue;
+            String name = method.getName();
+            try {
+                if (name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1) {
+                    Class<?> paramType = method.getParameterTypes()[0];
+                    Property property = property(decapitalize(name.substring(3)), paramType, method.getGenericParameterTypes()[0]);
+                    MethodHandle setter = lookup.unreflect(method).asType(SETTER_TYPE);
+                    if (paramType == String.class) property.stringSetter = setter;
+                    else if (paramType == String[].class) property.arraySetter = setter;
+                    else if (property.typedSetter == null) {
+                        property.typedSetter = setter;
+                        property.typedSetterType = paramType;
+                    }
+                } else if (name.length() > 3 && name.startsWith("get") && method.getParameterCount() == 0
+                        && method.getReturnType() != void.class && !name.equals("getClass")) {
+                    Property property = property(decapitalize(name.substring(3)), method.getReturnType(), method.getGenericReturnType());
+                    if (property.getter == null) property.getter = lookup.unreflect(method).asType(GETTER_TYPE);
+                }
+            } catch (IllegalAccessException e) {
+                // Méthode publique d'une classe non publique : ignorée
+            }
+        }
+    }
+
+    private Property property(String name, Class<?> propertyType, Type genericType) {
+        return properties.computeIfAbsent(name, k -> new Property(propertyType, genericType));
+    }
+
+    // "Nom" → "nom", comme "set" + Character.toUpperCase(...) le faisait en sens inverse
+    private static String decapitalize(String s) {
+        return Character.toLowerCase(s.charAt(0)) + s.substring(1);
+    }
+
+    public boolean canInstantiate() {
+        return constructor != null;
+    }
+
+    public Object newInstance() throws Exception {
+        if (constructor == null) {
+            throw new InstantiationException("La classe " + type.getName() + " n'a pas de constructeur sans argument");
+        }
+        try {
+            return (Object) constructor.invokeExact();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * Affecte chaque paramètre de la requête à la propriété correspondante.
+     * Les paramètres sans propriété sont ignorés, les erreurs de conversion
+     * sont journalisées sans interrompre le binding des autres champs.
+     */
+    public void bind(Object target, Map<String, String[]> parameterMap) {
+        for (Map.Entry<String, String[]> entry : parameterMap.entrySet()) {
+            String paramName = entry.getKey();
+            try {
+                Step[] path = path(paramName);
+                if (path != null) apply(target, path, entry.getValue());
+            } catch (Throwable e) {
+                // Erreur lors de l'invocation du setter ou de la conversion
+                System.err.println("Erreur de binding pour le champ " + paramName + " dans la classe " + type.getName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // --- Chemins de propriétés : address.city, items[0].qty ---
+
+    private static final class Step {
+        final String name;
+        final int index; // -1 si pas d'index
+
+        Step(String name, int index) {
+            this.name = name;
+            this.index = index;
+        }
+    }
+
+    private static final Step[] NO_PATH = new Step[0];
+    // Index maximal accepté dans items[i] : la liste n'est jamais agrandie au-delà
+    private static final int AUTO_GROW_LIMIT = 256;
+
+    private Step[] path(String paramName) {
+        Step[] path = paths.get(paramName);
+        if (path == null) {
+            path = parsePath(paramName);
+            if (paths.size() < MAX_CACHED_PATHS) paths.put(paramName, path);
+        }
+        return (path.length == 0) ? null : path;
+    }
+
+    private static Step[] parsePath(String paramName) {
+        List<Step> steps = new ArrayList<>();
+        int len = paramName.length();
+        int i = 0;
+        while (i < len) {
+            int end = i;
+            while (end < len && paramName.charAt(end) != '.' && paramName.charAt(end) != '[') end++;
+            if (end == i) return NO_PATH;
+            String name = paramName.substring(i, end);
+            int index = -1;
+            if (end < len && paramName.charAt(end) == '[') {
+                int close = paramName.indexOf(']', end);
+                if (close < 0) return NO_PATH;
+                index = 0;
+                for (int k = end + 1; k < close; k++) {
+                    char c = paramName.charAt(k);
+                    if (c < '0' || c > '9') return NO_PATH;
+                    index = index * 10 + (c - '0');
+                    if (index >= AUTO_GROW_LIMIT) return NO_PATH; // paramètre ignoré
+                }
+                if (close == end + 1) return NO_PATH;
+                end = close + 1;
+            }
+            steps.add(new Step(name, index));
+            if (end < len && paramName.charAt(end) != '.') return NO_PATH;
+            i = end + 1;
+        }
+        return steps.toArray(NO_PATH);
+    }
+
+    private void apply(Object target, Step[] path, String[] values) throws Throwable {
+        Object current = target;
+        PojoBinder binder = this;
+        for (int s = 0; s < path.length; s++) {
+            Step step = path[s];
+            Property property = binder.properties.get(step.name);
+            if (property == null) return;
+            boolean last = (s == path.length - 1);
+
+            if (step.index < 0) {
+                if (last) {
+                    property.assign(current, values);
+                    return;
+                }
+                Object child = property.getOrCreate(current);
+                if (child == null) return;
+                current = child;
+                binder = PojoBinder.of(child.getClass());
+            } else {
+                // Liste indexée : on l'agrandit si besoin
+                if (!List.class.isAssignableFrom(property.type)) return;
+                @SuppressWarnings("unchecked")
+                List<Object> list = (List<Object>) property.getOrCreate(current);
+                if (list == null) return;
+                Class<?> elementType = Converters.elementType(property.genericType);
+                while (list.size() <= step.index) list.add(null);
+                if (last) {
+                    if (values.length == 1) list.set(step.index, property.elementConverter().convert(values[0]));
+                    return;
+                }
+                Object element = list.get(step.index);
+                if (element == null) {
+                    PojoBinder elementBinder = PojoBinder.of(elementType);
+                    if (!elementBinder.canInstantiate()) return;
+                    element = elementBinder.newInstance();
+                    list.set(step.index, element);
+                }
+                current = element;
+                binder = PojoBinder.of(element.getClass());
+            }
+        }
+    }
+
+    /**
+     * Accès précompilés à une propriété.
+     */
+    private static final class Property {
+        final Class<?> type;
+        final Type genericType;
+        MethodHandle getter;
+        MethodHandle fieldSetter;
+        MethodHandle stringSetter;   // setX(String)
+        MethodHandle arraySetter;    // setX(String[])
+        MethodHandle typedSetter;    // setX(T)
+        Class<?> typedSetterType;
+        // Convertisseurs résolus au premier usage puis réutilisés
+        private Converters.TypeConverter<?> converter;
+        private Converters.TypeConverter<?> setterConverter;
+        private Converters.TypeConverter<?> elementConverter;
+        private Converters.MultiConverter multiConverter;
+
+        Property(Class<?> type, Type genericType) {
+            this.type = type;
+            this.genericType = genericType;
+        }
+
+        void assign(Object target, String[] values) throws Throwable {
+            if (values.length == 1 && stringSetter != null) {
+                stringSetter.invokeExact(target, (Object) values[0]);
+            } else if (values.length > 1 && arraySetter != null) {
+                arraySetter.invokeExact(target, (Object) values);
+            } else if (values.length == 1 && typedSetter != null) {
+                if (setterConverter == null) setterConverter = Converters.forType(typedSetterType);
+                typedSetter.invokeExact(target, (Object) setterConverter.convert(values[0]));
+            } else if (fieldSetter != null) {
+                if (type == String[].class) {
+                    fieldSetter.invokeExact(target, (Object) values);
+                } else if (type.isArray() || List.class.isAssignableFrom(type)) {
+                    if (multiConverter == null) multiConverter = Converters.forMultiValued(type, genericType);
+                    fieldSetter.invokeExact(target, multiConverter.convert(values));
+                } else if (values.length == 1) {
+                    if (converter == null) converter = Converters.forType(type);
+                    fieldSetter.invokeExact(target, (Object) converter.convert(values[0]));
+                }
+            }
+        }
+
+        Object getOrCreate(Object target) throws Throwable {
+            if (getter == null) return null;
+            Object value = (Object) getter.invokeExact(target);
+            if (value != null) return value;
+            if (List.class.isAssignableFrom(type)) {
+                if (!type.isAssignableFrom(ArrayList.class)) return null;
+                value = new ArrayList<>();
+            } else {
+                PojoBinder nested = PojoBinder.of(type);
+                if (!nested.canInstantiate()) return null;
+                value = nested.newInstance();
+            }
+            if (fieldSetter != null) fieldSetter.invokeExact(target, value);
+            else if (typedSetter != null) typedSetter.invokeExact(target, value);
+            else return null;
+            return value;
+        }
+
+        Converters.TypeConverter<?> elementConverter() {
+            if (elementConverter == null) elementConverter = Converters.forType(Converters.elementType(genericType));
+            return elementConverter;
+        }
+    }
+}
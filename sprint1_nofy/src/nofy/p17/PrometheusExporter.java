@@ -0,0 +1,136 @@
+package nofy.p17;
+
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Métriques du FrontServlet au format texte Prometheus (version 0.0.4) :
+ * requêtes par route / verbe / classe de statut, durées en résumés
+ * (quantiles 0.5, 0.9, 0.99, 0.999) par phase, admission, cache de
+ * réponses et scan des contrôleurs.
+ */
+public class PrometheusExporter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private PrometheusExporter() {
+    }
+
+    public static void write(PrintWriter out, Collection<RouteMetrics> routes, long notFound,
+                             ResponseCache cache, List<MyScanner.ScanStats> scanStats) {
+        out.println("# HELP nofy_requests_total Requêtes traitées, par route, verbe et classe de statut.");
+        out.println("# TYPE nofy_requests_total counter");
+        for (RouteMetrics metrics : routes) {
+            for (int statusClass = 1; statusClass <= 5; statusClass++) {
+                long count = metrics.getStatusCount(statusClass);
+                if (count == 0) continue;
+                out.println("nofy_requests_total{" + labels(metrics) + ",status=\"" + statusClass + "xx\"} " + count);
+            }
+        }
+        out.println("# HELP nofy_route_not_found_total Requêtes sans route correspondante (404).");
+        out.println("# TYPE nofy_route_not_found_total counter");
+        out.println("nofy_route_not_found_total " + notFound);
+
+        out.println("# HELP nofy_request_duration_seconds Durée des requêtes, totale et par phase.");
+        out.println("# TYPE nofy_request_duration_seconds summary");
+        for (RouteMetrics metrics : routes) {
+            summary(out, labels(metrics) + ",phase=\"total\"", metrics.getTotal());
+            for (RouteMetrics.Phase phase : RouteMetrics.Phase.values()) {
+                LatencyHistogram histogram = metrics.getPhase(phase);
+                if (histogram.getCount() == 0) continue;
+                summary(out, labels(metrics) + ",phase=\"" + phase.name().toLowerCase() + "\"", histogram);
+            }
+        }
+
+        admission(out, routes);
+
+        if (cache != null) {
+            counter(out, "nofy_cache_hits_total", "Réponses servies depuis le cache.", cache.getHitCount());
+            counter(out, "nofy_cache_misses_total", "Absences dans le cache.", cache.getMissCount());
+            counter(out, "nofy_cache_coalesced_total", "Requêtes ayant attendu un chargement en cours.", cache.getCoalescedCount());
+            counter(out, "nofy_cache_evictions_total", "Entrées évincées.", cache.getEvictionCount());
+            gauge(out, "nofy_cache_entries", "Entrées en cache.", cache.getSize());
+            gauge(out, "nofy_cache_bytes", "Taille estimée du cache (octets).", cache.getWeightedSize());
+        }
+
+        if (scanStats != null && !scanStats.isEmpty()) {
+            out.println("# HELP nofy_scan_classes_inspected Classes inspectées au démarrage, par source.");
+            out.println("# TYPE nofy_scan_classes_inspected gauge");
+            for (MyScanner.ScanStats stat : scanStats) {
+                out.println("nofy_scan_classes_inspected{source=\"" + escape(stat.getSource()) + "\"} " + stat.getClassesInspected());
+            }
+            out.println("# HELP nofy_scan_duration_seconds Durée du scan au démarrage, par source.");
+            out.println("# TYPE nofy_scan_duration_seconds gauge");
+            for (MyScanner.ScanStats stat : scanStats) {
+                out.println("nofy_scan_duration_seconds{source=\"" + escape(stat.getSource()) + "\"} " + stat.getMillis() / 1e3);
+            }
+        }
+        out.flush();
+    }
+
+    // Routes limitées (@ConcurrencyLimit...) : limite en vigueur, appels en cours, file, refus
+    private static void admission(PrintWriter out, Collection<RouteMetrics> routes) {
+        boolean any = false;
+        for (RouteMetrics metrics : routes) any |= metrics.getLimiter() != null || metrics.getRejectedCount() > 0;
+        if (!any) return;
+        out.println("# HELP nofy_concurrency_limit Appels simultanés admis sur la route.");
+        out.println("# TYPE nofy_concurrency_limit gauge");
+        for (RouteMetrics metrics : routes) {
+            if (metrics.getLimiter() != null) out.println("nofy_concurrency_limit{" + labels(metrics) + "} " + metrics.getConcurrencyLimit());
+        }
+        out.println("# HELP nofy_concurrency_in_flight Appels en cours sur la route.");
+        out.println("# TYPE nofy_concurrency_in_flight gauge");
+        for (RouteMetrics metrics : routes) {
+            if (metrics.getLimiter() != null) out.println("nofy_concurrency_in_flight{" + labels(metrics) + "} " + metrics.getInFlight());
+        }
+        out.println("# HELP nofy_concurrency_queued Requêtes en attente d'une place.");
+        out.println("# TYPE nofy_concurrency_queued gauge");
+        for (RouteMetrics metrics : routes) {
+            if (metrics.getLimiter() != null) out.println("nofy_concurrency_queued{" + labels(metrics) + "} " + metrics.getQueued());
+        }
+        out.println("# HELP nofy_concurrency_rejected_total Requêtes refusées par l'admission (503).");
+        out.println("# TYPE nofy_concurrency_rejected_total counter");
+        for (RouteMetrics metrics : routes) {
+            if (metrics.getLimiter() != null || metrics.getRejectedCount() > 0) {
+                out.println("nofy_concurrency_rejected_total{" + labels(metrics) + "} " + metrics.getRejectedCount());
+            }
+        }
+    }
+
+    private static void summary(PrintWriter out, String labels, LatencyHistogram histogram) {
+        for (double q : QUANTILES) {
+            out.println("nofy_request_duration_seconds{" + labels + ",quantile=\"" + q + "\"} "
+                + seconds(histogram.getValueAtQuantile(q)));
+        }
+        out.println("nofy_request_duration_seconds_sum{" + labels + "} " + seconds(histogram.getSum()));
+        out.println("nofy_request_duration_seconds_count{" + labels + "} " + histogram.getCount());
+    }
+
+    private static void counter(PrintWriter out, String name, String help, long value) {
+        out.println("# HELP " + name + " " + help);
+        out.println("# TYPE " + name + " counter");
+        out.println(name + " " + value);
+    }
+
+    private static void gauge(PrintWriter out, String name, String help, long value) {
+        out.println("# HELP " + name + " " + help);
+        out.println("# TYPE " + name + " gauge");
+        out.println(name + " " + value);
+    }
+
+    private static String labels(RouteMetrics metrics) {
+        return "route=\"" + escape(metrics.getRoute()) + "\",method=\"" + escape(metrics.getHttpMethod()) + "\"";
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    // Échappement des valeurs de label : \, " et retour à la ligne
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
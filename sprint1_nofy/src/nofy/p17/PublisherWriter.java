@@ -0,0 +1,139 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Écrit les éléments d'un Flow.Publisher au fil de l'eau : tableau JSON
+ * (dans l'enveloppe @MyJson si présente) ou une ligne JSON par élément
+ * (NDJSON). La demande est bornée à un lot : un client lent bloque l'écriture,
+ * donc plus aucun élément n'est demandé au publisher.
+ */
+public class PublisherWriter implements Flow.Subscriber<Object> {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private static final int BATCH = 32;
+
+    private final AsyncExchange exchange;
+    private final MyJson jsonAnnotation;
+    private final boolean ndjson;
+    private final Consumer<Throwable> errorRenderer; // erreur avant le premier octet
+
+    private Flow.Subscription subscription;
+    private JsonWriter json;
+    private int outstanding;
+    private boolean first = true;
+    private boolean done;
+
+    public PublisherWriter(AsyncExchange exchange, MyJson jsonAnnotation, boolean ndjson,
+                           Consumer<Throwable> errorRenderer) {
+        this.exchange = exchange;
+        this.jsonAnnotation = jsonAnnotation;
+        this.ndjson = ndjson;
+        this.errorRenderer = errorRenderer;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null || !exchange.beginStreaming()) {
+            subscription.cancel(); // déjà abonné, ou délai dépassé avant le premier élément
+            return;
+        }
+        this.subscription = subscription;
+        outstanding = BATCH;
+        subscription.request(BATCH);
+    }
+
+    @Override
+    public void onNext(Object item) {
+        if (done) return;
+        if (exchange.isCompleted()) { // délai dépassé ou client parti
+            cancel();
+            return;
+        }
+        try {
+            open();
+            if (ndjson) {
+                json.writeValue(item);
+                json.writeByte('\n');
+                json.flush(); // chaque ligne est exploitable dès sa réception
+            } else {
+                if (!first) json.writeByte(',');
+                json.writeValue(item);
+            }
+            first = false;
+        } catch (IOException | RuntimeException e) {
+            cancel();
+            return;
+        }
+        // Réapprovisionne par demi-lot pour ne pas faire un aller-retour par élément
+        if (--outstanding == BATCH / 2) {
+            outstanding += BATCH / 2;
+            subscription.request(BATCH / 2);
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        if (done) return;
+        done = true;
+        try {
+            if (json == null) {
+                errorRenderer.accept(error); // rien n'est parti : vraie page d'erreur
+            } else {
+                json.flush(); // statut déjà envoyé : le flux s'arrête simplement
+            }
+        } catch (IOException ignored) {
+            // client parti
+        } finally {
+            exchange.complete();
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        if (done) return;
+        done = true;
+        try {
+            open();
+            if (!ndjson) {
+                json.writeByte(']');
+                if (jsonAnnotation != null) {
+                    new JsonResponse(jsonAnnotation.code(), null, jsonAnnotation.message(), jsonAnnotation.status())
+                        .writeTail(json);
+                }
+                json.writeByte('\n');
+            }
+            json.flush();
+        } catch (IOException ignored) {
+            // client parti
+        } finally {
+            exchange.complete();
+        }
+    }
+
+    // En-têtes et début du document au premier élément (ou à la fin d'un flux vide)
+    private void open() throws IOException {
+        if (json != null) return;
+        HttpServletResponse res = exchange.getResponse();
+        res.setContentType(ndjson ? NDJSON + ";charset=UTF-8" : "application/json;charset=UTF-8");
+        if (jsonAnnotation != null) res.setStatus(jsonAnnotation.code());
+        json = new JsonWriter(res.getOutputStream());
+        if (ndjson) return;
+        if (jsonAnnotation != null) {
+            new JsonResponse(jsonAnnotation.code(), null, jsonAnnotation.message(), jsonAnnotation.status())
+                .writeHead(json);
+        }
+        json.writeByte('[');
+    }
+
+    private void cancel() {
+        done = true;
+        subscription.cancel();
+        exchange.complete();
+    }
+}
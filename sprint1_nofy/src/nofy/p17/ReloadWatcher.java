@@ -0,0 +1,102 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Surveille un répertoire de classes (sous-répertoires compris) et appelle
+ * l'action quand il n'a plus changé depuis quietMillis : une compilation
+ * écrit des dizaines de .class d'affilée, on ne recharge qu'une fois à la fin.
+ */
+public class ReloadWatcher implements AutoCloseable {
+
+    private final Path root;
+    private final long quietMillis;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    public ReloadWatcher(Path root, long quietMillis, Runnable onChange) throws IOException {
+        this.root = root;
+        this.quietMillis = quietMillis;
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        registerAll(root);
+        this.thread = new Thread(this::watch, "nofy-reload-watcher");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            // déjà fermé
+        }
+    }
+
+    private void watch() {
+        boolean pending = false;
+        try {
+            while (!closed) {
+                WatchKey key = pending ? watchService.poll(quietMillis, TimeUnit.MILLISECONDS) : watchService.take();
+                if (key == null) {
+                    // Plus rien depuis quietMillis : la compilation est terminée
+                    pending = false;
+                    try {
+                        onChange.run();
+                    } catch (RuntimeException e) {
+                        System.err.println("Rechargement échoué : " + e);
+                    }
+                    continue;
+                }
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    pending = true;
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE) {
+                        Path child = dir.resolve((Path) event.context());
+                        if (Files.isDirectory(child)) {
+                            try {
+                                registerAll(child); // nouveau package
+                            } catch (IOException e) {
+                                // supprimé entre-temps
+                            }
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // arrêt demandé
+        }
+    }
+
+    private void registerAll(Path start) throws IOException {
+        try (Stream<Path> dirs = Files.walk(start)) {
+            for (Path dir : (Iterable<Path>) dirs.filter(Files::isDirectory)::iterator) {
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                             StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package nofy.p17;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Chargeur enfant-d'abord sur un répertoire de classes : une classe dont le
+ * .class s'y trouve est relue depuis le disque, le reste (framework, JDK,
+ * WEB-INF/lib) vient du parent. Un nouveau chargeur par rechargement, l'ancien
+ * est libéré par le GC quand plus aucune requête ni objet ne le référence.
+ * <p>
+ * Si le framework est compilé dans ce même répertoire, le package nofy.p17
+ * reste au parent : les annotations (@Controller...) doivent être celles que
+ * le FrontServlet connaît.
+ */
+public class ReloadingClassLoader extends URLClassLoader {
+
+    private static final String FRAMEWORK_PACKAGE = FrontServlet.class.getPackage().getName() + ".";
+
+    private final Path classesDir;
+    private final boolean frameworkInDir;
+
+    public ReloadingClassLoader(Path classesDir, ClassLoader parent) throws MalformedURLException {
+        super(new URL[] { classesDir.toUri().toURL() }, parent);
+        this.classesDir = classesDir;
+        this.frameworkInDir = Files.exists(classFile(FrontServlet.class.getName()));
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null && isReloadable(name)) loaded = findClass(name);
+            if (loaded == null) return super.loadClass(name, resolve);
+            if (resolve) resolveClass(loaded);
+            return loaded;
+        }
+    }
+
+    private boolean isReloadable(String name) {
+        if (frameworkInDir && name.startsWith(FRAMEWORK_PACKAGE) && name.indexOf('.', FRAMEWORK_PACKAGE.length()) < 0) {
+            return false;
+        }
+        return Files.exists(classFile(name));
+    }
+
+    private Path classFile(String className) {
+        return classesDir.resolve(className.replace('.', File.separatorChar) + ".class");
+    }
+}
@@ -0,0 +1,18 @@
+package nofy.p17;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Paramètre lu depuis le corps JSON de la requête (POJO, record, List, Map,
+ * tableau ou scalaire), en flux : voir {@link JsonBinders}. Corps absent :
+ * 400 si required, sinon null ; JSON invalide : 400 ; au-delà de maxSize : 413.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestBody {
+    boolean required() default true;
+    long maxSize() default -1; // octets, -1 : init-param maxBodySize
+}
@@ -0,0 +1,129 @@
+package nofy.p17;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Objets de travail d'une requête, gardés par thread et réutilisés d'une
+ * requête à l'autre : résultat de recherche de route, tableaux d'arguments
+ * par arité, tampon d'écriture JSON.
+ * <p>
+ * Chaque objet est emprunté (retiré du thread) puis rendu. Une requête
+ * imbriquée sur le même thread (include, dispatch synchrone) trouve la place
+ * vide et alloue, sans jamais partager un objet encore utilisé. Sur un thread
+ * virtuel (un par tâche) il n'y a rien à réutiliser : on alloue aussi.
+ * Un objet passé à un autre thread n'est pas rendu (voir RouteMatch#copy).
+ * <p>
+ * Le ThreadLocal ne tient qu'une WeakReference (type du JDK) : les contextes
+ * sont gardés par CONTEXTS, dans le classloader de l'application. Les threads
+ * du conteneur, qui survivent au redéploiement, ne retiennent donc pas ce
+ * classloader ; destroy() vide CONTEXTS tout de suite (clear()).
+ */
+final class RequestContext {
+
+    /** Au-delà, les tableaux d'arguments ne sont pas gardés. */
+    private static final int MAX_POOLED_ARITY = 16;
+    private static final Object[] NO_ARGS = new Object[0];
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final ThreadLocal<WeakReference<RequestContext>> CURRENT = new ThreadLocal<>();
+    // Référence forte des contextes, libérée avec le thread (clé faible)
+    private static final Map<Thread, RequestContext> CONTEXTS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+    private Router.RouteMatch<HandlerInvoker> match;
+    private final Object[][] args = new Object[MAX_POOLED_ARITY + 1][];
+    private byte[] buffer;
+
+    private RequestContext() {
+    }
+
+    static Router.RouteMatch<HandlerInvoker> borrowMatch() {
+        RequestContext context = current();
+        Router.RouteMatch<HandlerInvoker> borrowed = (context != null) ? context.match : null;
+        if (borrowed == null) return new Router.RouteMatch<>();
+        context.match = null;
+        return borrowed;
+    }
+
+    static void release(Router.RouteMatch<HandlerInvoker> borrowed) {
+        borrowed.clear();
+        RequestContext context = current();
+        if (context != null) context.match = borrowed;
+    }
+
+    /** Tableau de n arguments, tous null. */
+    static Object[] borrowArgs(int n) {
+        if (n == 0) return NO_ARGS;
+        RequestContext context = (n <= MAX_POOLED_ARITY) ? current() : null;
+        Object[] borrowed = (context != null) ? context.args[n] : null;
+        if (borrowed == null) return new Object[n];
+        context.args[n] = null;
+        return borrowed;
+    }
+
+    static void release(Object[] borrowed) {
+        int n = borrowed.length;
+        if (n == 0 || n > MAX_POOLED_ARITY) return;
+        Arrays.fill(borrowed, null); // pas de référence gardée vers les objets de la requête
+        RequestContext context = current();
+        if (context != null) context.args[n] = borrowed;
+    }
+
+    /** Tampon de 8 Ko (contenu quelconque). */
+    static byte[] borrowBuffer() {
+        RequestContext context = current();
+        byte[] borrowed = (context != null) ? context.buffer : null;
+        if (borrowed == null) return new byte[BUFFER_SIZE];
+        context.buffer = null;
+        return borrowed;
+    }
+
+    static void release(byte[] borrowed) {
+        if (borrowed.length != BUFFER_SIZE) return;
+        RequestContext context = current();
+        if (context != null) context.buffer = borrowed;
+    }
+
+    private static RequestContext current() {
+        if (isVirtualThread()) return null;
+        WeakReference<RequestContext> ref = CURRENT.get();
+        RequestContext context = (ref != null) ? ref.get() : null;
+        if (context == null) {
+            context = new RequestContext();
+            CONTEXTS.put(Thread.currentThread(), context);
+            CURRENT.set(new WeakReference<>(context));
+        }
+        return context;
+    }
+
+    /** Oublie les objets gardés par tous les threads (arrêt du servlet). */
+    static void clear() {
+        CONTEXTS.clear();
+        CURRENT.remove();
+    }
+
+    private static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) return false;
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    // Thread.isVirtual() existe depuis Java 21 ; le framework compile en 17
+    private static MethodHandle isVirtualHandle() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
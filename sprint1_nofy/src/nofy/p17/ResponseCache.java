@@ -0,0 +1,364 @@
+package nofy.p17;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Cache des réponses @Cacheable, borné en nombre d'entrées et en octets.
+ * <p>
+ * Éviction façon W-TinyLFU : une petite fenêtre LRU (1 %) reçoit les nouvelles
+ * entrées ; celle qui en sort n'entre dans la zone principale (LRU) que si
+ * elle est plus fréquente que la victime désignée, d'après une esquisse
+ * count-min de compteurs 4 bits, vieillie par division par deux. Une rafale
+ * de clés vues une seule fois ne chasse donc pas les réponses populaires.
+ * <p>
+ * Les lectures ne prennent le verrou de la politique que s'il est libre
+ * (tryLock) : sous contention, la mise à jour de récence est simplement perdue.
+ * Le chargement d'une clé absente est unique (single-flight) : les requêtes
+ * concurrentes attendent le résultat du premier appel.
+ */
+public class ResponseCache {
+
+    /**
+     * Réponse conservée, avec sa version compressée (calculée une fois, au
+     * chargement) quand le corps dépasse le seuil de compression.
+     */
+    public static class Entry {
+        private final byte[] body;
+        private final String contentType;
+        private final String etag;
+        private final Compression.Deflated deflated; // null : servie non compressée
+        private final long expiresAt; // System.nanoTime()
+        private final int weight;
+
+        public Entry(byte[] body, String contentType, long ttlMillis) {
+            this(body, contentType, ttlMillis, null);
+        }
+
+        public Entry(byte[] body, String contentType, long ttlMillis, Compression compression) {
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etagOf(body);
+            this.deflated = (compression != null && body.length >= compression.getThreshold()
+                             && Compression.isCompressible(contentType)) ? compression.deflate(body) : null;
+            this.expiresAt = System.nanoTime() + ttlMillis * 1_000_000L;
+            // en-tête d'entrée, clé, nœuds de liste
+            this.weight = body.length + ((deflated != null) ? deflated.weight() : 0) + 128;
+        }
+
+        public byte[] getBody() { return body; }
+        public String getContentType() { return contentType; }
+        public String getEtag() { return etag; }
+
+        /** Version compressée, ou null. */
+        public Compression.Deflated getDeflated() { return deflated; }
+
+        /** ETag de la représentation encodée : distinct par Content-Encoding. */
+        public String getEtag(String encoding) {
+            return (encoding == null) ? etag : etag.substring(0, etag.length() - 1) + "-" + encoding + "\"";
+        }
+
+        /** Durée de vie restante (ms). */
+        public long getRemainingMillis() {
+            return Math.max(0, (expiresAt - System.nanoTime()) / 1_000_000L);
+        }
+
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+
+    /**
+     * Chargement en cours d'une clé. Le premier appelant (leader) produit
+     * l'entrée puis appelle {@link #finish} ; les autres {@link #await}.
+     */
+    public class Flight {
+        private final String key;
+        private final CompletableFuture<Entry> future;
+        private final boolean leader;
+
+        private Flight(String key, CompletableFuture<Entry> future, boolean leader) {
+            this.key = key;
+            this.future = future;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /** Entrée produite par le leader, ou null si la réponse n'était pas cacheable. */
+        public Entry await() {
+            try {
+                return future.join();
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+
+        /** Publie l'entrée (null : rien à mettre en cache) et libère les requêtes en attente. */
+        public void finish(Entry entry) {
+            if (entry != null) put(key, entry);
+            loading.remove(key, future);
+            future.complete(entry);
+        }
+    }
+
+    private static final int MAX_COUNTER = 15;
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final int windowMax;
+
+    private final ConcurrentHashMap<String, Entry> data = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, CompletableFuture<Entry>> loading = new ConcurrentHashMap<>();
+
+    // Politique d'éviction, sous evictionLock
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LinkedHashMap<String, Entry> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, Entry> main = new LinkedHashMap<>(16, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long weightedSize;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /** maxBytes : taille totale des corps conservés, -1 : pas de limite. */
+    public ResponseCache(int maxEntries, long maxBytes) {
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = maxBytes;
+        this.windowMax = Math.max(1, this.maxEntries / 100);
+        this.sketch = new FrequencySketch(this.maxEntries);
+    }
+
+    /** Entrée valide pour la clé, ou null (compté comme absence). */
+    public Entry get(String key) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.isExpired(System.nanoTime())) {
+            remove(key, entry);
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        if (evictionLock.tryLock()) {
+            try {
+                sketch.increment(key.hashCode());
+                if (window.get(key) == null) main.get(key); // accès : remonte en tête LRU
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+        return entry;
+    }
+
+    /** Rejoint ou démarre le chargement de la clé. */
+    public Flight begin(String key) {
+        CompletableFuture<Entry> future = new CompletableFuture<>();
+        CompletableFuture<Entry> existing = loading.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return new Flight(key, existing, false);
+        }
+        return new Flight(key, future, true);
+    }
+
+    public void put(String key, Entry entry) {
+        if (maxBytes >= 0 && entry.weight > maxBytes) return; // ne tiendrait jamais
+        evictionLock.lock();
+        try {
+            sketch.increment(key.hashCode());
+            Entry previous = data.put(key, entry);
+            if (previous != null) {
+                weightedSize -= previous.weight;
+                if (main.containsKey(key)) {
+                    main.put(key, entry);
+                    weightedSize += entry.weight;
+                    evictIfNeeded();
+                    return;
+                }
+                window.remove(key);
+            }
+            window.put(key, entry);
+            weightedSize += entry.weight;
+            evictIfNeeded();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    public void invalidate(String key) {
+        Entry entry = data.get(key);
+        if (entry != null) remove(key, entry);
+    }
+
+    public void clear() {
+        evictionLock.lock();
+        try {
+            data.clear();
+            window.clear();
+            main.clear();
+            weightedSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        evictionLock.lock();
+        try {
+            if (!data.remove(key, entry)) return;
+            if (window.remove(key) == null) main.remove(key);
+            weightedSize -= entry.weight;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    // Fenêtre pleine : candidat contre victime de la zone principale, le plus fréquent reste
+    private void evictIfNeeded() {
+        while (window.size() > windowMax) {
+            Map.Entry<String, Entry> candidate = eldest(window);
+            window.remove(candidate.getKey());
+            if (data.size() <= maxEntries && withinBytes()) {
+                main.put(candidate.getKey(), candidate.getValue());
+                continue;
+            }
+            Map.Entry<String, Entry> victim = eldest(main);
+            if (victim != null && sketch.frequency(candidate.getKey().hashCode()) > sketch.frequency(victim.getKey().hashCode())) {
+                evict(main, victim);
+                main.put(candidate.getKey(), candidate.getValue());
+            } else {
+                evict(null, candidate);
+            }
+        }
+        // Bornes encore dépassées (grosses entrées) : LRU de la zone principale, puis de la fenêtre
+        while (data.size() > maxEntries || !withinBytes()) {
+            Map.Entry<String, Entry> victim = eldest(main);
+            if (victim != null) {
+                evict(main, victim);
+            } else if ((victim = eldest(window)) != null) {
+                evict(window, victim);
+            } else {
+                break;
+            }
+        }
+    }
+
+    private void evict(LinkedHashMap<String, Entry> segment, Map.Entry<String, Entry> victim) {
+        if (segment != null) segment.remove(victim.getKey());
+        data.remove(victim.getKey(), victim.getValue());
+        weightedSize -= victim.getValue().weight;
+        evictions.increment();
+    }
+
+    private boolean withinBytes() {
+        return maxBytes < 0 || weightedSize <= maxBytes;
+    }
+
+    private static Map.Entry<String, Entry> eldest(LinkedHashMap<String, Entry> segment) {
+        Iterator<Map.Entry<String, Entry>> it = segment.entrySet().iterator();
+        if (!it.hasNext()) return null;
+        Map.Entry<String, Entry> eldest = it.next();
+        return Map.entry(eldest.getKey(), eldest.getValue()); // copie : le nœud va être retiré
+    }
+
+    // --- Statistiques ---
+
+    public long getHitCount() { return hits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    /** Requêtes qui ont attendu le chargement d'une autre au lieu d'appeler le contrôleur. */
+    public long getCoalescedCount() { return coalesced.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public int getSize() { return data.size(); }
+
+    public long getWeightedSize() {
+        evictionLock.lock();
+        try {
+            return weightedSize;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache[size=" + getSize() + ", hits=" + getHitCount() + ", misses=" + getMissCount()
+            + ", coalesced=" + getCoalescedCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+    // ETag fort : CRC32C et longueur du corps
+    private static String etagOf(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length) + "\"";
+    }
+
+    /**
+     * Esquisse count-min : 4 compteurs de 4 bits par clé, 16 par long. Après
+     * 10 × capacité incréments, tous les compteurs sont divisés par deux pour
+     * oublier les popularités anciennes.
+     */
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L
+        };
+        private static final long RESET_MASK = 0x7777777777777777L;
+
+        private final long[] table;
+        private final int sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+            table = new long[size];
+            sampleSize = 10 * capacity;
+        }
+
+        int frequency(int hash) {
+            int start = (hash & 3) << 2;
+            int min = MAX_COUNTER;
+            for (int i = 0; i < 4; i++) {
+                int shift = (start + i) << 2;
+                int count = (int) ((table[indexOf(hash, i)] >>> shift) & 0xF);
+                min = Math.min(min, count);
+            }
+            return min;
+        }
+
+        void increment(int hash) {
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; i++) {
+                int index = indexOf(hash, i);
+                int shift = (start + i) << 2;
+                if (((table[index] >>> shift) & 0xF) < MAX_COUNTER) {
+                    table[index] += 1L << shift;
+                    added = true;
+                }
+            }
+            if (added && ++additions >= sampleSize) reset();
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & RESET_MASK;
+            additions /= 2;
+        }
+
+        private int indexOf(int hash, int i) {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int) h & (table.length - 1);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package nofy.p17;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Réponse gardée ouverte, alimentée par {@link #send(Object)} depuis n'importe
+ * quel thread : retournée par un contrôleur, elle passe la requête en mode
+ * asynchrone. Format par défaut : une valeur JSON par ligne (NDJSON), envoyée
+ * immédiatement. Aucun thread n'est réservé à la connexion : l'ordonnanceur
+ * partagé du FrontServlet décide des battements (heartbeats), l'exécuteur
+ * asynchrone les écrit.
+ * <p>
+ * Les envois faits avant l'attachement (juste après le return du contrôleur)
+ * sont mis en tampon puis écrits à l'ouverture du flux.
+ */
+public class ResponseEmitter {
+
+    private final long timeout; // ms, 0 : pas de délai
+    private final List<Runnable> completionCallbacks = new ArrayList<>();
+
+    private ByteArrayOutputStream early = new ByteArrayOutputStream();
+    private JsonWriter json = new JsonWriter(early);
+    private AsyncExchange exchange;
+    private ScheduledFuture<?> heartbeat;
+    private Executor heartbeatWriter;
+    private final AtomicBoolean heartbeatPending = new AtomicBoolean();
+    private long heartbeatNanos;
+    private volatile long lastWrite; // lu par l'ordonnanceur hors verrou
+    private boolean completed;
+    private Throwable failure; // completeWithError avant l'attachement
+
+    public ResponseEmitter() {
+        this(0);
+    }
+
+    public ResponseEmitter(long timeoutMillis) {
+        this.timeout = timeoutMillis;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /** Envoie une valeur, sérialisée en JSON, suivie d'un retour à la ligne. */
+    public synchronized void send(Object data) throws IOException {
+        checkOpen();
+        json.writeValue(data);
+        json.writeByte('\n');
+        flush();
+    }
+
+    /** Termine normalement le flux. */
+    public synchronized void complete() {
+        if (completed) return;
+        completed = true;
+        if (exchange != null) exchange.complete();
+    }
+
+    /** Termine le flux sur une erreur : page d'erreur si rien n'a encore été envoyé. */
+    public synchronized void completeWithError(Throwable error) {
+        if (completed) return;
+        failure = error;
+        complete();
+    }
+
+    /** Action appelée à la fin du flux, quelle qu'en soit la cause (client parti, délai...). */
+    public synchronized void onCompletion(Runnable callback) {
+        completionCallbacks.add(callback);
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed || (exchange != null && exchange.isCompleted());
+    }
+
+    // --- Format, redéfini par SseEmitter ---
+
+    protected String getContentType() {
+        return "application/x-ndjson;charset=UTF-8";
+    }
+
+    /** Battement de connexion : ligne vide, ignorée par les lecteurs NDJSON. */
+    protected void writeHeartbeat(JsonWriter json) throws IOException {
+        json.writeByte('\n');
+    }
+
+    /** Écrivain du flux, pour les formats des sous-classes (appelé sous le verrou de l'émetteur). */
+    protected JsonWriter writer() {
+        return json;
+    }
+
+    /** Vérifie que le flux est encore ouvert (à appeler sous le verrou avant d'écrire). */
+    protected void checkOpen() throws IOException {
+        if (isCompleted()) throw new IOException("Flux terminé");
+    }
+
+    /** Pousse les octets écrits vers le client (sans effet avant l'attachement). */
+    protected void flush() throws IOException {
+        if (exchange == null) return;
+        try {
+            json.flush();
+            lastWrite = System.nanoTime();
+        } catch (IOException e) {
+            exchange.complete(); // client parti
+            throw e;
+        }
+    }
+
+    // --- Cycle de vie, piloté par le FrontServlet ---
+
+    /**
+     * Ouvre le flux sur l'échange asynchrone : en-têtes, envois en attente, puis
+     * battements toutes les heartbeatMillis ms (0 : aucun), décidés sur
+     * l'ordonnanceur partagé et écrits par writer.
+     */
+    synchronized void attach(AsyncExchange exchange, ScheduledExecutorService scheduler, Executor writer,
+                             long heartbeatMillis, java.util.function.Consumer<Throwable> errorRenderer) {
+        this.exchange = exchange;
+        exchange.onComplete(this::closed);
+        if (!exchange.beginStreaming()) return; // délai dépassé avant l'ouverture
+
+        if (failure != null) {
+            errorRenderer.accept(failure);
+            exchange.complete();
+            return;
+        }
+        try {
+            HttpServletResponse res = exchange.getResponse();
+            res.setStatus(HttpServletResponse.SC_OK);
+            res.setContentType(getContentType());
+            res.setHeader("Cache-Control", "no-cache");
+            res.setHeader("X-Accel-Buffering", "no"); // pas de tampon côté proxy (nginx)
+            json.flush();
+            byte[] pending = early.toByteArray();
+            early = null;
+            json = new JsonWriter(res.getOutputStream());
+            json.writeBytes(pending);
+            flush();
+            res.flushBuffer(); // en-têtes envoyés même sans événement
+        } catch (IOException e) {
+            exchange.complete();
+            return;
+        }
+        if (completed) {
+            exchange.complete();
+            return;
+        }
+        if (heartbeatMillis > 0) {
+            heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+            heartbeatWriter = writer;
+            heartbeat = scheduler.scheduleWithFixedDelay(this::scheduleHeartbeat, heartbeatMillis, heartbeatMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+     * Sur l'ordonnanceur : ni verrou ni écriture, un client lent ne retarde pas
+     * les autres connexions. Seulement si rien n'est parti depuis un intervalle
+     * (une connexion active ne reçoit pas de bruit), et un battement à la fois.
+     */
+    private void scheduleHeartbeat() {
+        if (exchange.isCompleted() || System.nanoTime() - lastWrite < heartbeatNanos) return;
+        if (!heartbeatPending.compareAndSet(false, true)) return;
+        try {
+            heartbeatWriter.execute(this::heartbeat);
+        } catch (RejectedExecutionException e) {
+            heartbeatPending.set(false); // exécuteur saturé ou arrêté : battement suivant
+        }
+    }
+
+    private synchronized void heartbeat() {
+        try {
+            if (isCompleted() || System.nanoTime() - lastWrite < heartbeatNanos) return;
+            writeHeartbeat(json);
+            flush();
+        } catch (IOException ignored) {
+            // client parti : l'échange est terminé par flush()
+        } finally {
+            heartbeatPending.set(false);
+        }
+    }
+
+    private void closed() {
+        List<Runnable> callbacks;
+        synchronized (this) {
+            completed = true;
+            if (heartbeat != null) heartbeat.cancel(false);
+            callbacks = new ArrayList<>(completionCallbacks);
+        }
+        for (Runnable callback : callbacks) {
+            try {
+                callback.run();
+            } catch (RuntimeException e) {
+                System.err.println("Erreur dans un callback de fin de flux : " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package nofy.p17;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs et histogrammes d'une route pour un verbe HTTP. La durée totale
+ * va du début de service() à la fin de la réponse (asynchrone compris) ;
+ * les phases : recherche de la route, résolution des arguments, appel du
+ * contrôleur, rendu du résultat (forward compris) et forward vers la vue.
+ */
+public class RouteMetrics implements RouteMetricsMBean {
+
+    /** Phases mesurées séparément, dans l'ordre d'exposition. */
+    public enum Phase { MATCH, BINDING, INVOKE, RENDER, FORWARD }
+
+    private final String route;
+    private final String httpMethod;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+    private final LongAdder[] statusClasses = new LongAdder[6]; // 1xx à 5xx, indice = statut / 100
+    private final LongAdder rejected = new LongAdder();
+    private volatile ConcurrencyLimiter limiter; // celui de la route en service, null : pas de limite
+
+    public RouteMetrics(String route, String httpMethod) {
+        this.route = route;
+        this.httpMethod = httpMethod;
+        for (int i = 0; i < phases.length; i++) phases[i] = new LatencyHistogram();
+        for (int i = 0; i < statusClasses.length; i++) statusClasses[i] = new LongAdder();
+    }
+
+    public void record(Phase phase, long nanos) {
+        phases[phase.ordinal()].record(nanos);
+    }
+
+    /** Requête terminée : durée totale et statut envoyé. */
+    public void recordRequest(long nanos, int status) {
+        total.record(nanos);
+        int statusClass = status / 100;
+        statusClasses[(statusClass >= 1 && statusClass <= 5) ? statusClass : 0].increment();
+    }
+
+    /** Requête refusée par l'admission (503). */
+    public void recordRejected() {
+        rejected.increment();
+    }
+
+    /** Rattache le limiteur de la route (remplacé au rechargement). */
+    public void setLimiter(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    public ConcurrencyLimiter getLimiter() {
+        return limiter;
+    }
+
+    public LatencyHistogram getTotal() {
+        return total;
+    }
+
+    public LatencyHistogram getPhase(Phase phase) {
+        return phases[phase.ordinal()];
+    }
+
+    /** Requêtes terminées avec un statut de la classe donnée (2 pour 2xx...). */
+    public long getStatusCount(int statusClass) {
+        return statusClasses[statusClass].sum();
+    }
+
+    // --- RouteMetricsMBean ---
+
+    @Override public String getRoute() { return route; }
+    @Override public String getHttpMethod() { return httpMethod; }
+    @Override public long getRequestCount() { return total.getCount(); }
+    @Override public long getErrorCount() { return getStatusCount(5); }
+    @Override public double getMeanMillis() { return total.getMean() / 1e6; }
+    @Override public double getP50Millis() { return total.getValueAtQuantile(0.5) / 1e6; }
+    @Override public double getP99Millis() { return total.getValueAtQuantile(0.99) / 1e6; }
+    @Override public double getMaxMillis() { return total.getMax() / 1e6; }
+    @Override public double getMatchP99Millis() { return p99(Phase.MATCH); }
+    @Override public double getBindingP99Millis() { return p99(Phase.BINDING); }
+    @Override public double getInvokeP99Millis() { return p99(Phase.INVOKE); }
+    @Override public double getRenderP99Millis() { return p99(Phase.RENDER); }
+    @Override public double getForwardP99Millis() { return p99(Phase.FORWARD); }
+    @Override public long getRejectedCount() { return rejected.sum(); }
+    @Override public int getConcurrencyLimit() { ConcurrencyLimiter l = limiter; return (l != null) ? l.getLimit() : -1; }
+    @Override public int getInFlight() { ConcurrencyLimiter l = limiter; return (l != null) ? l.getInFlight() : 0; }
+    @Override public int getQueued() { ConcurrencyLimiter l = limiter; return (l != null) ? l.getQueued() : 0; }
+
+    private double p99(Phase phase) {
+        return getPhase(phase).getValueAtQuantile(0.99) / 1e6;
+    }
+}
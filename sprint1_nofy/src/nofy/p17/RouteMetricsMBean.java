@@ -0,0 +1,24 @@
+package nofy.p17;
+
+/**
+ * Vue JMX des métriques d'une route (durées en millisecondes).
+ */
+public interface RouteMetricsMBean {
+    String getRoute();
+    String getHttpMethod();
+    long getRequestCount();
+    long getErrorCount();
+    double getMeanMillis();
+    double getP50Millis();
+    double getP99Millis();
+    double getMaxMillis();
+    double getMatchP99Millis();
+    double getBindingP99Millis();
+    double getInvokeP99Millis();
+    double getRenderP99Millis();
+    double getForwardP99Millis();
+    long getRejectedCount();    // refus de l'admission (503)
+    int getConcurrencyLimit();  // -1 : pas de limite
+    int getInFlight();
+    int getQueued();
+}
@@ -0,0 +1,86 @@
+package nofy.p17;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table des routes figée : arbre de recherche, métriques des routes et
+ * statistiques du scan qui l'a produite. Jamais modifiée une fois publiée ;
+ * un rechargement en construit une autre et la remplace d'un coup, les
+ * requêtes en cours finissant sur celle qu'elles ont lue.
+ */
+public final class RouteTable {
+
+    private final Router<HandlerInvoker> router;
+    private final Map<String, RouteMetrics> metrics;
+    private final List<MyScanner.ScanStats> scanStats;
+
+    private RouteTable(Router<HandlerInvoker> router, Map<String, RouteMetrics> metrics,
+                       List<MyScanner.ScanStats> scanStats) {
+        this.router = router;
+        this.metrics = metrics;
+        this.scanStats = scanStats;
+    }
+
+    /** Route correspondant au chemin, ou null. */
+    public Router.RouteMatch<HandlerInvoker> match(String path) {
+        return router.match(path);
+    }
+
+    /** Variante sans allocation, dans un résultat réutilisé ; false si aucune route. */
+    public boolean match(String path, Router.RouteMatch<HandlerInvoker> into) {
+        return router.match(path, into);
+    }
+
+    /** Une entrée par route et verbe, dans l'ordre d'enregistrement. */
+    public List<RouteMetrics> getMetrics() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    public int size() {
+        return metrics.size();
+    }
+
+    public List<MyScanner.ScanStats> getScanStats() {
+        return scanStats;
+    }
+
+    private static String key(String httpMethod, String pattern) {
+        return httpMethod + " " + pattern;
+    }
+
+    /**
+     * Construction d'une table. Les métriques d'une route déjà présente dans
+     * la table précédente sont reprises : un rechargement ne remet pas les
+     * compteurs (ni les MBeans) à zéro.
+     */
+    public static final class Builder {
+        private final Router<HandlerInvoker> router = new Router<>();
+        private final Map<String, RouteMetrics> metrics = new LinkedHashMap<>();
+        private final RouteTable previous;
+
+        /** previous : table remplacée, ou null au démarrage. */
+        public Builder(RouteTable previous) {
+            this.previous = previous;
+        }
+
+        public RouteMetrics metricsFor(String pattern, String httpMethod) {
+            return metrics.computeIfAbsent(key(httpMethod, pattern), key -> {
+                RouteMetrics existing = (previous != null) ? previous.metrics.get(key) : null;
+                return (existing != null) ? existing : new RouteMetrics(pattern, httpMethod);
+            });
+        }
+
+        public void register(String pattern, String httpMethod, HandlerInvoker invoker) {
+            router.register(pattern, httpMethod, invoker);
+        }
+
+        public RouteTable build(List<MyScanner.ScanStats> scanStats) {
+            return new RouteTable(router, Collections.unmodifiableMap(metrics),
+                                  Collections.unmodifiableList(new ArrayList<>(scanStats)));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package nofy.p17;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arbre de routes (radix trie par segment) construit une seule fois dans init().
+ * Les segments statiques sont prioritaires sur les segments {param},
+ * la recherche coûte O(profondeur du chemin) et extrait les paramètres
+ * dans la même passe, sans split ni regex.
+ */
+public class Router<H> {
+
+    static final class Node<H> {
+        final Map<String, Node<H>> staticChildren = new HashMap<>();
+        Node<H> paramChild;
+        // HTTP method → handler (null si aucune route ne se termine ici)
+        Map<String, H> handlers;
+        // HTTP method → noms des paramètres de la route, dans l'ordre du chemin
+        Map<String, String[]> paramNames;
+    }
+
+    private final Node<H> root = new Node<>();
+    private int maxParams;
+
+    public void register(String pattern, String httpMethod, H handler) {
+        Node<H> node = root;
+        List<String> names = parameterNames(pattern);
+        int len = pattern.length();
+        int i = 0;
+        while (i < len) {
+            int end = pattern.indexOf('/', i);
+            if (end < 0) end = len;
+            if (end > i) {
+                String segment = pattern.substring(i, end);
+                if (segment.startsWith("{") && segment.endsWith("}")) {
+                    if (node.paramChild == null) node.paramChild = new Node<>();
+                    node = node.paramChild;
+                } else {
+                    node = node.staticChildren.computeIfAbsent(segment, k -> new Node<>());
+                }
+            }
+            i = end + 1;
+        }
+        if (node.handlers == null) {
+            node.handlers = new HashMap<>();
+            node.paramNames = new HashMap<>();
+        }
+        node.handlers.put(httpMethod.toUpperCase(), handler);
+        node.paramNames.put(httpMethod.toUpperCase(), names.toArray(new String[0]));
+        maxParams = Math.max(maxParams, names.size());
+    }
+
+    /**
+     * Noms des segments {param} d'un motif, dans l'ordre : l'index d'un nom
+     * est celui de sa valeur dans {@link RouteMatch#getParamValue(int)}.
+     */
+    public static List<String> parameterNames(String pattern) {
+        List<String> names = new ArrayList<>();
+        int len = pattern.length();
+        int i = 0;
+        while (i < len) {
+            int end = pattern.indexOf('/', i);
+            if (end < 0) end = len;
+            if (end - i > 1 && pattern.charAt(i) == '{' && pattern.charAt(end - 1) == '}') {
+                names.add(pattern.substring(i + 1, end - 1));
+            }
+            i = end + 1;
+        }
+        return names;
+    }
+
+    /**
+     * Cherche la route correspondant au chemin. Retourne null si aucun motif ne correspond.
+     */
+    public RouteMatch<H> match(String path) {
+        RouteMatch<H> match = new RouteMatch<>();
+        return match(path, match) ? match : null;
+    }
+
+    /**
+     * Même recherche, dans un résultat réutilisé (voir RequestContext) :
+     * aucune allocation quand son tableau de bornes est assez grand.
+     */
+    public boolean match(String path, RouteMatch<H> into) {
+        if (into.bounds.length < maxParams * 2) into.bounds = new int[maxParams * 2];
+        Node<H> node = find(root, path, skipSlashes(path, 0), into.bounds, 0);
+        if (node == null) {
+            into.clear();
+            return false;
+        }
+        into.path = path;
+        into.handlers = node.handlers;
+        into.paramNames = node.paramNames;
+        return true;
+    }
+
+    // Descente récursive : on ne revient en arrière vers le segment {param}
+    // que si la branche statique n'aboutit pas.
+    private Node<H> find(Node<H> node, String path, int start, int[] bounds, int depth) {
+        int len = path.length();
+        if (start >= len) {
+            return node.handlers != null ? node : null;
+        }
+        int end = path.indexOf('/', start);
+        if (end < 0) end = len;
+        int next = skipSlashes(path, end);
+
+        if (!node.staticChildren.isEmpty()) {
+            Node<H> child = node.staticChildren.get(path.substring(start, end));
+            if (child != null) {
+                Node<H> found = find(child, path, next, bounds, depth);
+                if (found != null) return found;
+            }
+        }
+        if (node.paramChild != null) {
+            bounds[depth * 2] = start;
+            bounds[depth * 2 + 1] = end;
+            return find(node.paramChild, path, next, bounds, depth + 1);
+        }
+        return null;
+    }
+
+    private static int skipSlashes(String path, int i) {
+        int len = path.length();
+        while (i < len && path.charAt(i) == '/') i++;
+        return i;
+    }
+
+    /**
+     * Résultat d'une recherche : les handlers par verbe HTTP et les bornes
+     * des paramètres dans le chemin (les valeurs ne sont extraites qu'à la demande).
+     */
+    public static final class RouteMatch<H> {
+        private static final int[] NO_BOUNDS = new int[0];
+
+        private String path;
+        private Map<String, H> handlers;
+        private Map<String, String[]> paramNames;
+        private int[] bounds = NO_BOUNDS;
+
+        public RouteMatch() {
+        }
+
+        /** Copie indépendante, pour passer le résultat à un autre thread. */
+        public RouteMatch<H> copy() {
+            RouteMatch<H> copy = new RouteMatch<>();
+            copy.path = path;
+            copy.handlers = handlers;
+            copy.paramNames = paramNames;
+            copy.bounds = bounds.clone();
+            return copy;
+        }
+
+        /** Oublie la requête précédente (le tableau de bornes est gardé). */
+        public void clear() {
+            path = null;
+            handlers = null;
+            paramNames = null;
+        }
+
+        public H getHandler(String httpMethod) {
+            return handlers.get(httpMethod);
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /** Début (inclus) de la valeur du paramètre d'index donné dans {@link #getPath()}. */
+        public int getParamStart(int index) {
+            return bounds[index * 2];
+        }
+
+        /** Fin (exclue) de la valeur du paramètre d'index donné dans {@link #getPath()}. */
+        public int getParamEnd(int index) {
+            return bounds[index * 2 + 1];
+        }
+
+        public String getParamValue(int index) {
+            return path.substring(bounds[index * 2], bounds[index * 2 + 1]);
+        }
+
+        public Map<String, String> getParams(String httpMethod) {
+            Map<String, String> params = new HashMap<>();
+            String[] names = paramNames.get(httpMethod);
+            if (names == null) return params;
+            for (int i = 0; i < names.length; i++) params.put(names[i], getParamValue(i));
+            return params;
+        }
+    }
+}
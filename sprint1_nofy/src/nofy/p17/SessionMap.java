@@ -0,0 +1,188 @@
+package nofy.p17;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+
+/**
+ * Map d'un paramètre @Session. Les lectures vont à la session (sans la
+ * créer) ; les écritures sont notées par clé et appliquées une seule fois,
+ * à la fin de l'appel du contrôleur ({@link #flush(HttpServletRequest)}) :
+ * trois put sur la même clé font un seul setAttribute, donc une seule
+ * réplication de session en cluster. La session n'est créée que s'il y a
+ * quelque chose à y écrire.
+ * <p>
+ * size() et l'itération chargent une fois la liste des attributs ; get et
+ * containsKey n'en ont pas besoin. Après le flush (résultat différé...),
+ * les écritures vont directement à la session.
+ */
+public final class SessionMap extends AbstractMap<String, Object> {
+
+    private static final String ATTRIBUTE = "nofy.p17.sessionMap";
+    private static final Object REMOVED = new Object();
+
+    private final HttpServletRequest request;
+    private final Map<String, Object> pending = new LinkedHashMap<>(); // clé modifiée → valeur ou REMOVED
+    private Map<String, Object> all;  // tous les attributs, chargés à la demande puis tenus à jour
+    private boolean flushed;
+
+    private SessionMap(HttpServletRequest request) {
+        this.request = request;
+    }
+
+    /** Map de la requête (la même pour tous les paramètres @Session de la méthode). */
+    public static SessionMap of(HttpServletRequest request) {
+        SessionMap map = (SessionMap) request.getAttribute(ATTRIBUTE);
+        if (map == null) {
+            map = new SessionMap(request);
+            request.setAttribute(ATTRIBUTE, map);
+        }
+        return map;
+    }
+
+    /** Applique les écritures en attente de la requête, s'il y en a. */
+    public static void flush(HttpServletRequest request) {
+        SessionMap map = (SessionMap) request.getAttribute(ATTRIBUTE);
+        if (map != null) map.flush();
+    }
+
+    public void flush() {
+        flushed = true;
+        if (pending.isEmpty()) return;
+        // Que des suppressions : inutile de créer une session pour ça
+        boolean hasValues = false;
+        for (Object value : pending.values()) {
+            if (value != REMOVED) {
+                hasValues = true;
+                break;
+            }
+        }
+        HttpSession session = request.getSession(hasValues);
+        if (session != null) {
+            for (Map.Entry<String, Object> entry : pending.entrySet()) {
+                if (entry.getValue() == REMOVED) session.removeAttribute(entry.getKey());
+                else session.setAttribute(entry.getKey(), entry.getValue());
+            }
+        }
+        pending.clear();
+    }
+
+    @Override
+    public Object get(Object key) {
+        String name = key.toString();
+        Object value = pending.get(name);
+        if (value != null) return (value == REMOVED) ? null : value;
+        if (all != null) return all.get(name);
+        HttpSession session = request.getSession(false);
+        return (session == null) ? null : session.getAttribute(name);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null; // une session ne contient pas de valeur null
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (value == null) return remove(key); // comme setAttribute(key, null)
+        Object old = get(key);
+        write(key, value);
+        if (all != null) all.put(key, value);
+        return old;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        String name = key.toString();
+        Object old = get(name);
+        if (old != null) {
+            write(name, REMOVED);
+            if (all != null) all.remove(name);
+        }
+        return old;
+    }
+
+    private void write(String name, Object value) {
+        if (!flushed) {
+            pending.put(name, value);
+            return;
+        }
+        HttpSession session = request.getSession(value != REMOVED);
+        if (session == null) return;
+        if (value == REMOVED) session.removeAttribute(name);
+        else session.setAttribute(name, value);
+    }
+
+    @Override
+    public int size() {
+        return loadAll().size();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<String, Object>> source = loadAll().entrySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    private Entry<String, Object> current;
+
+                    @Override
+                    public boolean hasNext() {
+                        return source.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        current = source.next();
+                        return new SimpleEntry<String, Object>(current) {
+                            @Override
+                            public Object setValue(Object value) {
+                                put(getKey(), value);
+                                return super.setValue(value);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        source.remove();
+                        write(current.getKey(), REMOVED);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return loadAll().size();
+            }
+        };
+    }
+
+    // Attributs de la session, écritures en attente comprises
+    private Map<String, Object> loadAll() {
+        if (all == null) {
+            all = new LinkedHashMap<>();
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                Enumeration<String> names = session.getAttributeNames();
+                while (names.hasMoreElements()) {
+                    String name = names.nextElement();
+                    all.put(name, session.getAttribute(name));
+                }
+            }
+            for (Map.Entry<String, Object> entry : pending.entrySet()) {
+                if (entry.getValue() == REMOVED) all.remove(entry.getKey());
+                else all.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return all;
+    }
+}
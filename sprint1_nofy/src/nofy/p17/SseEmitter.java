@@ -0,0 +1,77 @@
+package nofy.p17;
+
+import java.io.IOException;
+
+/**
+ * Flux Server-Sent Events (text/event-stream). Une String est envoyée telle
+ * quelle (une ligne "data:" par ligne de texte), tout autre objet en JSON.
+ * Les battements sont des commentaires ": ping", ignorés par EventSource.
+ */
+public class SseEmitter extends ResponseEmitter {
+
+    public SseEmitter() {
+        super();
+    }
+
+    public SseEmitter(long timeoutMillis) {
+        super(timeoutMillis);
+    }
+
+    @Override
+    public void send(Object data) throws IOException {
+        send(null, null, data);
+    }
+
+    /** Événement nommé (addEventListener(name, ...) côté navigateur). */
+    public void send(String event, Object data) throws IOException {
+        send(null, event, data);
+    }
+
+    /** Événement complet ; id et event sont optionnels (null). */
+    public synchronized void send(String id, String event, Object data) throws IOException {
+        checkOpen();
+        checkSingleLine(id);
+        checkSingleLine(event);
+        JsonWriter json = writer();
+        if (id != null) field(json, "id: ", id);
+        if (event != null) field(json, "event: ", event);
+        if (data instanceof String) {
+            for (String line : ((String) data).split("\r\n|\r|\n", -1)) field(json, "data: ", line);
+        } else {
+            json.writeAscii("data: ");
+            json.writeValue(data); // JSON : les retours à la ligne sont échappés
+            json.writeByte('\n');
+        }
+        json.writeByte('\n');
+        flush();
+    }
+
+    /** Délai de reconnexion conseillé au client (ms). */
+    public synchronized void retry(long millis) throws IOException {
+        checkOpen();
+        writer().writeAscii("retry: " + millis + "\n\n");
+        flush();
+    }
+
+    @Override
+    protected String getContentType() {
+        return "text/event-stream;charset=UTF-8";
+    }
+
+    @Override
+    protected void writeHeartbeat(JsonWriter json) throws IOException {
+        json.writeAscii(": ping\n\n");
+    }
+
+    private static void field(JsonWriter json, String name, String value) throws IOException {
+        json.writeAscii(name);
+        json.writeText(value);
+        json.writeByte('\n');
+    }
+
+    private static void checkSingleLine(String value) {
+        if (value != null && (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)) {
+            throw new IllegalArgumentException("Retour à la ligne interdit dans id/event : " + value);
+        }
+    }
+}
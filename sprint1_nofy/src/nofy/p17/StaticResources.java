@@ -0,0 +1,378 @@
+package nofy.p17;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Fichiers statiques (CSS, JS, images...) pour les GET / HEAD sans route,
+ * sous des racines configurées : "/prefixe" (fichiers de la webapp) ou
+ * "/prefixe=/répertoire" (répertoire du disque).
+ * <p>
+ * Les métadonnées (taille, date, ETag, type) sont gardées dans un LRU avec,
+ * pour les petits fichiers, leur contenu : un 304 ou un petit fichier déjà
+ * vu ne touche pas le disque. Le disque n'est revérifié qu'après
+ * checkIntervalMillis. Les gros fichiers partent par sendfile sous Tomcat
+ * (zéro copie), sinon par FileChannel.transferTo. Range : un seul intervalle
+ * (plusieurs : réponse complète, ce que la RFC 9110 permet).
+ */
+public class StaticResources {
+
+    /** Résultat de {@link #serve}. */
+    public enum Result {
+        SERVED,
+        NOT_FOUND,
+        /** Ressource de la webapp sans fichier sur le disque (WAR non déployé) : au conteneur. */
+        UNRESOLVED
+    }
+
+    // Envoi par le connecteur Tomcat (NIO / APR) après le retour du servlet
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final long[] UNSATISFIABLE = new long[0];
+    private static final int ENTRY_OVERHEAD = 256;
+    private static final int MAX_ENTRIES = 10000;
+
+    private final ServletContext context;
+    private final List<Root> roots = new ArrayList<>();
+    private final int maxCachedFileSize;
+    private final long maxCacheBytes;
+    private final long checkIntervalNanos;
+    private final long maxAgeSeconds;
+    private final String templateSuffix; // en majuscules, null : pas de gabarits
+    private final LinkedHashMap<Path, Resource> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    /**
+     * roots : racines séparées par des virgules ; maxCachedFileSize : taille
+     * maximale d'un fichier gardé en mémoire ; maxAgeSeconds : Cache-Control
+     * max-age (négatif : pas d'en-tête) ; templateSuffix : suffixe des
+     * gabarits de vues, jamais servis tels quels (null ou vide : aucun).
+     */
+    public StaticResources(ServletContext context, String roots, int maxCachedFileSize, long maxCacheBytes,
+                           long checkIntervalMillis, long maxAgeSeconds, String templateSuffix) {
+        this.context = context;
+        this.templateSuffix = (templateSuffix == null || templateSuffix.isEmpty())
+            ? null : templateSuffix.toUpperCase(Locale.ROOT);
+        this.maxCachedFileSize = maxCachedFileSize;
+        this.maxCacheBytes = maxCacheBytes;
+        this.checkIntervalNanos = checkIntervalMillis * 1_000_000;
+        this.maxAgeSeconds = maxAgeSeconds;
+        for (String spec : roots.split(",")) {
+            spec = spec.trim();
+            if (spec.isEmpty()) continue;
+            int eq = spec.indexOf('=');
+            String prefix = (eq < 0) ? spec : spec.substring(0, eq).trim();
+            Path dir = (eq < 0) ? null : Paths.get(spec.substring(eq + 1).trim()).toAbsolutePath().normalize();
+            if (!prefix.startsWith("/")) prefix = "/" + prefix;
+            if (prefix.length() > 1 && prefix.endsWith("/")) prefix = prefix.substring(0, prefix.length() - 1);
+            this.roots.add(new Root(prefix, dir));
+        }
+    }
+
+    private static final class Root {
+        final String prefix;
+        final Path dir; // null : fichiers de la webapp
+
+        Root(String prefix, Path dir) {
+            this.prefix = prefix;
+            this.dir = dir;
+        }
+
+        boolean covers(String path) {
+            return prefix.equals("/") || path.equals(prefix) || path.startsWith(prefix + "/");
+        }
+    }
+
+    /** Fichier vu sur le disque ; content non null pour un petit fichier. */
+    private static final class Resource {
+        final Path file;
+        final long length;
+        final long lastModified;
+        final String etag;
+        final String contentType;
+        final byte[] content;
+        volatile long checkedAt;
+
+        Resource(Path file, long length, long lastModified, String contentType, byte[] content, long checkedAt) {
+            this.file = file;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.etag = "\"" + Long.toHexString(lastModified) + "-" + Long.toHexString(length) + "\"";
+            this.contentType = contentType;
+            this.content = content;
+            this.checkedAt = checkedAt;
+        }
+
+        int weight() {
+            return ENTRY_OVERHEAD + ((content != null) ? content.length : 0);
+        }
+    }
+
+    /** path : chemin de la requête sans le contexte, encore encodé (getRequestURI). */
+    public Result serve(HttpServletRequest req, HttpServletResponse res, String path) throws IOException {
+        String decoded = decode(path);
+        if (decoded == null) return Result.NOT_FOUND;
+
+        for (Root root : roots) {
+            if (!root.covers(decoded)) continue;
+            Path file;
+            if (root.dir != null) {
+                file = root.dir.resolve(decoded.substring(root.prefix.length()).replaceFirst("^/+", "")).normalize();
+                if (!file.startsWith(root.dir)) continue;
+            } else {
+                if (isProtected(decoded)) return Result.NOT_FOUND;
+                String realPath = context.getRealPath(decoded);
+                if (realPath == null) return existsInWebapp(decoded) ? Result.UNRESOLVED : Result.NOT_FOUND;
+                file = Paths.get(realPath);
+            }
+            Resource resource = lookup(file);
+            if (resource != null) {
+                send(resource, req, res);
+                return Result.SERVED;
+            }
+        }
+        return Result.NOT_FOUND;
+    }
+
+    // Jamais servis depuis la webapp : configuration, sources des JSP et des gabarits
+    private boolean isProtected(String path) {
+        String upper = path.toUpperCase(Locale.ROOT);
+        return upper.startsWith("/WEB-INF") || upper.startsWith("/META-INF")
+            || upper.endsWith(".JSP") || upper.endsWith(".JSPX")
+            || (templateSuffix != null && upper.endsWith(templateSuffix));
+    }
+
+    private boolean existsInWebapp(String path) {
+        try {
+            return !path.endsWith("/") && context.getResource(path) != null;
+        } catch (java.net.MalformedURLException e) {
+            return false;
+        }
+    }
+
+    private Resource lookup(Path file) throws IOException {
+        Resource resource;
+        synchronized (this) {
+            resource = cache.get(file);
+        }
+        long now = System.nanoTime();
+        if (resource != null && now - resource.checkedAt < checkIntervalNanos) return resource;
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            attributes = null;
+        }
+        if (attributes == null || !attributes.isRegularFile()) {
+            if (resource != null) remove(file);
+            return null;
+        }
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        if (resource != null && resource.length == length && resource.lastModified == lastModified) {
+            resource.checkedAt = now; // inchangé
+            return resource;
+        }
+
+        byte[] content = null;
+        if (length <= maxCachedFileSize) {
+            content = Files.readAllBytes(file);
+            length = content.length; // modifié entre-temps : on garde ce qu'on a lu
+        }
+        String contentType = context.getMimeType(file.getFileName().toString());
+        resource = new Resource(file, length, lastModified,
+                                (contentType != null) ? contentType : "application/octet-stream", content, now);
+        put(resource);
+        return resource;
+    }
+
+    private synchronized void put(Resource resource) {
+        Resource old = cache.put(resource.file, resource);
+        if (old != null) cachedBytes -= old.weight();
+        cachedBytes += resource.weight();
+        Iterator<Resource> eldest = cache.values().iterator();
+        while ((cachedBytes > maxCacheBytes || cache.size() > MAX_ENTRIES) && eldest.hasNext()) {
+            Resource evicted = eldest.next();
+            eldest.remove();
+            cachedBytes -= evicted.weight();
+        }
+    }
+
+    private synchronized void remove(Path file) {
+        Resource old = cache.remove(file);
+        if (old != null) cachedBytes -= old.weight();
+    }
+
+    /** Vide le cache (fichiers remplacés sans changer de date, tests...). */
+    public synchronized void clear() {
+        cache.clear();
+        cachedBytes = 0;
+    }
+
+    private void send(Resource resource, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        res.setHeader("ETag", resource.etag);
+        res.setDateHeader("Last-Modified", resource.lastModified);
+        res.setHeader("Accept-Ranges", "bytes");
+        if (maxAgeSeconds >= 0) res.setHeader("Cache-Control", "max-age=" + maxAgeSeconds);
+        if (notModified(req, resource)) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        res.setContentType(resource.contentType);
+
+        long start = 0;
+        long end = resource.length; // exclu
+        String range = req.getHeader("Range");
+        if (range != null && ifRangeMatches(req, resource)) {
+            long[] bounds = parseRange(range, resource.length);
+            if (bounds == UNSATISFIABLE) {
+                res.setHeader("Content-Range", "bytes */" + resource.length);
+                res.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                res.setHeader("Content-Range", "bytes " + start + "-" + (end - 1) + "/" + resource.length);
+            }
+        }
+        res.setContentLengthLong(end - start);
+        if ("HEAD".equals(req.getMethod())) return;
+
+        if (resource.content != null) {
+            res.getOutputStream().write(resource.content, (int) start, (int) (end - start));
+        } else if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            req.setAttribute(SENDFILE_FILENAME, resource.file.toRealPath().toString());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, end);
+        } else {
+            transfer(resource.file, start, end - start, res.getOutputStream());
+        }
+    }
+
+    // Hors Tomcat, la cible n'est pas une socket : le JDK copie par un tampon direct, sans tas Java
+    private static void transfer(Path file, long position, long count, OutputStream out) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(out);
+            while (count > 0) {
+                long sent = channel.transferTo(position, count, target);
+                if (sent <= 0) break; // fichier raccourci entre-temps
+                position += sent;
+                count -= sent;
+            }
+        }
+    }
+
+    private static boolean notModified(HttpServletRequest req, Resource resource) {
+        String ifNoneMatch = req.getHeader("If-None-Match");
+        if (ifNoneMatch != null) return FrontServlet.etagMatches(ifNoneMatch, resource.etag);
+        long ifModifiedSince = dateHeader(req, "If-Modified-Since");
+        return ifModifiedSince >= 0 && resource.lastModified / 1000 <= ifModifiedSince / 1000;
+    }
+
+    // If-Range : la plage n'est valable que pour cette version exacte du fichier
+    private static boolean ifRangeMatches(HttpServletRequest req, Resource resource) {
+        String ifRange = req.getHeader("If-Range");
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(resource.etag);
+        long date = dateHeader(req, "If-Range");
+        return date >= 0 && resource.lastModified / 1000 == date / 1000;
+    }
+
+    private static long dateHeader(HttpServletRequest req, String name) {
+        try {
+            return req.getDateHeader(name);
+        } catch (IllegalArgumentException e) {
+            return -1; // date illisible : en-tête ignoré
+        }
+    }
+
+    /**
+     * Un intervalle "bytes=a-b", "bytes=a-" ou "bytes=-n" : {début, fin exclue},
+     * UNSATISFIABLE hors du fichier, null si l'en-tête est ignoré.
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) return null;
+        String spec = header.substring(6).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) return null;
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || length == 0) return UNSATISFIABLE;
+                return new long[] { Math.max(0, length - suffix), length };
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? Long.MAX_VALUE : Long.parseLong(last);
+            if (start < 0 || end < start) return null;
+            if (start >= length) return UNSATISFIABLE;
+            return new long[] { start, Math.min(end, length - 1) + 1 };
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Décodage %XX (UTF-8) du chemin, sans paramètres ";..." ; null pour un
+     * chemin malformé ou qui sort de sa racine (.., \, octet nul, //).
+     */
+    static String decode(String path) {
+        int semicolon = path.indexOf(';');
+        if (semicolon >= 0) path = path.substring(0, semicolon);
+        String decoded = path;
+        if (path.indexOf('%') >= 0) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(path.length());
+            for (int i = 0; i < path.length(); i++) {
+                char c = path.charAt(i);
+                if (c == '%') {
+                    if (i + 2 >= path.length()) return null;
+                    int hi = Character.digit(path.charAt(i + 1), 16);
+                    int lo = Character.digit(path.charAt(i + 2), 16);
+                    if (hi < 0 || lo < 0) return null;
+                    bytes.write((hi << 4) | lo);
+                    i += 2;
+                } else {
+                    byte[] raw = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                    bytes.write(raw, 0, raw.length);
+                }
+            }
+            decoded = new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+        if (!decoded.startsWith("/") || decoded.indexOf('\\') >= 0 || decoded.indexOf('\0') >= 0) return null;
+        // Segments vides refusés : "//WEB-INF" (ou "/%2FWEB-INF") passerait isProtected,
+        // alors que getRealPath le ramène à /WEB-INF
+        String[] segments = decoded.split("/");
+        for (int i = 1; i < segments.length; i++) {
+            String segment = segments[i];
+            if (segment.isEmpty() || segment.equals("..") || segment.equals(".")) return null;
+        }
+        return decoded;
+    }
+}
@@ -0,0 +1,534 @@
+package nofy.p17;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gabarit compilé pour un ModelView : le texte est analysé une seule fois en
+ * un plan d'écriture (morceaux de texte déjà encodés en UTF-8, expressions
+ * découpées), puis rendu directement dans l'OutputStream de la réponse.
+ * <pre>
+ *   {{nom}}  {{client.adresse.ville}}   valeur échappée pour le HTML
+ *   {{{html}}}                          valeur brute
+ *   {{#each items}} {{this.nom}} {{/each}}
+ *   {{#if connecte}} ... {{else}} ... {{/if}}
+ *   {{#cache produit.id produit.version}} ... {{/cache}}
+ *   {{! commentaire }}
+ * </pre>
+ * Un nom est cherché dans l'élément courant des each, puis dans le modèle ;
+ * sur un objet : clé de Map, getX() / isX() / x(), puis champ. Un bloc
+ * #cache garde le rendu de son contenu par valeurs des expressions données
+ * (LRU de FRAGMENT_CACHE_SIZE entrées) : à réserver aux clés simples
+ * (identifiants, versions) dont equals a un sens.
+ */
+public final class Template {
+
+    static final int FRAGMENT_CACHE_SIZE = 256;
+    private static final Object MISSING = new Object();
+
+    private final String name;
+    private final Node[] plan;
+
+    private Template(String name, Node[] plan) {
+        this.name = name;
+        this.plan = plan;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** Analyse le texte ; IllegalArgumentException pour un gabarit mal formé. */
+    public static Template compile(String name, String source) {
+        return new Template(name, new Parser(name, source).parse());
+    }
+
+    /** Rendu dans out (non fermé). */
+    public void render(Map<String, ?> model, OutputStream out) throws IOException {
+        byte[] buffer = RequestContext.borrowBuffer();
+        try {
+            Output output = new Output(out, buffer);
+            write(plan, new Scope(model, null), output);
+            output.flush();
+        } finally {
+            RequestContext.release(buffer);
+        }
+    }
+
+    private static void write(Node[] nodes, Scope scope, Output out) throws IOException {
+        for (Node node : nodes) node.write(scope, out);
+    }
+
+    // --- Plan ---
+
+    private interface Node {
+        void write(Scope scope, Output out) throws IOException;
+    }
+
+    private static final class Text implements Node {
+        private final byte[] bytes;
+
+        Text(String text) {
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(Scope scope, Output out) throws IOException {
+            out.writeBytes(bytes, 0, bytes.length);
+        }
+    }
+
+    private static final class Value implements Node {
+        private final Expression expression;
+        private final boolean escape;
+
+        Value(Expression expression, boolean escape) {
+            this.expression = expression;
+            this.escape = escape;
+        }
+
+        @Override
+        public void write(Scope scope, Output out) throws IOException {
+            Object value = expression.evaluate(scope);
+            if (value != null) out.writeText(String.valueOf(value), escape);
+        }
+    }
+
+    private static final class Each implements Node {
+        private final Expression expression;
+        private final Node[] body;
+
+        Each(Expression expression, Node[] body) {
+            this.expression = expression;
+            this.body = body;
+        }
+
+        @Override
+        public void write(Scope scope, Output out) throws IOException {
+            Object value = expression.evaluate(scope);
+            if (value == null) return;
+            if (value instanceof Map) value = ((Map<?, ?>) value).entrySet(); // {{key}} / {{value}}
+            if (value instanceof Iterable) {
+                for (Object item : (Iterable<?>) value) Template.write(body, new Scope(item, scope), out);
+            } else if (value.getClass().isArray()) {
+                int length = Array.getLength(value);
+                for (int i = 0; i < length; i++) Template.write(body, new Scope(Array.get(value, i), scope), out);
+            } else {
+                Template.write(body, new Scope(value, scope), out);
+            }
+        }
+    }
+
+    private static final class If implements Node {
+        private final Expression expression;
+        private final Node[] then;
+        private final Node[] otherwise;
+
+        If(Expression expression, Node[] then, Node[] otherwise) {
+            this.expression = expression;
+            this.then = then;
+            this.otherwise = otherwise;
+        }
+
+        @Override
+        public void write(Scope scope, Output out) throws IOException {
+            Template.write(isTrue(expression.evaluate(scope)) ? then : otherwise, scope, out);
+        }
+
+        private static boolean isTrue(Object value) {
+            if (value == null) return false;
+            if (value instanceof Boolean) return (Boolean) value;
+            if (value instanceof CharSequence) return ((CharSequence) value).length() > 0;
+            if (value instanceof Collection) return !((Collection<?>) value).isEmpty();
+            if (value instanceof Map) return !((Map<?, ?>) value).isEmpty();
+            if (value.getClass().isArray()) return Array.getLength(value) > 0;
+            return true;
+        }
+    }
+
+    private static final class Cache implements Node {
+        private final Expression[] keys;
+        private final Node[] body;
+        private final LinkedHashMap<List<Object>, byte[]> fragments =
+            new LinkedHashMap<List<Object>, byte[]>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, byte[]> eldest) {
+                    return size() > FRAGMENT_CACHE_SIZE;
+                }
+            };
+
+        Cache(Expression[] keys, Node[] body) {
+            this.keys = keys;
+            this.body = body;
+        }
+
+        @Override
+        public void write(Scope scope, Output out) throws IOException {
+            Object[] values = new Object[keys.length];
+            for (int i = 0; i < keys.length; i++) values[i] = keys[i].evaluate(scope);
+            List<Object> key = Arrays.asList(values);
+            byte[] fragment;
+            synchronized (fragments) {
+                fragment = fragments.get(key);
+            }
+            if (fragment == null) {
+                // Rendu hors verrou : deux rendus simultanés de la même clé donnent le même texte
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                Output capture = new Output(bytes, new byte[1024]);
+                Template.write(body, scope, capture);
+                capture.flush();
+                fragment = bytes.toByteArray();
+                synchronized (fragments) {
+                    fragments.put(key, fragment);
+                }
+            }
+            out.writeBytes(fragment, 0, fragment.length);
+        }
+    }
+
+    // --- Expressions ---
+
+    /** Élément courant d'un each (ou le modèle), et la portée qui l'englobe. */
+    private static final class Scope {
+        final Object value;
+        final Scope parent;
+
+        Scope(Object value, Scope parent) {
+            this.value = value;
+            this.parent = parent;
+        }
+    }
+
+    private static final class Expression {
+        private final String[] path; // "this" en tête : élément courant
+        // Dernière classe lue par segment et son accès : pas de recherche quand le type ne change pas
+        private final Accessor[] seen;
+
+        Expression(String text) {
+            this.path = text.split("\\.");
+            this.seen = new Accessor[path.length];
+        }
+
+        Object evaluate(Scope scope) {
+            Object value;
+            int i = 1;
+            if (path[0].equals("this")) {
+                value = scope.value;
+            } else {
+                value = null;
+                for (Scope s = scope; s != null; s = s.parent) {
+                    Object found = property(s.value, 0);
+                    if (found != MISSING) {
+                        value = found;
+                        break;
+                    }
+                }
+            }
+            for (; i < path.length && value != null; i++) {
+                value = property(value, i);
+                if (value == MISSING) value = null;
+            }
+            return value;
+        }
+
+        private Object property(Object target, int segment) {
+            if (target == null) return MISSING;
+            String name = path[segment];
+            if (target instanceof Map) {
+                Map<?, ?> map = (Map<?, ?>) target;
+                Object value = map.get(name);
+                return (value != null || map.containsKey(name)) ? value : MISSING;
+            }
+            Class<?> type = target.getClass();
+            Accessor accessor = seen[segment];
+            if (accessor == null || accessor.type != type) {
+                accessor = new Accessor(type, ACCESSORS.get(type).computeIfAbsent(name, n -> getter(type, n)));
+                seen[segment] = accessor;
+            }
+            if (accessor.getter == NO_GETTER) return MISSING;
+            try {
+                return (Object) accessor.getter.invokeExact(target);
+            } catch (Throwable e) {
+                throw new IllegalStateException("Lecture de " + name + " sur " + type.getName(), e);
+            }
+        }
+    }
+
+    private static final class Accessor {
+        final Class<?> type;
+        final MethodHandle getter;
+
+        Accessor(Class<?> type, MethodHandle getter) {
+            this.type = type;
+            this.getter = getter;
+        }
+    }
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodHandle NO_GETTER =
+        MethodHandles.dropArguments(MethodHandles.constant(Object.class, MISSING), 0, Object.class);
+
+    // Accès par classe et par nom, résolus une fois
+    private static final ClassValue<Map<String, MethodHandle>> ACCESSORS = new ClassValue<Map<String, MethodHandle>>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static MethodHandle getter(Class<?> type, String name) {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        for (String candidate : new String[] { "get" + suffix, "is" + suffix, name }) {
+            Method method = publicMethod(type, candidate);
+            if (method == null) continue;
+            try {
+                return lookup.unreflect(method).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                // essai suivant
+            }
+        }
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            try {
+                Field field = c.getDeclaredField(name);
+                if (Modifier.isStatic(field.getModifiers())) break;
+                field.setAccessible(true);
+                return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (NoSuchFieldException e) {
+                // classe parente
+            } catch (RuntimeException | IllegalAccessException e) {
+                break; // module fermé
+            }
+        }
+        return NO_GETTER;
+    }
+
+    /**
+     * Méthode sans paramètre déclarée par un type public de la hiérarchie :
+     * getKey() d'une entrée de HashMap est lue par Map.Entry, la classe
+     * réelle n'étant pas accessible.
+     */
+    private static Method publicMethod(Class<?> type, String name) {
+        Deque<Class<?>> types = new ArrayDeque<>();
+        types.add(type);
+        while (!types.isEmpty()) {
+            Class<?> c = types.poll();
+            if (Modifier.isPublic(c.getModifiers())) {
+                try {
+                    Method method = c.getMethod(name);
+                    if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) return method;
+                } catch (NoSuchMethodException e) {
+                    // pas ici
+                }
+            } else {
+                try {
+                    Method method = c.getDeclaredMethod(name);
+                    if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+                        method.setAccessible(true); // classe de l'application non publique
+                        return method;
+                    }
+                } catch (NoSuchMethodException | RuntimeException e) {
+                    // pas ici, ou module fermé
+                }
+            }
+            if (c.getSuperclass() != null) types.add(c.getSuperclass());
+            types.addAll(Arrays.asList(c.getInterfaces()));
+        }
+        return null;
+    }
+
+    // --- Écriture ---
+
+    /** Tampon d'octets UTF-8 devant l'OutputStream, avec échappement HTML. */
+    private static final class Output {
+        private final OutputStream out;
+        private final byte[] buffer;
+        private int pos;
+
+        Output(OutputStream out, byte[] buffer) {
+            this.out = out;
+            this.buffer = buffer;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length - pos) {
+                flushBuffer();
+                if (length > buffer.length) {
+                    out.write(bytes, offset, length);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, offset, buffer, pos, length);
+            pos += length;
+        }
+
+        void writeText(String text, boolean escape) throws IOException {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (escape) {
+                    switch (c) {
+                        case '&': writeAscii("&amp;"); continue;
+                        case '<': writeAscii("&lt;"); continue;
+                        case '>': writeAscii("&gt;"); continue;
+                        case '"': writeAscii("&quot;"); continue;
+                        case '\'': writeAscii("&#39;"); continue;
+                        default: break;
+                    }
+                }
+                if (pos + 4 > buffer.length) flushBuffer();
+                if (c < 0x80) {
+                    buffer[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[pos++] = (byte) (0xC0 | (c >> 6));
+                    buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                           && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, text.charAt(++i));
+                    buffer[pos++] = (byte) (0xF0 | (cp >> 18));
+                    buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buffer[pos++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[pos++] = '?'; // surrogate isolé
+                } else {
+                    buffer[pos++] = (byte) (0xE0 | (c >> 12));
+                    buffer[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void writeAscii(String s) throws IOException {
+            if (pos + s.length() > buffer.length) flushBuffer();
+            for (int i = 0; i < s.length(); i++) buffer[pos++] = (byte) s.charAt(i);
+        }
+
+        private void flushBuffer() throws IOException {
+            if (pos > 0) {
+                out.write(buffer, 0, pos);
+                pos = 0;
+            }
+        }
+
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    // --- Analyse ---
+
+    private static final class Parser {
+        private final String name;
+        private final String source;
+        private int pos;
+
+        Parser(String name, String source) {
+            this.name = name;
+            this.source = source;
+        }
+
+        Node[] parse() {
+            List<Node> nodes = new ArrayList<>();
+            String end = block(nodes, null);
+            if (end != null) throw error("{{" + end + "}} sans bloc ouvert");
+            return nodes.toArray(new Node[0]);
+        }
+
+        /**
+         * Lit jusqu'à la fin du bloc (ou du texte si block est null) et
+         * retourne la balise qui l'a terminé : "/each", "else"...
+         */
+        private String block(List<Node> nodes, String block) {
+            while (pos < source.length()) {
+                int open = source.indexOf("{{", pos);
+                if (open < 0) {
+                    nodes.add(new Text(source.substring(pos)));
+                    pos = source.length();
+                    break;
+                }
+                if (open > pos) nodes.add(new Text(source.substring(pos, open)));
+
+                boolean raw = source.startsWith("{{{", open);
+                String close = raw ? "}}}" : "}}";
+                int end = source.indexOf(close, open);
+                if (end < 0) throw error("balise non fermée à la position " + open);
+                String tag = source.substring(open + close.length(), end).trim();
+                pos = end + close.length();
+
+                if (raw) {
+                    nodes.add(new Value(expression(tag), false));
+                } else if (tag.startsWith("!")) {
+                    // commentaire
+                } else if (tag.startsWith("#")) {
+                    nodes.add(section(tag.substring(1).trim()));
+                } else if (tag.startsWith("/") || tag.equals("else")) {
+                    if (block == null) throw error("{{" + tag + "}} sans bloc ouvert");
+                    return tag;
+                } else {
+                    nodes.add(new Value(expression(tag), true));
+                }
+            }
+            if (block != null) throw error("{{#" + block + "}} non fermé");
+            return null;
+        }
+
+        private Node section(String tag) {
+            String[] words = tag.split("\\s+");
+            String kind = words[0];
+            if (words.length < 2) throw error("{{#" + kind + "}} sans expression");
+            List<Node> body = new ArrayList<>();
+            String end = block(body, kind);
+            switch (kind) {
+                case "each":
+                    expectEnd(end, kind);
+                    return new Each(expression(words[1]), body.toArray(new Node[0]));
+                case "if": {
+                    List<Node> otherwise = new ArrayList<>();
+                    if (end.equals("else")) end = block(otherwise, kind);
+                    expectEnd(end, kind);
+                    return new If(expression(words[1]), body.toArray(new Node[0]), otherwise.toArray(new Node[0]));
+                }
+                case "cache": {
+                    expectEnd(end, kind);
+                    Expression[] keys = new Expression[words.length - 1];
+                    for (int i = 1; i < words.length; i++) keys[i - 1] = expression(words[i]);
+                    return new Cache(keys, body.toArray(new Node[0]));
+                }
+                default:
+                    throw error("bloc inconnu {{#" + kind + "}}");
+            }
+        }
+
+        private void expectEnd(String end, String kind) {
+            if (!end.equals("/" + kind)) throw error("{{#" + kind + "}} fermé par {{" + end + "}}");
+        }
+
+        private Expression expression(String text) {
+            if (text.isEmpty() || !text.matches("[\\w$@]+(\\.[\\w$@]+)*")) throw error("expression invalide : " + text);
+            return new Expression(text);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Gabarit " + name + " : " + message);
+        }
+    }
+}
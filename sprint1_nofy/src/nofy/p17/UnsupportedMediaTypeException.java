@@ -0,0 +1,15 @@
+package nofy.p17;
+
+import jakarta.servlet.ServletException;
+
+/**
+ * Corps de requête d'un type non accepté (Content-Type) : répondu en 415.
+ */
+public class UnsupportedMediaTypeException extends ServletException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UnsupportedMediaTypeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,77 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import jakarta.servlet.http.Part;
+
+/**
+ * Fichier reçu en multipart/form-data. Le contenu reste dans la Part du
+ * conteneur (fichier temporaire) : il n'est lu qu'à la demande, en flux,
+ * ou copié sur disque via {@link #transferTo(Path)}.
+ */
+public class UploadedFile {
+
+    private final Part part;
+
+    public UploadedFile(Part part) {
+        this.part = part;
+    }
+
+    /** Nom du champ du formulaire. */
+    public String getName() {
+        return part.getName();
+    }
+
+    /** Nom du fichier envoyé par le client. */
+    public String getFileName() {
+        return part.getSubmittedFileName();
+    }
+
+    public long getSize() {
+        return part.getSize();
+    }
+
+    public String getContentType() {
+        return part.getContentType();
+    }
+
+    /** Flux du contenu, à fermer par l'appelant. */
+    public InputStream getInputStream() throws IOException {
+        return part.getInputStream();
+    }
+
+    /**
+     * Copie le contenu dans le fichier cible (créé ou écrasé) sans passer par
+     * un tableau en mémoire : FileChannel.transferFrom depuis le flux de la Part.
+     */
+    public void transferTo(Path target) throws IOException {
+        try (InputStream in = part.getInputStream();
+             ReadableByteChannel source = Channels.newChannel(in);
+             FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            long transferred;
+            while ((transferred = channel.transferFrom(source, position, Long.MAX_VALUE - position)) > 0) {
+                position += transferred;
+            }
+        }
+    }
+
+    /** Contenu complet en mémoire : à réserver aux petits fichiers. */
+    public byte[] getBytes() throws IOException {
+        try (InputStream in = part.getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** Supprime le stockage temporaire du conteneur. */
+    public void delete() throws IOException {
+        part.delete();
+    }
+}
@@ -0,0 +1,212 @@
+package nofy.p17;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jakarta.servlet.RequestDispatcher;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Résolution des vues, une fois par nom : dispatcher de la JSP gardé,
+ * .html lu en octets et écrit directement, gabarit (suffixe templateSuffix)
+ * compilé en {@link Template}. Les fichiers sont relus quand leur date
+ * change, vérifiée au plus toutes les checkIntervalMillis ; une vue absente
+ * du disque (WAR non déployé) est transmise au conteneur comme avant.
+ */
+final class ViewResolver {
+
+    /** Au-delà, les vues (noms construits à la volée ?) ne sont plus gardées. */
+    private static final int MAX_VIEWS = 1024;
+
+    private final ServletContext context;
+    private final String templateSuffix; // null : pas de gabarits
+    private final long checkIntervalNanos;
+    private final Map<String, View> views = new ConcurrentHashMap<>();
+
+    ViewResolver(ServletContext context, String templateSuffix, long checkIntervalMillis) {
+        this.context = context;
+        this.templateSuffix = (templateSuffix == null || templateSuffix.isEmpty()) ? null : templateSuffix;
+        this.checkIntervalNanos = checkIntervalMillis * 1_000_000;
+    }
+
+    boolean isViewName(String name) {
+        return name.endsWith(".jsp") || name.endsWith(".html") || isTemplate(name);
+    }
+
+    private boolean isTemplate(String name) {
+        return templateSuffix != null && name.endsWith(templateSuffix);
+    }
+
+    /** Vue chargée : dispatcher, octets du .html ou gabarit compilé. */
+    private static final class View {
+        final String path;
+        final RequestDispatcher dispatcher;
+        final Path file;         // null : pas de fichier sur le disque
+        final long lastModified;
+        final byte[] html;       // .html
+        final Template template; // gabarit
+        volatile long checkedAt;
+
+        View(String path, RequestDispatcher dispatcher, Path file, long lastModified, byte[] html,
+             Template template, long checkedAt) {
+            this.path = path;
+            this.dispatcher = dispatcher;
+            this.file = file;
+            this.lastModified = lastModified;
+            this.html = html;
+            this.template = template;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    /**
+     * Rendu de la vue. forward : envoi à la JSP (ou au conteneur) avec les
+     * données du modèle, fait par l'appelant (dispatch asynchrone...).
+     */
+    void render(String name, Map<String, Object> model, HttpServletRequest req, HttpServletResponse res,
+                Forward forward) throws Exception {
+        View view = view(name);
+        if (view.template != null) {
+            if (res.getContentType() == null) res.setContentType("text/html;charset=UTF-8");
+            view.template.render((model != null) ? model : Collections.emptyMap(), res.getOutputStream());
+        } else if (view.html != null) {
+            if (res.getContentType() == null) {
+                String type = context.getMimeType(name);
+                res.setContentType((type != null) ? type : "text/html");
+            }
+            res.setContentLength(view.html.length);
+            res.getOutputStream().write(view.html);
+        } else {
+            forward.forward(view.path, view.dispatcher, model);
+        }
+    }
+
+    /** Envoi à la ressource de la vue. */
+    interface Forward {
+        void forward(String path, RequestDispatcher dispatcher, Map<String, Object> model) throws Exception;
+    }
+
+    private View view(String name) throws IOException {
+        View view = views.get(name);
+        long now = System.nanoTime();
+        if (view != null && (view.file == null || now - view.checkedAt < checkIntervalNanos)) return view;
+        if (view != null) {
+            long lastModified = lastModified(view.file);
+            if (lastModified == view.lastModified) {
+                view.checkedAt = now; // inchangé
+                return view;
+            }
+        }
+        view = load(name, now);
+        if (views.size() < MAX_VIEWS || views.containsKey(name)) views.put(name, view);
+        return view;
+    }
+
+    private View load(String name, long now) throws IOException {
+        String path = "/" + name;
+        RequestDispatcher dispatcher = context.getRequestDispatcher(path);
+        boolean template = isTemplate(name);
+        if (!template && !name.endsWith(".html")) return new View(path, dispatcher, null, 0, null, null, now);
+
+        String realPath = context.getRealPath(path);
+        Path file = (realPath != null) ? Paths.get(realPath) : null;
+        byte[] bytes;
+        long lastModified = 0;
+        if (file != null && Files.isRegularFile(file)) {
+            lastModified = lastModified(file);
+            bytes = Files.readAllBytes(file);
+        } else {
+            file = null;
+            try (InputStream in = context.getResourceAsStream(path)) {
+                bytes = (in != null) ? in.readAllBytes() : null;
+            }
+        }
+        // Introuvable : le conteneur répondra (404, ou une servlet mappée sur ce chemin)
+        if (bytes == null) return new View(path, dispatcher, null, 0, null, null, now);
+        if (template) {
+            Template compiled = Template.compile(name, new String(bytes, StandardCharsets.UTF_8));
+            return new View(path, dispatcher, file, lastModified, null, compiled, now);
+        }
+        return new View(path, dispatcher, file, lastModified, bytes, null, now);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1; // supprimé : rechargé (et transmis au conteneur)
+        }
+    }
+
+    /** Oublie les vues chargées (rechargement de l'application). */
+    void clear() {
+        views.clear();
+    }
+
+    /**
+     * Requête vue par la JSP : les données du modèle en attributs, sans les
+     * recopier une à une dans la requête. Un setAttribute / removeAttribute
+     * fait pendant le rendu l'emporte sur le modèle, comme avant.
+     */
+    static final class ModelRequest extends HttpServletRequestWrapper {
+        private final Map<String, Object> model;
+        private Set<String> overridden;
+
+        ModelRequest(HttpServletRequest request, Map<String, Object> model) {
+            super(request);
+            this.model = model;
+        }
+
+        private boolean fromModel(String name) {
+            return model.containsKey(name) && (overridden == null || !overridden.contains(name));
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return fromModel(name) ? model.get(name) : super.getAttribute(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            Set<String> names = new LinkedHashSet<>(Collections.list(super.getAttributeNames()));
+            for (Map.Entry<String, Object> entry : model.entrySet()) {
+                if (!fromModel(entry.getKey())) continue;
+                if (entry.getValue() != null) names.add(entry.getKey());
+                else names.remove(entry.getKey());
+            }
+            return Collections.enumeration(names);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            override(name);
+            super.setAttribute(name, value);
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            override(name);
+            super.removeAttribute(name);
+        }
+
+        private void override(String name) {
+            if (!model.containsKey(name)) return;
+            if (overridden == null) overridden = new HashSet<>();
+            overridden.add(name);
+        }
+    }
+}